@@ -0,0 +1,35 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+public enum IntegerEncodingStrategy {
+
+	/**
+	 * Integral values are written with their fixed width (2 bytes for short
+	 * and char, 4 bytes for int, 8 bytes for long), lengths and sizes as 4
+	 * byte int values.
+	 */
+	FixedLength,
+
+	/**
+	 * Integral values, lengths, sizes and reference ids are written as LEB128
+	 * varints, signed values are ZigZag encoded before. Small values need
+	 * only one or two bytes but big values may need one byte more than their
+	 * fixed width.
+	 */
+	Compact
+
+}
@@ -15,16 +15,17 @@
  */
 package com.github.lightning;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
+
 public interface Marshaller {
 
 	boolean acceptType(Class<?> type);
 
-	void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException;
+	void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException;
 
-	<V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException;
+	<V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException;
 
 }
@@ -15,6 +15,7 @@
  */
 package com.github.lightning;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
@@ -26,6 +27,8 @@ public interface SerializationContext {
 
 	SerializationStrategy getSerializationStrategy();
 
+	IntegerEncodingStrategy getIntegerEncodingStrategy();
+
 	ObjectInstantiatorFactory getObjectInstantiatorFactory();
 
 	Marshaller findMarshaller(Type type);
@@ -38,6 +41,6 @@ public interface SerializationContext {
 
 	long putMarshalledInstance(Object instance);
 
-	long putUnmarshalledInstance(long refrenceId, Object instance);
+	long putUnmarshalledInstance(long refrenceId, Object instance) throws IOException;
 
 }
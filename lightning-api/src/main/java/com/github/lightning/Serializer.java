@@ -23,6 +23,8 @@ import java.io.Reader;
 import java.io.Writer;
 import java.nio.ByteBuffer;
 
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.metadata.ClassDefinitionContainer;
 
 public interface Serializer {
@@ -31,6 +33,8 @@ public interface Serializer {
 
 	void setClassDefinitionContainer(ClassDefinitionContainer classDefinitionContainer);
 
+	<V> void serialize(V value, LightningOutput output);
+
 	<V> void serialize(V value, DataOutput dataOutput);
 
 	<V> void serialize(V value, OutputStream outputStream);
@@ -39,6 +43,10 @@ public interface Serializer {
 
 	<V> void serialize(V value, ByteBuffer buffer);
 
+	<V> byte[] serialize(V value);
+
+	<V> V deserialize(LightningInput input);
+
 	<V> V deserialize(DataInput dataInput);
 
 	<V> V deserialize(InputStream inputStream);
@@ -47,4 +55,6 @@ public interface Serializer {
 
 	<V> V deserialize(ByteBuffer buffer);
 
+	<V> V deserialize(byte[] data, int offset, int length);
+
 }
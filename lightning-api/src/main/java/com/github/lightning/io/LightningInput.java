@@ -0,0 +1,857 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.io;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.StreamCorruptedException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Cursor based input buffer used by all marshallers. Values are read in
+ * big-endian byte order by default (the same format as
+ * {@link java.io.DataInputStream}), little-endian or native order can be
+ * selected on construction.<br>
+ * The input reads from a byte array, from the memory of a heap or direct
+ * {@link ByteBuffer} (starting at its current position) or from an attached
+ * {@link InputStream}. In the latter case only the bytes requested by the
+ * current read are pulled from the stream, so it is never consumed beyond the
+ * end of the deserialized value.<br>
+ * Instances are not thread-safe.
+ */
+public final class LightningInput {
+
+	private static final int STREAM_BUFFER_CAPACITY = 256;
+	private static final int MAX_RETAINED_CHARS = 4096;
+	private static final int MAX_STRING_CHUNK = 8192;
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	private final InputStream inputStream;
+	private final ByteBuffer byteBuffer;
+	private final ByteOrder byteOrder;
+	private final boolean bigEndian;
+	private final boolean swapBytes;
+
+	// Heap memory, null if reading from direct memory
+	private byte[] buffer;
+
+	// Base address for Unsafe access (array base offset or direct address)
+	private final long address;
+	private final boolean unsafeAccess;
+
+	private int position;
+	private int limit;
+
+	private ByteBuffer directView;
+
+	// Scratch buffer to decode Latin-1 strings into
+	private char[] chars;
+	private InputView inputView;
+
+	public LightningInput(byte[] buffer) {
+		this(buffer, 0, buffer.length);
+	}
+
+	public LightningInput(byte[] buffer, int offset, int length) {
+		this(buffer, offset, length, ByteOrder.BIG_ENDIAN);
+	}
+
+	public LightningInput(byte[] buffer, int offset, int length, ByteOrder byteOrder) {
+		this(buffer, checkBounds(buffer, offset, length), offset + length, null, null, byteOrder);
+	}
+
+	public LightningInput(InputStream inputStream) {
+		this(inputStream, ByteOrder.BIG_ENDIAN);
+	}
+
+	public LightningInput(InputStream inputStream, ByteOrder byteOrder) {
+		this(new byte[STREAM_BUFFER_CAPACITY], 0, 0, inputStream, null, byteOrder);
+	}
+
+	public LightningInput(ByteBuffer byteBuffer) {
+		this(byteBuffer, ByteOrder.BIG_ENDIAN);
+	}
+
+	public LightningInput(ByteBuffer byteBuffer, ByteOrder byteOrder) {
+		this(byteBuffer.hasArray() ? byteBuffer.array() : null, byteBuffer.position(), byteBuffer.limit(), null, byteBuffer, byteOrder);
+	}
+
+	private LightningInput(byte[] buffer, int position, int limit, InputStream inputStream, ByteBuffer byteBuffer, ByteOrder byteOrder) {
+		this.buffer = buffer;
+		this.inputStream = inputStream;
+		this.byteBuffer = byteBuffer;
+		this.byteOrder = byteOrder;
+		this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+		this.swapBytes = bigEndian != MemoryAccess.NATIVE_BIG_ENDIAN;
+
+		if (buffer != null) {
+			int arrayOffset = byteBuffer != null ? byteBuffer.arrayOffset() : 0;
+			this.address = MemoryAccess.BYTE_ARRAY_OFFSET;
+			this.unsafeAccess = MemoryAccess.UNSAFE != null;
+			this.position = arrayOffset + position;
+			this.limit = arrayOffset + limit;
+		}
+		else {
+			this.unsafeAccess = MemoryAccess.UNSAFE != null && byteBuffer.isDirect();
+			this.address = unsafeAccess ? MemoryAccess.getAddress(byteBuffer) : -1;
+			this.position = position;
+			this.limit = limit;
+		}
+	}
+
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	public byte readByte() throws IOException {
+		require(1);
+		return getByte(position++);
+	}
+
+	public int readUnsignedByte() throws IOException {
+		return readByte() & 0xFF;
+	}
+
+	public short readShort() throws IOException {
+		require(2);
+		short value = getShort(position);
+		position += 2;
+		return value;
+	}
+
+	public int readUnsignedShort() throws IOException {
+		return readShort() & 0xFFFF;
+	}
+
+	public char readChar() throws IOException {
+		return (char) readShort();
+	}
+
+	public int readInt() throws IOException {
+		require(4);
+		int value = getInt(position);
+		position += 4;
+		return value;
+	}
+
+	public long readLong() throws IOException {
+		require(8);
+		long value = getLong(position);
+		position += 8;
+		return value;
+	}
+
+	/**
+	 * Reads an unsigned LEB128 varint written by
+	 * {@link LightningOutput#writeVarInt(int)}.
+	 */
+	public int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new StreamCorruptedException("Malformed varint");
+	}
+
+	/**
+	 * Reads an unsigned LEB128 varint written by
+	 * {@link LightningOutput#writeVarLong(long)}.
+	 */
+	public long readVarLong() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new StreamCorruptedException("Malformed varint");
+	}
+
+	public int readSignedVarInt() throws IOException {
+		int value = readVarInt();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public long readSignedVarLong() throws IOException {
+		long value = readVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public float readFloat() throws IOException {
+		return Float.intBitsToFloat(readInt());
+	}
+
+	public double readDouble() throws IOException {
+		return Double.longBitsToDouble(readLong());
+	}
+
+	/**
+	 * Reads a block of shorts written by
+	 * {@link LightningOutput#writeShorts(short[], int, int)}. If the byte order
+	 * matches the native one the memory is copied as a whole. The same applies
+	 * to all other bulk read methods.
+	 */
+	public void readShorts(short[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = available(length, 2);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(buffer, address + position, values, MemoryAccess.SHORT_ARRAY_OFFSET + ((long) offset << 1),
+						(long) count << 1);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asShortBuffer().get(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					values[offset + i] = getShort(position + (i << 1));
+				}
+			}
+			position += count << 1;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void readChars(char[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = available(length, 2);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(buffer, address + position, values, MemoryAccess.CHAR_ARRAY_OFFSET + ((long) offset << 1),
+						(long) count << 1);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asCharBuffer().get(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					values[offset + i] = (char) getShort(position + (i << 1));
+				}
+			}
+			position += count << 1;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void readInts(int[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = available(length, 4);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(buffer, address + position, values, MemoryAccess.INT_ARRAY_OFFSET + ((long) offset << 2),
+						(long) count << 2);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asIntBuffer().get(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					values[offset + i] = getInt(position + (i << 2));
+				}
+			}
+			position += count << 2;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void readLongs(long[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = available(length, 8);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(buffer, address + position, values, MemoryAccess.LONG_ARRAY_OFFSET + ((long) offset << 3),
+						(long) count << 3);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asLongBuffer().get(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					values[offset + i] = getLong(position + (i << 3));
+				}
+			}
+			position += count << 3;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void readFloats(float[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = available(length, 4);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(buffer, address + position, values, MemoryAccess.FLOAT_ARRAY_OFFSET + ((long) offset << 2),
+						(long) count << 2);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asFloatBuffer().get(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					values[offset + i] = Float.intBitsToFloat(getInt(position + (i << 2)));
+				}
+			}
+			position += count << 2;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void readDoubles(double[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = available(length, 8);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(buffer, address + position, values, MemoryAccess.DOUBLE_ARRAY_OFFSET + ((long) offset << 3),
+						(long) count << 3);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asDoubleBuffer().get(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					values[offset + i] = Double.longBitsToDouble(getLong(position + (i << 3)));
+				}
+			}
+			position += count << 3;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void readFully(byte[] bytes) throws IOException {
+		readFully(bytes, 0, bytes.length);
+	}
+
+	public void readFully(byte[] bytes, int offset, int length) throws IOException {
+		int available = limit - position;
+		if (available >= length) {
+			copyTo(bytes, offset, length);
+			return;
+		}
+
+		if (inputStream == null) {
+			throw new EOFException();
+		}
+
+		// Drain buffered bytes and read the rest directly from the stream
+		copyTo(bytes, offset, available);
+		readFromStream(bytes, offset + available, length - available);
+	}
+
+	public int skipBytes(int length) throws IOException {
+		int available = limit - position;
+		if (available >= length || inputStream == null) {
+			int skipped = Math.min(available, length);
+			position += skipped;
+			return skipped;
+		}
+
+		position = limit;
+		return available + (int) inputStream.skip(length - available);
+	}
+
+	public String readUTF() throws IOException {
+		final int utfLength = readUnsignedShort();
+		require(utfLength);
+		return decodeUtf8(utfLength);
+	}
+
+	/**
+	 * Reads a string written by {@link LightningOutput#writeString(String)}.
+	 */
+	public String readString() throws IOException {
+		final long header = readVarLong();
+		if ((header >>> 1) > Integer.MAX_VALUE) {
+			throw new StreamCorruptedException("Malformed string length");
+		}
+
+		final int length = (int) (header >>> 1);
+		final boolean utf8 = (header & 1) != 0;
+		if (inputStream != null && length > MAX_STRING_CHUNK) {
+			return readStringChunked(length, utf8);
+		}
+
+		require(length);
+		return utf8 ? decodeUtf8(length) : decodeLatin1(length);
+	}
+
+	private String readStringChunked(int length, boolean utf8) throws IOException {
+		// The length is not trusted before the bytes arrived, streams are
+		// decoded in bounded chunks so the memory grows with the data read
+		final StringBuilder value = new StringBuilder(MAX_STRING_CHUNK);
+		int remaining = length;
+		while (remaining > 0) {
+			int chunk = Math.min(remaining, MAX_STRING_CHUNK);
+			if (utf8 && chunk < remaining) {
+				// Continuation bytes of a sequence split by the chunk are moved
+				// to the next chunk
+				require(chunk + 1);
+				int end = chunk;
+				while (chunk - end < 3 && (getByte(position + end) & 0xC0) == 0x80) {
+					end--;
+				}
+				chunk = end;
+			}
+			else {
+				require(chunk);
+			}
+
+			value.append(utf8 ? decodeUtf8(chunk) : decodeLatin1(chunk));
+			remaining -= chunk;
+		}
+		return value.toString();
+	}
+
+	private String decodeLatin1(int length) {
+		if (buffer != null) {
+			final String value = new String(buffer, position, length, ISO_8859_1);
+			position += length;
+			return value;
+		}
+
+		// Latin-1 bytes are the lower bytes of the chars
+		final char[] chars = acquireChars(length);
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) (getByte(position + i) & 0xFF);
+		}
+		position += length;
+		return new String(chars, 0, length);
+	}
+
+	private char[] acquireChars(int length) {
+		// Large scratch buffers are not retained to not pin their memory
+		if (length > MAX_RETAINED_CHARS) {
+			return new char[length];
+		}
+
+		char[] chars = this.chars;
+		if (chars == null || chars.length < length) {
+			chars = new char[Math.max(length, 64)];
+			this.chars = chars;
+		}
+		return chars;
+	}
+
+	private String decodeUtf8(int length) throws IOException {
+		final int end = position + length;
+		final char[] chars = new char[length];
+
+		int charCount = 0;
+		int position = this.position;
+		while (position < end) {
+			int c = getByte(position) & 0xFF;
+			switch (c >> 4) {
+				case 0:
+				case 1:
+				case 2:
+				case 3:
+				case 4:
+				case 5:
+				case 6:
+				case 7:
+					position++;
+					chars[charCount++] = (char) c;
+					break;
+
+				case 12:
+				case 13: {
+					if (position + 2 > end) {
+						throw new UTFDataFormatException("Malformed input: partial character at end");
+					}
+					int c2 = getByte(position + 1);
+					if ((c2 & 0xC0) != 0x80) {
+						throw new UTFDataFormatException("Malformed input around byte " + (position + 1));
+					}
+					chars[charCount++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+					position += 2;
+					break;
+				}
+
+				case 14: {
+					if (position + 3 > end) {
+						throw new UTFDataFormatException("Malformed input: partial character at end");
+					}
+					int c2 = getByte(position + 1);
+					int c3 = getByte(position + 2);
+					if (((c2 & 0xC0) != 0x80) || ((c3 & 0xC0) != 0x80)) {
+						throw new UTFDataFormatException("Malformed input around byte " + (position + 2));
+					}
+					chars[charCount++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+					position += 3;
+					break;
+				}
+
+				case 15: {
+					if (position + 4 > end) {
+						throw new UTFDataFormatException("Malformed input: partial character at end");
+					}
+					int c2 = getByte(position + 1);
+					int c3 = getByte(position + 2);
+					int c4 = getByte(position + 3);
+					if ((c & 0x08) != 0 || ((c2 & 0xC0) != 0x80) || ((c3 & 0xC0) != 0x80) || ((c4 & 0xC0) != 0x80)) {
+						throw new UTFDataFormatException("Malformed input around byte " + (position + 3));
+					}
+					int codePoint = ((c & 0x07) << 18) | ((c2 & 0x3F) << 12) | ((c3 & 0x3F) << 6) | (c4 & 0x3F);
+					if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT || codePoint > Character.MAX_CODE_POINT) {
+						throw new UTFDataFormatException("Malformed input around byte " + (position + 3));
+					}
+					codePoint -= Character.MIN_SUPPLEMENTARY_CODE_POINT;
+					chars[charCount++] = (char) (Character.MIN_HIGH_SURROGATE + (codePoint >>> 10));
+					chars[charCount++] = (char) (Character.MIN_LOW_SURROGATE + (codePoint & 0x3FF));
+					position += 4;
+					break;
+				}
+
+				default:
+					throw new UTFDataFormatException("Malformed input around byte " + position);
+			}
+		}
+
+		this.position = end;
+		return new String(chars, 0, charCount);
+	}
+
+	public ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+
+	public int position() {
+		return position;
+	}
+
+	public int remaining() {
+		return limit - position;
+	}
+
+	/**
+	 * Returns a {@link DataInput} (also an {@link ObjectInput} and
+	 * {@link InputStream}) view on this buffer for code that is bound to the
+	 * java.io interfaces.
+	 */
+	public DataInput asDataInput() {
+		return getInputView();
+	}
+
+	public InputStream asInputStream() {
+		return getInputView();
+	}
+
+	private static int checkBounds(byte[] buffer, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > buffer.length) {
+			throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", buffer length=" + buffer.length);
+		}
+		return offset;
+	}
+
+	private InputView getInputView() {
+		if (inputView == null) {
+			inputView = new InputView();
+		}
+		return inputView;
+	}
+
+	/**
+	 * Returns how many of count elements can be read from the buffer. For
+	 * stream backed inputs only the bytes of the next chunk are pulled from
+	 * the stream.
+	 */
+	private int available(int count, int elementSize) throws IOException {
+		int available = (limit - position) / elementSize;
+		if (available >= count) {
+			return count;
+		}
+
+		if (inputStream == null) {
+			throw new EOFException();
+		}
+
+		if (available == 0) {
+			require(Math.min(count, Math.max(1, buffer.length / elementSize)) * elementSize);
+			available = (limit - position) / elementSize;
+		}
+		return Math.min(count, available);
+	}
+
+	private boolean isBulkCopyPossible() {
+		return unsafeAccess && !swapBytes && MemoryAccess.COPY_MEMORY_SUPPORTED;
+	}
+
+	private ByteBuffer typedView() {
+		ByteBuffer directView = getDirectView();
+		directView.position(position);
+		return directView;
+	}
+
+	private short getShort(int index) {
+		if (unsafeAccess) {
+			short value = MemoryAccess.UNSAFE.getShort(buffer, address + index);
+			return swapBytes ? Short.reverseBytes(value) : value;
+		}
+		else if (buffer != null) {
+			return MemoryAccess.getShort(buffer, index, bigEndian);
+		}
+		return getDirectView().getShort(index);
+	}
+
+	private int getInt(int index) {
+		if (unsafeAccess) {
+			int value = MemoryAccess.UNSAFE.getInt(buffer, address + index);
+			return swapBytes ? Integer.reverseBytes(value) : value;
+		}
+		else if (buffer != null) {
+			return MemoryAccess.getInt(buffer, index, bigEndian);
+		}
+		return getDirectView().getInt(index);
+	}
+
+	private long getLong(int index) {
+		if (unsafeAccess) {
+			long value = MemoryAccess.UNSAFE.getLong(buffer, address + index);
+			return swapBytes ? Long.reverseBytes(value) : value;
+		}
+		else if (buffer != null) {
+			return MemoryAccess.getLong(buffer, index, bigEndian);
+		}
+		return getDirectView().getLong(index);
+	}
+
+	private byte getByte(int index) {
+		if (buffer != null) {
+			return buffer[index];
+		}
+		else if (unsafeAccess) {
+			return MemoryAccess.UNSAFE.getByte(address + index);
+		}
+		return getDirectView().get(index);
+	}
+
+	private void copyTo(byte[] bytes, int offset, int length) {
+		if (buffer != null) {
+			System.arraycopy(buffer, position, bytes, offset, length);
+		}
+		else {
+			ByteBuffer directView = getDirectView();
+			directView.position(position);
+			directView.get(bytes, offset, length);
+		}
+		position += length;
+	}
+
+	private ByteBuffer getDirectView() {
+		if (directView == null) {
+			directView = byteBuffer.duplicate().order(byteOrder);
+		}
+		return directView;
+	}
+
+	private void require(int length) throws IOException {
+		if (limit - position < length) {
+			fill(length);
+		}
+	}
+
+	private void fill(int length) throws IOException {
+		if (inputStream == null) {
+			throw new EOFException();
+		}
+
+		// Move remaining bytes to the front and read exactly what is missing
+		int remaining = limit - position;
+		if (buffer.length < length) {
+			byte[] newBuffer = new byte[Math.max(buffer.length << 1, length)];
+			System.arraycopy(buffer, position, newBuffer, 0, remaining);
+			buffer = newBuffer;
+		}
+		else if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, remaining);
+		}
+
+		position = 0;
+		limit = remaining;
+
+		readFromStream(buffer, remaining, length - remaining);
+		limit = length;
+	}
+
+	private void readFromStream(byte[] bytes, int offset, int length) throws IOException {
+		while (length > 0) {
+			int read = inputStream.read(bytes, offset, length);
+			if (read < 0) {
+				throw new EOFException();
+			}
+			offset += read;
+			length -= read;
+		}
+	}
+
+	private class InputView extends InputStream implements ObjectInput {
+
+		@Override
+		public int read() throws IOException {
+			if (limit - position > 0) {
+				return getByte(position++) & 0xFF;
+			}
+
+			return inputStream != null ? inputStream.read() : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int available = limit - position;
+			if (available > 0) {
+				int length = Math.min(available, len);
+				copyTo(b, off, length);
+				return length;
+			}
+
+			return inputStream != null ? inputStream.read(b, off, len) : -1;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return limit - position;
+		}
+
+		@Override
+		public void readFully(byte[] b) throws IOException {
+			LightningInput.this.readFully(b);
+		}
+
+		@Override
+		public void readFully(byte[] b, int off, int len) throws IOException {
+			LightningInput.this.readFully(b, off, len);
+		}
+
+		@Override
+		public int skipBytes(int n) throws IOException {
+			return LightningInput.this.skipBytes(n);
+		}
+
+		@Override
+		public boolean readBoolean() throws IOException {
+			return LightningInput.this.readBoolean();
+		}
+
+		@Override
+		public byte readByte() throws IOException {
+			return LightningInput.this.readByte();
+		}
+
+		@Override
+		public int readUnsignedByte() throws IOException {
+			return LightningInput.this.readUnsignedByte();
+		}
+
+		@Override
+		public short readShort() throws IOException {
+			return LightningInput.this.readShort();
+		}
+
+		@Override
+		public int readUnsignedShort() throws IOException {
+			return LightningInput.this.readUnsignedShort();
+		}
+
+		@Override
+		public char readChar() throws IOException {
+			return LightningInput.this.readChar();
+		}
+
+		@Override
+		public int readInt() throws IOException {
+			return LightningInput.this.readInt();
+		}
+
+		@Override
+		public long readLong() throws IOException {
+			return LightningInput.this.readLong();
+		}
+
+		@Override
+		public float readFloat() throws IOException {
+			return LightningInput.this.readFloat();
+		}
+
+		@Override
+		public double readDouble() throws IOException {
+			return LightningInput.this.readDouble();
+		}
+
+		@Override
+		public String readLine() throws IOException {
+			// Same as DataInputStream#readLine, bytes are taken as chars and
+			// lines end with \n, \r or \r\n
+			int c = read();
+			if (c == -1) {
+				return null;
+			}
+
+			StringBuilder line = new StringBuilder();
+			while (c != -1 && c != '\n') {
+				if (c == '\r') {
+					skipLineFeed();
+					break;
+				}
+				line.append((char) c);
+				c = read();
+			}
+			return line.toString();
+		}
+
+		private void skipLineFeed() throws IOException {
+			if (limit - position == 0 && inputStream != null) {
+				int c = inputStream.read();
+				if (c == -1) {
+					return;
+				}
+
+				// Keep the peeked byte buffered for the next read
+				buffer[0] = (byte) c;
+				position = 0;
+				limit = 1;
+			}
+
+			if (limit - position > 0 && getByte(position) == '\n') {
+				position++;
+			}
+		}
+
+		@Override
+		public String readUTF() throws IOException {
+			return LightningInput.this.readUTF();
+		}
+
+		@Override
+		public Object readObject() throws ClassNotFoundException, IOException {
+			if (!(inputStream instanceof ObjectInput) || limit - position > 0) {
+				throw new IOException("Underlying stream is not an ObjectInput");
+			}
+
+			return ((ObjectInput) inputStream).readObject();
+		}
+	}
+}
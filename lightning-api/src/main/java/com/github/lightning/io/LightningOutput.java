@@ -0,0 +1,790 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.io;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+
+/**
+ * Cursor based output buffer used by all marshallers. Values are written in
+ * big-endian byte order by default (the same format as
+ * {@link java.io.DataOutputStream}), little-endian or native order can be
+ * selected on construction.<br>
+ * The output either grows in memory, drains to an attached
+ * {@link OutputStream} whenever it runs full and on {@link #flush()} or writes
+ * directly into the memory of a heap or direct {@link ByteBuffer} (starting at
+ * its current position).<br>
+ * Instances are not thread-safe.
+ */
+public final class LightningOutput {
+
+	private static final int DEFAULT_CAPACITY = 256;
+	private static final int STREAM_BUFFER_CAPACITY = 1024;
+
+	private final OutputStream outputStream;
+	private final ByteBuffer byteBuffer;
+	private final ByteOrder byteOrder;
+	private final boolean bigEndian;
+	private final boolean swapBytes;
+
+	// Heap memory, null if writing to direct memory
+	private byte[] buffer;
+
+	// Base address for Unsafe access (array base offset or direct address)
+	private final long address;
+	private final boolean unsafeAccess;
+
+	// First index written, wrapped buffers might start at an offset
+	private final int start;
+
+	private int position;
+	private int limit;
+
+	private ByteBuffer directView;
+	private OutputView outputView;
+
+	public LightningOutput() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LightningOutput(int initialCapacity) {
+		this(initialCapacity, ByteOrder.BIG_ENDIAN);
+	}
+
+	public LightningOutput(int initialCapacity, ByteOrder byteOrder) {
+		this(new byte[Math.max(initialCapacity, 16)], null, null, byteOrder);
+	}
+
+	public LightningOutput(OutputStream outputStream) {
+		this(outputStream, ByteOrder.BIG_ENDIAN);
+	}
+
+	public LightningOutput(OutputStream outputStream, ByteOrder byteOrder) {
+		this(new byte[STREAM_BUFFER_CAPACITY], outputStream, null, byteOrder);
+	}
+
+	public LightningOutput(ByteBuffer byteBuffer) {
+		this(byteBuffer, ByteOrder.BIG_ENDIAN);
+	}
+
+	public LightningOutput(ByteBuffer byteBuffer, ByteOrder byteOrder) {
+		this(byteBuffer.hasArray() ? byteBuffer.array() : null, null, byteBuffer, byteOrder);
+	}
+
+	private LightningOutput(byte[] buffer, OutputStream outputStream, ByteBuffer byteBuffer, ByteOrder byteOrder) {
+		this.buffer = buffer;
+		this.outputStream = outputStream;
+		this.byteBuffer = byteBuffer;
+		this.byteOrder = byteOrder;
+		this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+		this.swapBytes = bigEndian != MemoryAccess.NATIVE_BIG_ENDIAN;
+
+		if (byteBuffer == null) {
+			this.address = MemoryAccess.BYTE_ARRAY_OFFSET;
+			this.unsafeAccess = MemoryAccess.UNSAFE != null;
+			this.start = 0;
+			this.limit = buffer.length;
+		}
+		else if (byteBuffer.isReadOnly()) {
+			throw new ReadOnlyBufferException();
+		}
+		else if (buffer != null) {
+			this.address = MemoryAccess.BYTE_ARRAY_OFFSET;
+			this.unsafeAccess = MemoryAccess.UNSAFE != null;
+			this.start = byteBuffer.arrayOffset() + byteBuffer.position();
+			this.limit = byteBuffer.arrayOffset() + byteBuffer.limit();
+		}
+		else {
+			this.unsafeAccess = MemoryAccess.UNSAFE != null && byteBuffer.isDirect();
+			this.address = unsafeAccess ? MemoryAccess.getAddress(byteBuffer) : -1;
+			this.start = byteBuffer.position();
+			this.limit = byteBuffer.limit();
+		}
+		this.position = start;
+	}
+
+	public void writeBoolean(boolean value) throws IOException {
+		writeByte(value ? 1 : 0);
+	}
+
+	public void writeByte(int value) throws IOException {
+		ensureCapacity(1);
+		putByte(position++, value);
+	}
+
+	public void writeShort(int value) throws IOException {
+		ensureCapacity(2);
+		putShort(position, value);
+		position += 2;
+	}
+
+	public void writeChar(int value) throws IOException {
+		writeShort(value);
+	}
+
+	public void writeInt(int value) throws IOException {
+		ensureCapacity(4);
+		putInt(position, value);
+		position += 4;
+	}
+
+	public void writeLong(long value) throws IOException {
+		ensureCapacity(8);
+		putLong(position, value);
+		position += 8;
+	}
+
+	/**
+	 * Writes an unsigned LEB128 varint using 1 to 5 bytes. Negative values
+	 * always need 5 bytes, use {@link #writeSignedVarInt(int)} for them.
+	 */
+	public void writeVarInt(int value) throws IOException {
+		ensureCapacity(varIntLength(value));
+		int position = this.position;
+		while ((value & ~0x7F) != 0) {
+			putByte(position++, (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		putByte(position++, value);
+		this.position = position;
+	}
+
+	/**
+	 * Writes an unsigned LEB128 varint using 1 to 10 bytes.
+	 */
+	public void writeVarLong(long value) throws IOException {
+		ensureCapacity(varLongLength(value));
+		int position = this.position;
+		while ((value & ~0x7FL) != 0) {
+			putByte(position++, ((int) value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		putByte(position++, (int) value);
+		this.position = position;
+	}
+
+	/**
+	 * Writes a ZigZag encoded varint so that small negative values are
+	 * written as short as small positive ones.
+	 */
+	public void writeSignedVarInt(int value) throws IOException {
+		writeVarInt((value << 1) ^ (value >> 31));
+	}
+
+	public void writeSignedVarLong(long value) throws IOException {
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	public void writeFloat(float value) throws IOException {
+		writeInt(Float.floatToIntBits(value));
+	}
+
+	public void writeDouble(double value) throws IOException {
+		writeLong(Double.doubleToLongBits(value));
+	}
+
+	public void write(byte[] bytes) throws IOException {
+		write(bytes, 0, bytes.length);
+	}
+
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		if (outputStream != null && length > buffer.length) {
+			// Too big for the buffer so drain and write through
+			flush();
+			outputStream.write(bytes, offset, length);
+			return;
+		}
+
+		ensureCapacity(length);
+		if (buffer != null) {
+			System.arraycopy(bytes, offset, buffer, position, length);
+		}
+		else {
+			ByteBuffer directView = getDirectView();
+			directView.position(position);
+			directView.put(bytes, offset, length);
+		}
+		position += length;
+	}
+
+	/**
+	 * Writes a block of shorts. If the byte order matches the native one the
+	 * memory is copied as a whole, otherwise the capacity is only checked once
+	 * per block. The same applies to all other bulk write methods.
+	 */
+	public void writeShorts(short[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = reserve(length, 2);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(values, MemoryAccess.SHORT_ARRAY_OFFSET + ((long) offset << 1), buffer, address + position,
+						(long) count << 1);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asShortBuffer().put(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					putShort(position + (i << 1), values[offset + i]);
+				}
+			}
+			position += count << 1;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void writeChars(char[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = reserve(length, 2);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(values, MemoryAccess.CHAR_ARRAY_OFFSET + ((long) offset << 1), buffer, address + position,
+						(long) count << 1);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asCharBuffer().put(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					putShort(position + (i << 1), values[offset + i]);
+				}
+			}
+			position += count << 1;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void writeInts(int[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = reserve(length, 4);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(values, MemoryAccess.INT_ARRAY_OFFSET + ((long) offset << 2), buffer, address + position,
+						(long) count << 2);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asIntBuffer().put(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					putInt(position + (i << 2), values[offset + i]);
+				}
+			}
+			position += count << 2;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void writeLongs(long[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = reserve(length, 8);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(values, MemoryAccess.LONG_ARRAY_OFFSET + ((long) offset << 3), buffer, address + position,
+						(long) count << 3);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asLongBuffer().put(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					putLong(position + (i << 3), values[offset + i]);
+				}
+			}
+			position += count << 3;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	/**
+	 * Writes a block of floats. Other than {@link #writeFloat(float)} the raw
+	 * bits are written so NaN values keep their payload.
+	 */
+	public void writeFloats(float[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = reserve(length, 4);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(values, MemoryAccess.FLOAT_ARRAY_OFFSET + ((long) offset << 2), buffer, address + position,
+						(long) count << 2);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asFloatBuffer().put(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					putInt(position + (i << 2), Float.floatToRawIntBits(values[offset + i]));
+				}
+			}
+			position += count << 2;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	/**
+	 * Writes a block of doubles. Other than {@link #writeDouble(double)} the
+	 * raw bits are written so NaN values keep their payload.
+	 */
+	public void writeDoubles(double[] values, int offset, int length) throws IOException {
+		while (length > 0) {
+			int count = reserve(length, 8);
+			if (isBulkCopyPossible()) {
+				MemoryAccess.UNSAFE.copyMemory(values, MemoryAccess.DOUBLE_ARRAY_OFFSET + ((long) offset << 3), buffer, address + position,
+						(long) count << 3);
+			}
+			else if (buffer == null && !unsafeAccess) {
+				typedView().asDoubleBuffer().put(values, offset, count);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					putLong(position + (i << 3), Double.doubleToRawLongBits(values[offset + i]));
+				}
+			}
+			position += count << 3;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void writeUTF(String value) throws IOException {
+		final int length = value.length();
+
+		int utfLength = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x0001 && c <= 0x007F) {
+				utfLength++;
+			}
+			else if (c > 0x07FF) {
+				utfLength += 3;
+			}
+			else {
+				utfLength += 2;
+			}
+		}
+
+		if (utfLength > 65535) {
+			throw new UTFDataFormatException("Encoded string too long: " + utfLength + " bytes");
+		}
+
+		writeShort(utfLength);
+		ensureCapacity(utfLength);
+
+		int position = this.position;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x0001 && c <= 0x007F) {
+				putByte(position++, c);
+			}
+			else if (c > 0x07FF) {
+				putByte(position++, 0xE0 | ((c >> 12) & 0x0F));
+				putByte(position++, 0x80 | ((c >> 6) & 0x3F));
+				putByte(position++, 0x80 | (c & 0x3F));
+			}
+			else {
+				putByte(position++, 0xC0 | ((c >> 6) & 0x1F));
+				putByte(position++, 0x80 | (c & 0x3F));
+			}
+		}
+		this.position = position;
+	}
+
+	/**
+	 * Writes a string without the 64KB limit of {@link #writeUTF(String)}.
+	 * Strings only containing Latin-1 chars are copied with one byte per char,
+	 * all others are encoded as standard UTF-8 in a single pass. The string is
+	 * prefixed by a varint of its byte length shifted left by one, the lowest
+	 * bit marks UTF-8 encoding.
+	 */
+	public void writeString(String value) throws IOException {
+		final int length = value.length();
+		if (isLatin1(value, length)) {
+			writeVarLong((long) length << 1);
+			ensureCapacity(length);
+			if (buffer != null) {
+				final byte[] buffer = this.buffer;
+				for (int i = 0, offset = position; i < length; i++) {
+					buffer[offset + i] = (byte) value.charAt(i);
+				}
+			}
+			else {
+				for (int i = 0; i < length; i++) {
+					putByte(position + i, value.charAt(i));
+				}
+			}
+			position += length;
+			return;
+		}
+
+		final int utf8Length = utf8Length(value, length);
+		writeVarLong(((long) utf8Length << 1) | 1);
+		ensureCapacity(utf8Length);
+
+		int position = this.position;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				putByte(position++, c);
+			}
+			else if (c < 0x800) {
+				putByte(position++, 0xC0 | (c >> 6));
+				putByte(position++, 0x80 | (c & 0x3F));
+			}
+			else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+				putByte(position++, 0xE0 | (c >> 12));
+				putByte(position++, 0x80 | ((c >> 6) & 0x3F));
+				putByte(position++, 0x80 | (c & 0x3F));
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				putByte(position++, 0xF0 | (codePoint >> 18));
+				putByte(position++, 0x80 | ((codePoint >> 12) & 0x3F));
+				putByte(position++, 0x80 | ((codePoint >> 6) & 0x3F));
+				putByte(position++, 0x80 | (codePoint & 0x3F));
+			}
+			else {
+				// Unpaired surrogates are replaced like String#getBytes does
+				putByte(position++, '?');
+			}
+		}
+		this.position = position;
+	}
+
+	private static int utf8Length(String value, int length) throws UTFDataFormatException {
+		long utf8Length = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				utf8Length++;
+			}
+			else if (c < 0x800) {
+				utf8Length += 2;
+			}
+			else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+				utf8Length += 3;
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				utf8Length += 4;
+				i++;
+			}
+			else {
+				utf8Length++;
+			}
+		}
+
+		if (utf8Length > Integer.MAX_VALUE) {
+			throw new UTFDataFormatException("String too long: " + length + " chars");
+		}
+		return (int) utf8Length;
+	}
+
+	/**
+	 * Writes all buffered bytes to the attached {@link OutputStream}. Does
+	 * nothing if the output is not backed by a stream.
+	 */
+	public void flush() throws IOException {
+		if (outputStream != null && position > 0) {
+			outputStream.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+	public ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+
+	public int position() {
+		return position;
+	}
+
+	public void reset() {
+		position = start;
+	}
+
+	/**
+	 * Resets the position and, for in-memory outputs, makes sure that at least
+	 * capacity bytes can be written without growing the buffer.
+	 */
+	public void reset(int capacity) {
+		position = start;
+		if (outputStream == null && byteBuffer == null && limit < capacity) {
+			buffer = new byte[capacity];
+			limit = capacity;
+		}
+	}
+
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	public byte[] toByteArray() {
+		if (buffer != null) {
+			return Arrays.copyOfRange(buffer, start, position);
+		}
+
+		// Direct memory has no backing array, copy through a view to not
+		// touch the position of the wrapped buffer
+		byte[] data = new byte[position - start];
+		ByteBuffer view = byteBuffer.duplicate();
+		view.clear();
+		view.position(start);
+		view.get(data);
+		return data;
+	}
+
+	/**
+	 * Returns a {@link DataOutput} (also an {@link ObjectOutput} and
+	 * {@link OutputStream}) view on this buffer for code that is bound to the
+	 * java.io interfaces.
+	 */
+	public DataOutput asDataOutput() {
+		return getOutputView();
+	}
+
+	public OutputStream asOutputStream() {
+		return getOutputView();
+	}
+
+	private OutputView getOutputView() {
+		if (outputView == null) {
+			outputView = new OutputView();
+		}
+		return outputView;
+	}
+
+	private void ensureCapacity(int length) throws IOException {
+		if (limit - position < length) {
+			growOrFlush(length);
+		}
+	}
+
+	private void growOrFlush(int length) throws IOException {
+		if (byteBuffer != null) {
+			throw new BufferOverflowException();
+		}
+
+		if (outputStream != null) {
+			flush();
+			if (buffer.length >= length) {
+				return;
+			}
+		}
+
+		int newCapacity = Math.max(buffer.length << 1, position + length);
+		buffer = Arrays.copyOf(buffer, newCapacity);
+		limit = newCapacity;
+	}
+
+	/**
+	 * Makes room for up to count elements and returns how many of them fit.
+	 * In-memory outputs grow to fit all, stream backed outputs are written in
+	 * chunks of the buffer size.
+	 */
+	private int reserve(int count, int elementSize) throws IOException {
+		if (outputStream == null) {
+			count = Math.min(count, (Integer.MAX_VALUE - position) / elementSize);
+			ensureCapacity(count * elementSize);
+			return count;
+		}
+
+		int available = (limit - position) / elementSize;
+		if (available == 0) {
+			flush();
+			available = (limit - position) / elementSize;
+		}
+		return Math.min(count, available);
+	}
+
+	private boolean isBulkCopyPossible() {
+		return unsafeAccess && !swapBytes && MemoryAccess.COPY_MEMORY_SUPPORTED;
+	}
+
+	private ByteBuffer typedView() {
+		ByteBuffer directView = getDirectView();
+		directView.position(position);
+		return directView;
+	}
+
+	private static int varIntLength(int value) {
+		return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+	}
+
+	private static int varLongLength(long value) {
+		return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+	}
+
+	private static boolean isLatin1(String value, int length) {
+		for (int i = 0; i < length; i++) {
+			if (value.charAt(i) > 0xFF) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void putShort(int index, int value) {
+		if (unsafeAccess) {
+			short v = (short) value;
+			MemoryAccess.UNSAFE.putShort(buffer, address + index, swapBytes ? Short.reverseBytes(v) : v);
+		}
+		else if (buffer != null) {
+			MemoryAccess.putShort(buffer, index, value, bigEndian);
+		}
+		else {
+			getDirectView().putShort(index, (short) value);
+		}
+	}
+
+	private void putInt(int index, int value) {
+		if (unsafeAccess) {
+			MemoryAccess.UNSAFE.putInt(buffer, address + index, swapBytes ? Integer.reverseBytes(value) : value);
+		}
+		else if (buffer != null) {
+			MemoryAccess.putInt(buffer, index, value, bigEndian);
+		}
+		else {
+			getDirectView().putInt(index, value);
+		}
+	}
+
+	private void putLong(int index, long value) {
+		if (unsafeAccess) {
+			MemoryAccess.UNSAFE.putLong(buffer, address + index, swapBytes ? Long.reverseBytes(value) : value);
+		}
+		else if (buffer != null) {
+			MemoryAccess.putLong(buffer, index, value, bigEndian);
+		}
+		else {
+			getDirectView().putLong(index, value);
+		}
+	}
+
+	private void putByte(int index, int value) {
+		if (buffer != null) {
+			buffer[index] = (byte) value;
+		}
+		else if (unsafeAccess) {
+			MemoryAccess.UNSAFE.putByte(address + index, (byte) value);
+		}
+		else {
+			getDirectView().put(index, (byte) value);
+		}
+	}
+
+	private ByteBuffer getDirectView() {
+		if (directView == null) {
+			directView = byteBuffer.duplicate().order(byteOrder);
+		}
+		return directView;
+	}
+
+	private class OutputView extends OutputStream implements ObjectOutput {
+
+		@Override
+		public void write(int b) throws IOException {
+			writeByte(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			LightningOutput.this.write(b, off, len);
+		}
+
+		@Override
+		public void writeBoolean(boolean v) throws IOException {
+			LightningOutput.this.writeBoolean(v);
+		}
+
+		@Override
+		public void writeByte(int v) throws IOException {
+			LightningOutput.this.writeByte(v);
+		}
+
+		@Override
+		public void writeShort(int v) throws IOException {
+			LightningOutput.this.writeShort(v);
+		}
+
+		@Override
+		public void writeChar(int v) throws IOException {
+			LightningOutput.this.writeChar(v);
+		}
+
+		@Override
+		public void writeInt(int v) throws IOException {
+			LightningOutput.this.writeInt(v);
+		}
+
+		@Override
+		public void writeLong(long v) throws IOException {
+			LightningOutput.this.writeLong(v);
+		}
+
+		@Override
+		public void writeFloat(float v) throws IOException {
+			LightningOutput.this.writeFloat(v);
+		}
+
+		@Override
+		public void writeDouble(double v) throws IOException {
+			LightningOutput.this.writeDouble(v);
+		}
+
+		@Override
+		public void writeBytes(String s) throws IOException {
+			final int length = s.length();
+			for (int i = 0; i < length; i++) {
+				LightningOutput.this.writeByte(s.charAt(i));
+			}
+		}
+
+		@Override
+		public void writeChars(String s) throws IOException {
+			final int length = s.length();
+			for (int i = 0; i < length; i++) {
+				LightningOutput.this.writeChar(s.charAt(i));
+			}
+		}
+
+		@Override
+		public void writeUTF(String s) throws IOException {
+			LightningOutput.this.writeUTF(s);
+		}
+
+		@Override
+		public void writeObject(Object obj) throws IOException {
+			if (!(outputStream instanceof ObjectOutput)) {
+				throw new IOException("Underlying stream is not an ObjectOutput");
+			}
+
+			LightningOutput.this.flush();
+			((ObjectOutput) outputStream).writeObject(obj);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			LightningOutput.this.flush();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.io;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Raw memory access shared by {@link LightningOutput} and
+ * {@link LightningInput}. If sun.misc.Unsafe is available and the platform
+ * supports unaligned access multi-byte values are read and written with a
+ * single memory access, otherwise the byte array fallbacks are used.
+ */
+@SuppressWarnings("restriction")
+final class MemoryAccess {
+
+	static final sun.misc.Unsafe UNSAFE;
+	static final long BYTE_ARRAY_OFFSET;
+	static final long SHORT_ARRAY_OFFSET;
+	static final long CHAR_ARRAY_OFFSET;
+	static final long INT_ARRAY_OFFSET;
+	static final long LONG_ARRAY_OFFSET;
+	static final long FLOAT_ARRAY_OFFSET;
+	static final long DOUBLE_ARRAY_OFFSET;
+
+	// Unsafe#copyMemory(Object, long, Object, long, long) is only available
+	// on Java 7 and above
+	static final boolean COPY_MEMORY_SUPPORTED;
+	static final boolean NATIVE_BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+	private static final long BUFFER_ADDRESS_OFFSET;
+
+	static {
+		sun.misc.Unsafe unsafe = null;
+		long byteArrayOffset = -1;
+		long bufferAddressOffset = -1;
+		long[] arrayOffsets = { -1, -1, -1, -1, -1, -1 };
+		boolean copyMemorySupported = false;
+		try {
+			if (isUnalignedAccessSupported()) {
+				Field unsafeField = sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+				unsafeField.setAccessible(true);
+				unsafe = (sun.misc.Unsafe) unsafeField.get(null);
+
+				byteArrayOffset = unsafe.arrayBaseOffset(byte[].class);
+				bufferAddressOffset = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+
+				Class<?>[] arrayTypes = { short[].class, char[].class, int[].class, long[].class, float[].class, double[].class };
+				for (int i = 0; i < arrayTypes.length; i++) {
+					arrayOffsets[i] = unsafe.arrayBaseOffset(arrayTypes[i]);
+				}
+
+				copyMemorySupported = isCopyMemorySupported();
+			}
+		}
+		catch (Throwable e) {
+			unsafe = null;
+		}
+
+		UNSAFE = unsafe;
+		BYTE_ARRAY_OFFSET = byteArrayOffset;
+		SHORT_ARRAY_OFFSET = arrayOffsets[0];
+		CHAR_ARRAY_OFFSET = arrayOffsets[1];
+		INT_ARRAY_OFFSET = arrayOffsets[2];
+		LONG_ARRAY_OFFSET = arrayOffsets[3];
+		FLOAT_ARRAY_OFFSET = arrayOffsets[4];
+		DOUBLE_ARRAY_OFFSET = arrayOffsets[5];
+		COPY_MEMORY_SUPPORTED = copyMemorySupported;
+		BUFFER_ADDRESS_OFFSET = bufferAddressOffset;
+	}
+
+	private MemoryAccess() {
+	}
+
+	static long getAddress(ByteBuffer byteBuffer) {
+		return UNSAFE.getLong(byteBuffer, BUFFER_ADDRESS_OFFSET);
+	}
+
+	static void putShort(byte[] buffer, int index, int value, boolean bigEndian) {
+		if (bigEndian) {
+			buffer[index] = (byte) (value >>> 8);
+			buffer[index + 1] = (byte) value;
+		}
+		else {
+			buffer[index] = (byte) value;
+			buffer[index + 1] = (byte) (value >>> 8);
+		}
+	}
+
+	static void putInt(byte[] buffer, int index, int value, boolean bigEndian) {
+		if (bigEndian) {
+			buffer[index] = (byte) (value >>> 24);
+			buffer[index + 1] = (byte) (value >>> 16);
+			buffer[index + 2] = (byte) (value >>> 8);
+			buffer[index + 3] = (byte) value;
+		}
+		else {
+			buffer[index] = (byte) value;
+			buffer[index + 1] = (byte) (value >>> 8);
+			buffer[index + 2] = (byte) (value >>> 16);
+			buffer[index + 3] = (byte) (value >>> 24);
+		}
+	}
+
+	static void putLong(byte[] buffer, int index, long value, boolean bigEndian) {
+		if (bigEndian) {
+			putInt(buffer, index, (int) (value >>> 32), true);
+			putInt(buffer, index + 4, (int) value, true);
+		}
+		else {
+			putInt(buffer, index, (int) value, false);
+			putInt(buffer, index + 4, (int) (value >>> 32), false);
+		}
+	}
+
+	static short getShort(byte[] buffer, int index, boolean bigEndian) {
+		if (bigEndian) {
+			return (short) (((buffer[index] & 0xFF) << 8) | (buffer[index + 1] & 0xFF));
+		}
+		return (short) (((buffer[index + 1] & 0xFF) << 8) | (buffer[index] & 0xFF));
+	}
+
+	static int getInt(byte[] buffer, int index, boolean bigEndian) {
+		if (bigEndian) {
+			return ((buffer[index] & 0xFF) << 24) | ((buffer[index + 1] & 0xFF) << 16) | ((buffer[index + 2] & 0xFF) << 8)
+					| (buffer[index + 3] & 0xFF);
+		}
+		return ((buffer[index + 3] & 0xFF) << 24) | ((buffer[index + 2] & 0xFF) << 16) | ((buffer[index + 1] & 0xFF) << 8)
+				| (buffer[index] & 0xFF);
+	}
+
+	static long getLong(byte[] buffer, int index, boolean bigEndian) {
+		if (bigEndian) {
+			return ((long) getInt(buffer, index, true) << 32) | (getInt(buffer, index + 4, true) & 0xFFFFFFFFL);
+		}
+		return ((long) getInt(buffer, index + 4, false) << 32) | (getInt(buffer, index, false) & 0xFFFFFFFFL);
+	}
+
+	private static boolean isCopyMemorySupported() {
+		try {
+			sun.misc.Unsafe.class.getMethod("copyMemory", Object.class, long.class, Object.class, long.class, long.class);
+			return true;
+		}
+		catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static boolean isUnalignedAccessSupported() {
+		String arch = System.getProperty("os.arch", "");
+		return arch.equals("i386") || arch.equals("x86") || arch.equals("amd64") || arch.equals("x86_64") || arch.equals("aarch64")
+				|| arch.equals("ppc64") || arch.equals("ppc64le");
+	}
+}
@@ -27,4 +27,10 @@ public interface ClassDefinition {
 
 	long getSerialVersionUID();
 
+	/**
+	 * Returns the fingerprint of the memory layout if instances are written as
+	 * flat struct, otherwise 0.
+	 */
+	long getLayoutFingerprint();
+
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.metadata;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Pins the type id a class is written with on the wire.<br>
+ * Types without this annotation get a dense id assigned in order of their
+ * canonical names. Pinning ids keeps them stable if classes are added to or
+ * removed from a serializer definition later on.<br>
+ * Ids 0 to 99 are reserved for Lightning's build-in types, the highest allowed
+ * id is 65535.
+ * 
+ * <pre>
+ * &#064;TypeId(100)
+ * public class MyEntity {
+ * 	...
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TypeId {
+
+	/**
+	 * @return the type id to be written for the annotated class
+	 */
+	int value();
+
+}
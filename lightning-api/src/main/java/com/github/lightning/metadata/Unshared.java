@@ -0,0 +1,45 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.metadata;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that instances of a class are never referenced more than once in a
+ * serialized object graph.<br>
+ * In {@link com.github.lightning.SerializationStrategy#SizeOptimized} mode
+ * those instances are not registered for reference tracking and no reference
+ * id is written for them. If the same instance is referenced twice anyway it
+ * is deserialized as two equal but distinct objects. Classes that can be part
+ * of a reference cycle are always tracked, the annotation is ignored for
+ * them.
+ * 
+ * <pre>
+ * &#064;Unshared
+ * public class Point {
+ * 	...
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Unshared {
+}
@@ -17,6 +17,7 @@ package com.github.lightning;
 
 import java.io.File;
 import java.lang.annotation.Annotation;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -47,9 +48,13 @@ public final class Lightning {
 
 		private Set<SerializerDefinition> serializerDefinitions = new HashSet<SerializerDefinition>();
 		private SerializationStrategy serializationStrategy = SerializationStrategy.SpeedOptimized;
+		private IntegerEncodingStrategy integerEncodingStrategy = IntegerEncodingStrategy.FixedLength;
 		private Class<? extends Annotation> attributeAnnotation = null;
 		private ClassComparisonStrategy classComparisonStrategy = ClassComparisonStrategy.LightningChecksum;
 		private File debugCacheDirectory = null;
+		private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+		private boolean flatStructs = false;
+		private boolean adaptiveReferenceTracking = false;
 		private Logger logger = new LoggerAdapter();
 
 		private Builder() {
@@ -70,11 +75,54 @@ public final class Lightning {
 			return this;
 		}
 
+		/**
+		 * Sets the encoding of integral values, lengths and reference ids.
+		 * Both sides have to use the same encoding.
+		 */
+		public Builder integerEncodingStrategy(IntegerEncodingStrategy integerEncodingStrategy) {
+			this.integerEncodingStrategy = integerEncodingStrategy;
+			return this;
+		}
+
 		public Builder classComparisonStrategy(ClassComparisonStrategy classComparisonStrategy) {
 			this.classComparisonStrategy = classComparisonStrategy;
 			return this;
 		}
 
+		/**
+		 * Sets the byte order of multi-byte values. Defaults to big-endian
+		 * (network byte order), both sides have to use the same byte order.
+		 */
+		public Builder byteOrder(ByteOrder byteOrder) {
+			this.byteOrder = byteOrder;
+			return this;
+		}
+
+		/**
+		 * Enables writing classes only consisting of primitive attribute
+		 * fields as one raw block in their memory layout instead of field by
+		 * field. Both sides have to enable it and run on JVMs with the same
+		 * field layout and native byte order.
+		 */
+		public Builder flatStructs(boolean flatStructs) {
+			this.flatStructs = flatStructs;
+			return this;
+		}
+
+		/**
+		 * Enables sampling of marshalled instances in SizeOptimized mode.
+		 * Types that can not be part of a reference cycle and are never
+		 * referenced twice within a message while being sampled stop being
+		 * tracked. The decision is final and not sampled again: identity of
+		 * instances that are shared later is silently lost and they are
+		 * deserialized as distinct objects. Only enable this if types without
+		 * early shared instances do not rely on identity.
+		 */
+		public Builder adaptiveReferenceTracking(boolean adaptiveReferenceTracking) {
+			this.adaptiveReferenceTracking = adaptiveReferenceTracking;
+			return this;
+		}
+
 		public Builder serializerDefinitions(SerializerDefinition... serializerDefinitions) {
 			return serializerDefinitions(Arrays.asList(serializerDefinitions));
 		}
@@ -93,8 +141,10 @@ public final class Lightning {
 
 		public Serializer build() {
 			return new InternalSerializerCreator().setLogger(logger).setSerializationStrategy(serializationStrategy)
-					.setClassComparisonStrategy(classComparisonStrategy).setAttributeAnnotation(attributeAnnotation)
-					.setDebugCacheDirectory(debugCacheDirectory).addSerializerDefinitions(serializerDefinitions).build();
+					.setIntegerEncodingStrategy(integerEncodingStrategy).setClassComparisonStrategy(classComparisonStrategy)
+					.setAttributeAnnotation(attributeAnnotation).setDebugCacheDirectory(debugCacheDirectory).setByteOrder(byteOrder)
+					.setFlatStructs(flatStructs).setAdaptiveReferenceTracking(adaptiveReferenceTracking)
+					.addSerializerDefinitions(serializerDefinitions).build();
 		}
 	}
 
@@ -15,27 +15,115 @@
  */
 package com.github.lightning.base;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
+import com.github.lightning.IntegerEncodingStrategy;
 import com.github.lightning.Marshaller;
 import com.github.lightning.SerializationContext;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public abstract class AbstractMarshaller implements Marshaller {
 
 	@Override
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		return null;
 	}
 
-	protected boolean writePossibleNull(Object value, DataOutput dataOutput) throws IOException {
+	protected boolean writePossibleNull(Object value, LightningOutput dataOutput) throws IOException {
 		dataOutput.writeByte(value == null ? 1 : 0);
 		return value != null;
 	}
 
-	protected boolean isNull(DataInput dataInput) throws IOException {
+	protected boolean isNull(LightningInput dataInput) throws IOException {
 		byte isNull = dataInput.readByte();
 		return isNull == 1 ? true : false;
 	}
+
+	protected void writeShort(short value, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			dataOutput.writeSignedVarInt(value);
+		}
+		else {
+			dataOutput.writeShort(value);
+		}
+	}
+
+	protected short readShort(LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			return (short) dataInput.readSignedVarInt();
+		}
+		return dataInput.readShort();
+	}
+
+	protected void writeChar(char value, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			dataOutput.writeVarInt(value);
+		}
+		else {
+			dataOutput.writeChar(value);
+		}
+	}
+
+	protected char readChar(LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			return (char) dataInput.readVarInt();
+		}
+		return dataInput.readChar();
+	}
+
+	protected void writeInt(int value, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			dataOutput.writeSignedVarInt(value);
+		}
+		else {
+			dataOutput.writeInt(value);
+		}
+	}
+
+	protected int readInt(LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			return dataInput.readSignedVarInt();
+		}
+		return dataInput.readInt();
+	}
+
+	protected void writeLong(long value, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			dataOutput.writeSignedVarLong(value);
+		}
+		else {
+			dataOutput.writeLong(value);
+		}
+	}
+
+	protected long readLong(LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			return dataInput.readSignedVarLong();
+		}
+		return dataInput.readLong();
+	}
+
+	/**
+	 * Writes a value that is never negative like lengths, sizes or ordinals.
+	 */
+	protected void writeUnsignedInt(int value, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			dataOutput.writeVarInt(value);
+		}
+		else {
+			dataOutput.writeInt(value);
+		}
+	}
+
+	protected int readUnsignedInt(LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		if (isCompact(serializationContext)) {
+			return dataInput.readVarInt();
+		}
+		return dataInput.readInt();
+	}
+
+	protected boolean isCompact(SerializationContext serializationContext) {
+		return serializationContext.getIntegerEncodingStrategy() == IntegerEncodingStrategy.Compact;
+	}
 }
@@ -15,19 +15,19 @@
  */
 package com.github.lightning.base;
 
-import java.io.DataInput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
+import com.github.lightning.io.LightningInput;
 
 public abstract class AbstractObjectMarshaller extends AbstractMarshaller {
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public final <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
-		Object value = serializationContext.getObjectInstantiatorFactory().getInstantiatorOf(type);
+	public final <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		Object value = serializationContext.getObjectInstantiatorFactory().newInstance(type);
 		return unmarshall((V) value, type, dataInput, serializationContext);
 	}
 
-	public abstract <V> V unmarshall(V value, Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException;
+	public abstract <V> V unmarshall(V value, Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException;
 }
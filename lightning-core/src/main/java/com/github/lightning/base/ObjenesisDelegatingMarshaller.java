@@ -15,13 +15,13 @@
  */
 package com.github.lightning.base;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.Marshaller;
 import com.github.lightning.SerializationContext;
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 class ObjenesisDelegatingMarshaller implements Marshaller {
 
@@ -39,13 +39,13 @@ class ObjenesisDelegatingMarshaller implements Marshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		delegatedMarshaller.marshall(value, type, dataOutput, serializationContext);
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		V value = (V) objectInstantiatorFactory.newInstance(type);
 		return delegatedMarshaller.unmarshall(value, type, dataInput, serializationContext);
 	}
@@ -20,8 +20,8 @@ import java.util.List;
 
 import org.objectweb.asm.Type;
 
+import com.github.lightning.internal.marshaller.FlatStructLayout;
 import com.github.lightning.internal.util.ClassUtil;
-import com.github.lightning.internal.util.Crc64Util;
 import com.github.lightning.internal.util.InternalUtil;
 import com.github.lightning.logging.Logger;
 import com.github.lightning.metadata.ClassDefinition;
@@ -33,25 +33,26 @@ class InternalClassDefinition implements ClassDefinition, Comparable<ClassDefini
 	private final Class<?> type;
 	private final byte[] checksum;
 	private final long serialVersionUID;
+	private final long layoutFingerprint;
 
 	private long id;
 
-	InternalClassDefinition(Class<?> type, List<PropertyDescriptor> propertyDescriptors, Logger logger) {
+	InternalClassDefinition(Class<?> type, List<PropertyDescriptor> propertyDescriptors, boolean flatStructs, Logger logger) {
 		this.canonicalName = Type.getInternalName(type).replace("/", ".");
 		this.type = type;
 
-		byte[] classData = ClassUtil.getClassBytes(!type.isArray() ? type : type.getComponentType());
 		this.checksum = InternalUtil.getChecksum(propertyDescriptors, logger);
-		this.id = Crc64Util.checksum(classData);
 		this.serialVersionUID = ClassUtil.calculateSerialVersionUID(type);
+		this.layoutFingerprint = flatStructs ? FlatStructLayout.getLayoutFingerprint(type, propertyDescriptors) : 0;
 	}
 
-	InternalClassDefinition(long id, Class<?> type, byte[] checksum, long serialVersionUID) {
+	InternalClassDefinition(long id, Class<?> type, byte[] checksum, long serialVersionUID, long layoutFingerprint) {
 		this.canonicalName = Type.getInternalName(type).replace("/", ".");
 		this.type = type;
 		this.id = id;
 		this.checksum = checksum;
 		this.serialVersionUID = serialVersionUID;
+		this.layoutFingerprint = layoutFingerprint;
 	}
 
 	@Override
@@ -74,11 +75,20 @@ class InternalClassDefinition implements ClassDefinition, Comparable<ClassDefini
 		return id;
 	}
 
+	void setId(long id) {
+		this.id = id;
+	}
+
 	@Override
 	public long getSerialVersionUID() {
 		return serialVersionUID;
 	}
 
+	@Override
+	public long getLayoutFingerprint() {
+		return layoutFingerprint;
+	}
+
 	@Override
 	public int compareTo(ClassDefinition o) {
 		return canonicalName.compareTo(o.getCanonicalName());
@@ -92,6 +102,7 @@ class InternalClassDefinition implements ClassDefinition, Comparable<ClassDefini
 		result = prime * result + Arrays.hashCode(checksum);
 		result = prime * result + (int) (id ^ (id >>> 32));
 		result = prime * result + (int) (serialVersionUID ^ (serialVersionUID >>> 32));
+		result = prime * result + (int) (layoutFingerprint ^ (layoutFingerprint >>> 32));
 		return result;
 	}
 
@@ -116,12 +127,14 @@ class InternalClassDefinition implements ClassDefinition, Comparable<ClassDefini
 			return false;
 		if (serialVersionUID != other.serialVersionUID)
 			return false;
+		if (layoutFingerprint != other.layoutFingerprint)
+			return false;
 		return true;
 	}
 
 	@Override
 	public String toString() {
 		return "InternalClassDefinition [canonicalName=" + canonicalName + ", type=" + type + ", checksum=" + Arrays.toString(checksum) + ", serialVersionUID="
-				+ serialVersionUID + ", id=" + id + "]";
+				+ serialVersionUID + ", layoutFingerprint=" + layoutFingerprint + ", id=" + id + "]";
 	}
 }
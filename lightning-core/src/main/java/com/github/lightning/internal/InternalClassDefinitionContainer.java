@@ -25,13 +25,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import com.carrotsearch.hppc.LongObjectMap;
-import com.carrotsearch.hppc.LongObjectOpenHashMap;
 import com.github.lightning.Streamed;
 import com.github.lightning.internal.util.ClassUtil;
 import com.github.lightning.metadata.ClassDefinition;
@@ -40,16 +41,22 @@ import com.github.lightning.metadata.ClassDefinitionContainer;
 class InternalClassDefinitionContainer implements ClassDefinitionContainer, Streamed, Externalizable {
 
 	private final Set<ClassDefinition> classDefinitions = new HashSet<ClassDefinition>();
-	private final LongObjectMap<ClassDefinition> classDefinitionsMappings;
+
+	// Type ids are dense so they are directly used as index
+	private ClassDefinition[] classDefinitionsById = new ClassDefinition[0];
+
+	// Resolved types are added on first lookup, e.g. ArrayList after being
+	// folded to List
+	private final ConcurrentMap<Class<?>, ClassDefinition> classDefinitionsByType = new ConcurrentHashMap<Class<?>, ClassDefinition>();
+
+	private Map<String, ClassDefinition> classDefinitionsByCanonicalName = Collections.emptyMap();
 
 	// Serialization
 	public InternalClassDefinitionContainer() {
-		classDefinitionsMappings = new LongObjectOpenHashMap<ClassDefinition>();
 	}
 
 	InternalClassDefinitionContainer(Set<ClassDefinition> classDefinitions) {
 		this.classDefinitions.addAll(classDefinitions);
-		classDefinitionsMappings = new LongObjectOpenHashMap<ClassDefinition>(classDefinitions.size());
 		initMappings(classDefinitions);
 	}
 
@@ -60,51 +67,47 @@ class InternalClassDefinitionContainer implements ClassDefinitionContainer, Stre
 
 	@Override
 	public Class<?> getTypeById(long id) {
-		ClassDefinition classDefinition = classDefinitionsMappings.get(id);
+		ClassDefinition classDefinition = getClassDefinitionById(id);
 		return classDefinition != null ? classDefinition.getType() : null;
 	}
 
 	@Override
 	public ClassDefinition getClassDefinitionByCanonicalName(String canonicalName) {
-		for (ClassDefinition classDefinition : classDefinitions) {
-			if (classDefinition.getCanonicalName().equals(canonicalName)) {
-				return classDefinition;
-			}
-		}
-		return null;
+		return classDefinitionsByCanonicalName.get(canonicalName);
 	}
 
 	@Override
 	public ClassDefinition getClassDefinitionById(long id) {
-		ClassDefinition classDefinition = classDefinitionsMappings.get(id);
-		return classDefinition != null ? classDefinition : null;
+		if (id < 0 || id >= classDefinitionsById.length) {
+			return null;
+		}
+		return classDefinitionsById[(int) id];
 	}
 
 	@Override
 	public ClassDefinition getClassDefinitionByType(Class<?> type) {
-		if (List.class.isAssignableFrom(type)) {
-			type = List.class;
-		}
-		else if (Set.class.isAssignableFrom(type)) {
-			type = Set.class;
+		ClassDefinition classDefinition = classDefinitionsByType.get(type);
+		if (classDefinition != null) {
+			return classDefinition;
 		}
-		else if (Map.class.isAssignableFrom(type)) {
-			type = Map.class;
+
+		Class<?> foldedType = foldType(type);
+		if (foldedType == type) {
+			return null;
 		}
 
-		for (ClassDefinition classDefinition : classDefinitions) {
-			if (classDefinition.getType() == type) {
-				return classDefinition;
-			}
+		classDefinition = classDefinitionsByType.get(foldedType);
+		if (classDefinition != null) {
+			classDefinitionsByType.putIfAbsent(type, classDefinition);
 		}
-		return null;
+		return classDefinition;
 	}
 
 	@Override
 	public void writeTo(DataOutput dataOutput) throws IOException {
 		List<ClassDefinition> selectedClassDefinitions = new ArrayList<ClassDefinition>();
 		for (ClassDefinition classDefinition : classDefinitions) {
-			if (classDefinition.getId() < 1000) {
+			if (classDefinition.getId() < ClassUtil.FIRST_USER_TYPE_ID) {
 				continue;
 			}
 
@@ -117,11 +120,13 @@ class InternalClassDefinitionContainer implements ClassDefinitionContainer, Stre
 			final byte[] checksum = classDefinition.getChecksum();
 			final String canonicalName = classDefinition.getCanonicalName();
 			final long serialVersionUID = classDefinition.getSerialVersionUID();
+			final long layoutFingerprint = classDefinition.getLayoutFingerprint();
 
 			dataOutput.writeLong(id);
 			dataOutput.writeUTF(canonicalName);
 			dataOutput.write(checksum);
 			dataOutput.writeLong(serialVersionUID);
+			dataOutput.writeLong(layoutFingerprint);
 		}
 	}
 
@@ -136,10 +141,15 @@ class InternalClassDefinitionContainer implements ClassDefinitionContainer, Stre
 			final byte[] checksum = new byte[20];
 			dataInput.readFully(checksum);
 			final long serialVersionUID = dataInput.readLong();
+			final long layoutFingerprint = dataInput.readLong();
+
+			if (id < ClassUtil.FIRST_USER_TYPE_ID || id > ClassUtil.MAX_TYPE_ID) {
+				throw new IOException("TypeId " + id + " of class " + canonicalName + " is out of range");
+			}
 
 			try {
 				Class<?> type = ClassUtil.loadClass(canonicalName);
-				classDefinitions.add(new InternalClassDefinition(id, type, checksum, serialVersionUID));
+				classDefinitions.add(new InternalClassDefinition(id, type, checksum, serialVersionUID, layoutFingerprint));
 			}
 			catch (ClassNotFoundException e) {
 				throw new IOException("Class " + canonicalName + " could not be loaded", e);
@@ -160,8 +170,39 @@ class InternalClassDefinitionContainer implements ClassDefinitionContainer, Stre
 	}
 
 	private void initMappings(Set<ClassDefinition> classDefinitions) {
+		long maxId = 0;
 		for (ClassDefinition classDefinition : classDefinitions) {
-			classDefinitionsMappings.put(classDefinition.getId(), classDefinition);
+			maxId = Math.max(maxId, classDefinition.getId());
+		}
+
+		ClassDefinition[] classDefinitionsById = new ClassDefinition[(int) maxId + 1];
+		Map<String, ClassDefinition> classDefinitionsByCanonicalName = new HashMap<String, ClassDefinition>(classDefinitions.size() * 2);
+		classDefinitionsByType.clear();
+		for (ClassDefinition classDefinition : classDefinitions) {
+			classDefinitionsById[(int) classDefinition.getId()] = classDefinition;
+			classDefinitionsByCanonicalName.put(classDefinition.getCanonicalName(), classDefinition);
+
+			// Implementations of List, Set and Map are always looked up by
+			// their interface
+			Class<?> type = classDefinition.getType();
+			if (foldType(type) == type) {
+				classDefinitionsByType.put(type, classDefinition);
+			}
+		}
+		this.classDefinitionsById = classDefinitionsById;
+		this.classDefinitionsByCanonicalName = classDefinitionsByCanonicalName;
+	}
+
+	private static Class<?> foldType(Class<?> type) {
+		if (List.class.isAssignableFrom(type)) {
+			return List.class;
+		}
+		else if (Set.class.isAssignableFrom(type)) {
+			return Set.class;
+		}
+		else if (Map.class.isAssignableFrom(type)) {
+			return Map.class;
 		}
+		return type;
 	}
 }
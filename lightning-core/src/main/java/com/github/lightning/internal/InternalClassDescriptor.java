@@ -28,6 +28,8 @@ import com.github.lightning.metadata.PropertyDescriptor;
 
 public class InternalClassDescriptor implements ClassDescriptor {
 
+	private static final int DEFAULT_SERIALIZED_SIZE_ESTIMATE = 64;
+
 	private final Set<PropertyDescriptor> propertyDescriptors = new HashSet<PropertyDescriptor>();
 	private final Logger logger;
 	private final Class<?> type;
@@ -35,6 +37,8 @@ public class InternalClassDescriptor implements ClassDescriptor {
 	private ClassDefinition classDefinition;
 	private Marshaller marshaller;
 
+	private volatile int serializedSizeEstimate = DEFAULT_SERIALIZED_SIZE_ESTIMATE;
+
 	public InternalClassDescriptor(Class<?> type, Logger logger) {
 		this.type = type;
 		this.logger = logger;
@@ -68,7 +72,27 @@ public class InternalClassDescriptor implements ClassDescriptor {
 		this.marshaller = marshaller;
 	}
 
-	public ClassDescriptor build(ClassDefinition[] classDefinitions) {
+	public int getSerializedSizeEstimate() {
+		return serializedSizeEstimate;
+	}
+
+	/**
+	 * Adjusts the running size estimate: bigger values are taken over
+	 * immediately so the next buffer does not need to grow, smaller values
+	 * slowly decay the estimate. Races between threads are harmless since the
+	 * value is only a hint.
+	 */
+	public void updateSerializedSizeEstimate(int serializedSize) {
+		int estimate = serializedSizeEstimate;
+		if (serializedSize > estimate) {
+			serializedSizeEstimate = serializedSize;
+		}
+		else if (serializedSize < estimate) {
+			serializedSizeEstimate = estimate - ((estimate - serializedSize + 7) >> 3);
+		}
+	}
+
+	public ClassDescriptor build(ClassDefinition[] classDefinitions, boolean flatStructs) {
 		for (ClassDefinition classDefinition : classDefinitions) {
 			if (classDefinition.getType() == type) {
 				this.classDefinition = classDefinition;
@@ -76,7 +100,7 @@ public class InternalClassDescriptor implements ClassDescriptor {
 			}
 		}
 
-		classDefinition = new InternalClassDefinition(getType(), getPropertyDescriptors(), logger);
+		classDefinition = new InternalClassDefinition(getType(), getPropertyDescriptors(), flatStructs, logger);
 		return this;
 	}
 }
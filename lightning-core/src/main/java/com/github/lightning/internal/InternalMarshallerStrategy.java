@@ -19,8 +19,11 @@ import java.io.Externalizable;
 import java.io.Serializable;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.github.lightning.Marshaller;
 import com.github.lightning.MarshallerContext;
@@ -58,6 +61,12 @@ public class InternalMarshallerStrategy implements MarshallerStrategy {
 
 	public static final List<Marshaller> baseMarshaller;
 
+	// Marshallers whose format matches the LightningOutput#writeX methods
+	// exactly, subclasses are not included since they might override it
+	private static final Set<Class<?>> builtInPrimitiveMarshallers = new HashSet<Class<?>>(Arrays.<Class<?>> asList(BooleanMarshaller.class,
+			ByteMarshaller.class, CharacterMarshaller.class, ShortMarshaller.class, IntegerMarshaller.class, LongMarshaller.class,
+			FloatMarshaller.class, DoubleMarshaller.class));
+
 	static {
 		List<Marshaller> marshallers = new ArrayList<Marshaller>();
 		marshallers.add(new StreamedMarshaller());
@@ -89,6 +98,14 @@ public class InternalMarshallerStrategy implements MarshallerStrategy {
 		baseMarshaller = Collections.unmodifiableList(marshallers);
 	}
 
+	/**
+	 * Returns true if the marshaller is one of the built-in primitive and
+	 * wrapper marshallers, those values can be read and written directly.
+	 */
+	public static boolean isBuiltInPrimitiveMarshaller(Marshaller marshaller) {
+		return marshaller != null && builtInPrimitiveMarshallers.contains(marshaller.getClass());
+	}
+
 	private final Marshaller externalizableMarshaller = new ExternalizableMarshaller();
 	private final Marshaller serializableMarshaller = new SerializableMarshaller();
 	private final Marshaller streamedMarshaller = new StreamedMarshaller();
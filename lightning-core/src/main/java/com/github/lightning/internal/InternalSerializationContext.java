@@ -15,13 +15,16 @@
  */
 package com.github.lightning.internal;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.lang.reflect.Type;
-import java.util.IdentityHashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import com.carrotsearch.hppc.LongObjectMap;
-import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.github.lightning.IntegerEncodingStrategy;
 import com.github.lightning.Marshaller;
 import com.github.lightning.MarshallerContext;
 import com.github.lightning.MarshallerStrategy;
@@ -29,37 +32,79 @@ import com.github.lightning.SerializationContext;
 import com.github.lightning.SerializationStrategy;
 import com.github.lightning.TypeBindableMarshaller;
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
+import com.github.lightning.internal.util.IdentityIntMap;
 import com.github.lightning.internal.util.TypeUtil;
 import com.github.lightning.metadata.ClassDefinitionContainer;
 
 public class InternalSerializationContext implements SerializationContext {
 
-	private final Map<Object, Long> referencesMarshall;
-	private final LongObjectMap<Object> referencesUnmarshall;
-	private final MarshallerContext marshallerContext = new InternalMarshallerContext();
+	// Reference tables that grew bigger are dropped on reset instead of cleared
+	private static final int MAX_RETAINED_REFERENCES = 1024;
 
-	private final ClassDefinitionContainer classDefinitionContainer;
+	private static final int INITIAL_UNMARSHALL_REFERENCES = 16;
+
+	// Some VMs reserve header words in arrays
+	private static final int MAX_UNMARSHALL_REFERENCES = Integer.MAX_VALUE - 8;
+
+	// Reference ids are sequential indices starting at 0 so they are written
+	// as short varints and can directly address the unmarshall table
+	private IdentityIntMap referencesMarshall;
+	private Object[] referencesUnmarshall;
+	private int referencesUnmarshallLimit;
+	private final MarshallerContext marshallerContext;
+
+	private ClassDefinitionContainer classDefinitionContainer;
 	private final SerializationStrategy serializationStrategy;
+	private final IntegerEncodingStrategy integerEncodingStrategy;
 	private final MarshallerStrategy marshallerStrategy;
 	private final ObjectInstantiatorFactory objectInstantiatorFactory;
+	private final ConcurrentMap<Type, Marshaller> marshallerCache;
+
+	private int nextReferenceIdMarshall = 0;
 
-	private long nextReferenceIdMarshall = 10000;
+	// Set while a serializer uses this context for a call
+	private boolean inUse = false;
 
 	public InternalSerializationContext(ClassDefinitionContainer classDefinitionContainer, SerializationStrategy serializationStrategy,
 			MarshallerStrategy marshallerStrategy, ObjectInstantiatorFactory objectInstantiatorFactory, Map<Class<?>, Marshaller> definedMarshallers) {
 
+		this(classDefinitionContainer, serializationStrategy, IntegerEncodingStrategy.FixedLength, marshallerStrategy, objectInstantiatorFactory,
+				buildMarshallerContext(definedMarshallers));
+	}
+
+	/**
+	 * Creates a context sharing the given {@link MarshallerContext}. The
+	 * marshaller context is only read so it can be used by any number of
+	 * serialization contexts at the same time.
+	 */
+	public InternalSerializationContext(ClassDefinitionContainer classDefinitionContainer, SerializationStrategy serializationStrategy,
+			IntegerEncodingStrategy integerEncodingStrategy, MarshallerStrategy marshallerStrategy, ObjectInstantiatorFactory objectInstantiatorFactory,
+			MarshallerContext marshallerContext) {
+
+		this(classDefinitionContainer, serializationStrategy, integerEncodingStrategy, marshallerStrategy, objectInstantiatorFactory, marshallerContext,
+				new ConcurrentHashMap<Type, Marshaller>());
+	}
+
+	/**
+	 * Creates a context sharing the given {@link MarshallerContext} and cache
+	 * of resolved (and bound) marshallers. Both have to belong to the same
+	 * serializer, the cache is thread-safe.
+	 */
+	public InternalSerializationContext(ClassDefinitionContainer classDefinitionContainer, SerializationStrategy serializationStrategy,
+			IntegerEncodingStrategy integerEncodingStrategy, MarshallerStrategy marshallerStrategy, ObjectInstantiatorFactory objectInstantiatorFactory,
+			MarshallerContext marshallerContext, ConcurrentMap<Type, Marshaller> marshallerCache) {
+
+		this.marshallerCache = marshallerCache;
 		this.classDefinitionContainer = classDefinitionContainer;
 		this.serializationStrategy = serializationStrategy;
+		this.integerEncodingStrategy = integerEncodingStrategy;
 		this.marshallerStrategy = marshallerStrategy;
 		this.objectInstantiatorFactory = objectInstantiatorFactory;
-
-		for (Entry<Class<?>, Marshaller> entry : definedMarshallers.entrySet()) {
-			this.marshallerContext.bindMarshaller(entry.getKey(), entry.getValue());
-		}
+		this.marshallerContext = marshallerContext;
 
 		if (serializationStrategy == SerializationStrategy.SizeOptimized) {
-			this.referencesMarshall = new IdentityHashMap<Object, Long>();
-			this.referencesUnmarshall = new LongObjectOpenHashMap<Object>();
+			this.referencesMarshall = new IdentityIntMap();
+			this.referencesUnmarshall = new Object[INITIAL_UNMARSHALL_REFERENCES];
 		}
 		else {
 			this.referencesMarshall = null;
@@ -67,6 +112,57 @@ public class InternalSerializationContext implements SerializationContext {
 		}
 	}
 
+	public static MarshallerContext buildMarshallerContext(Map<Class<?>, Marshaller> definedMarshallers) {
+		MarshallerContext marshallerContext = new InternalMarshallerContext();
+		for (Entry<Class<?>, Marshaller> entry : definedMarshallers.entrySet()) {
+			marshallerContext.bindMarshaller(entry.getKey(), entry.getValue());
+		}
+		return marshallerContext;
+	}
+
+	/**
+	 * Forgets all references seen by the last run so the context can be
+	 * reused without keeping the last object graph alive.
+	 */
+	public void reset() {
+		nextReferenceIdMarshall = 0;
+
+		if (referencesMarshall != null && !referencesMarshall.isEmpty()) {
+			if (referencesMarshall.size() > MAX_RETAINED_REFERENCES) {
+				referencesMarshall = new IdentityIntMap();
+			}
+			else {
+				referencesMarshall.clear();
+			}
+		}
+
+		if (referencesUnmarshall != null && referencesUnmarshallLimit > 0) {
+			if (referencesUnmarshall.length > MAX_RETAINED_REFERENCES) {
+				referencesUnmarshall = new Object[INITIAL_UNMARSHALL_REFERENCES];
+			}
+			else {
+				Arrays.fill(referencesUnmarshall, 0, referencesUnmarshallLimit, null);
+			}
+			referencesUnmarshallLimit = 0;
+		}
+	}
+
+	boolean acquire() {
+		if (inUse) {
+			return false;
+		}
+		inUse = true;
+		return true;
+	}
+
+	void release() {
+		inUse = false;
+	}
+
+	public void setClassDefinitionContainer(ClassDefinitionContainer classDefinitionContainer) {
+		this.classDefinitionContainer = classDefinitionContainer;
+	}
+
 	@Override
 	public ClassDefinitionContainer getClassDefinitionContainer() {
 		return classDefinitionContainer;
@@ -77,6 +173,11 @@ public class InternalSerializationContext implements SerializationContext {
 		return serializationStrategy;
 	}
 
+	@Override
+	public IntegerEncodingStrategy getIntegerEncodingStrategy() {
+		return integerEncodingStrategy;
+	}
+
 	@Override
 	public ObjectInstantiatorFactory getObjectInstantiatorFactory() {
 		return objectInstantiatorFactory;
@@ -84,59 +185,91 @@ public class InternalSerializationContext implements SerializationContext {
 
 	@Override
 	public long findReferenceIdByObject(Object instance) {
-		Long referenceId = referencesMarshall.get(instance);
-		if (referenceId == null) {
-			return -1;
-		}
-		return referenceId;
+		return referencesMarshall.get(instance);
 	}
 
 	@Override
 	public long putMarshalledInstance(Object instance) {
-		long newId = getNextReferenceIdMarshall();
+		int newId = getNextReferenceIdMarshall();
 		referencesMarshall.put(instance, newId);
 		return newId;
 	}
 
 	@Override
 	public Object findObjectByReferenceId(long referenceId) {
-		return referencesUnmarshall.get(referenceId);
+		if (referenceId < 0 || referenceId >= referencesUnmarshallLimit) {
+			return null;
+		}
+		return referencesUnmarshall[(int) referenceId];
 	}
 
 	@Override
 	public boolean containsReferenceId(long referenceId) {
-		return referencesUnmarshall.containsKey(referenceId);
+		return findObjectByReferenceId(referenceId) != null;
 	}
 
 	@Override
-	public long putUnmarshalledInstance(long refrenceId, Object instance) {
-		referencesUnmarshall.put(refrenceId, instance);
+	public long putUnmarshalledInstance(long refrenceId, Object instance) throws IOException {
+		// Ids are assigned one after another, a valid id is never ahead of
+		// the references registered so far
+		if (refrenceId < 0 || refrenceId > referencesUnmarshallLimit) {
+			throw new StreamCorruptedException("Illegal reference id " + refrenceId + ", only " + referencesUnmarshallLimit
+					+ " references registered");
+		}
+
+		int index = (int) refrenceId;
+		if (index == referencesUnmarshall.length) {
+			referencesUnmarshall = Arrays.copyOf(referencesUnmarshall, growCapacity(referencesUnmarshall.length));
+		}
+
+		referencesUnmarshall[index] = instance;
+		if (index == referencesUnmarshallLimit) {
+			referencesUnmarshallLimit++;
+		}
 		return refrenceId;
 	}
 
 	@Override
 	public Marshaller findMarshaller(Type type) {
+		Marshaller marshaller = marshallerCache.get(type);
+		if (marshaller != null) {
+			return marshaller;
+		}
+
 		Class<?> rawType = TypeUtil.getBaseType(type);
-		Marshaller marshaller = marshallerStrategy.getMarshaller(rawType, marshallerContext);
+		marshaller = marshallerStrategy.getMarshaller(rawType, marshallerContext);
 
 		if (marshaller instanceof TypeBindableMarshaller) {
 			Type[] typeArguments = TypeUtil.getTypeArgument(type);
 			marshaller = ((TypeBindableMarshaller) marshaller).bindType(typeArguments);
 		}
 
-		return marshaller;
+		if (marshaller == null) {
+			return null;
+		}
+
+		// Keep the first bound instance if another thread was faster
+		Marshaller cachedMarshaller = marshallerCache.putIfAbsent(type, marshaller);
+		return cachedMarshaller != null ? cachedMarshaller : marshaller;
+	}
+
+	private static int growCapacity(int capacity) throws StreamCorruptedException {
+		if (capacity >= MAX_UNMARSHALL_REFERENCES) {
+			throw new StreamCorruptedException("Too many references to unmarshall");
+		}
+		return (int) Math.min((long) capacity << 1, MAX_UNMARSHALL_REFERENCES);
 	}
 
-	public Map<Object, Long> getReferencesMarshall() {
+	public IdentityIntMap getReferencesMarshall() {
 		return referencesMarshall;
 	}
 
-	public LongObjectMap<Object> getReferencesUnmarshall() {
+	public Object[] getReferencesUnmarshall() {
 		return referencesUnmarshall;
 	}
 
-	public long getNextReferenceIdMarshall() {
-		long newId = nextReferenceIdMarshall++;
+	public int getNextReferenceIdMarshall() {
+		int newId = nextReferenceIdMarshall++;
 		return newId;
 	}
 }
@@ -16,73 +16,102 @@
 package com.github.lightning.internal;
 
 import java.io.DataInput;
-import java.io.DataInputStream;
 import java.io.DataOutput;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.github.lightning.ClassComparisonStrategy;
+import com.github.lightning.IntegerEncodingStrategy;
 import com.github.lightning.Marshaller;
+import com.github.lightning.MarshallerContext;
 import com.github.lightning.MarshallerStrategy;
-import com.github.lightning.SerializationContext;
 import com.github.lightning.SerializationStrategy;
 import com.github.lightning.exceptions.ClassDefinitionInconsistentException;
 import com.github.lightning.exceptions.SerializerExecutionException;
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
+import com.github.lightning.internal.generator.AbstractGeneratedMarshaller;
 import com.github.lightning.internal.generator.BytecodeMarshallerGenerator;
 import com.github.lightning.internal.generator.MarshallerGenerator;
-import com.github.lightning.internal.io.BufferInputStream;
-import com.github.lightning.internal.io.BufferOutputStream;
+import com.github.lightning.internal.io.DataInputInputStream;
+import com.github.lightning.internal.io.DataOutputOutputStream;
 import com.github.lightning.internal.io.ReaderInputStream;
 import com.github.lightning.internal.io.WriterOutputStream;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.logging.Logger;
 import com.github.lightning.metadata.ClassDefinition;
 import com.github.lightning.metadata.ClassDefinitionContainer;
 import com.github.lightning.metadata.ClassDescriptor;
+import com.github.lightning.metadata.PropertyDescriptor;
 
 class InternalSerializer implements ClassDescriptorAwareSerializer {
 
+	// Bigger buffers are not kept per thread to not pin memory forever
+	private static final int MAX_CACHED_BUFFER_SIZE = 64 * 1024;
+
+	private final ThreadLocal<LightningOutput> outputCache = new ThreadLocal<LightningOutput>();
+	// Only weakly cached since the thread outlives the serializer and the
+	// context references all marshallers and therefore their generated classes
+	private final ThreadLocal<Reference<InternalSerializationContext>> serializationContextCache = new ThreadLocal<Reference<InternalSerializationContext>>();
+
+	// Keeps the per thread contexts alive as long as their thread and this
+	// serializer. The thread local itself only holds them weakly so a
+	// discarded serializer (and the classes it references) can be collected.
+	private final Map<Thread, InternalSerializationContext> serializationContexts = Collections
+			.synchronizedMap(new WeakHashMap<Thread, InternalSerializationContext>());
 	private final AtomicReference<ClassDefinitionContainer> classDefinitionContainer = new AtomicReference<ClassDefinitionContainer>();
 	private final MarshallerGenerator marshallerGenerator = new BytecodeMarshallerGenerator();
 	private final ObjectInstantiatorFactory objectInstantiatorFactory;
 	private final ClassComparisonStrategy classComparisonStrategy;
 	private final Map<Class<?>, ClassDescriptor> classDescriptors;
 	private final SerializationStrategy serializationStrategy;
-	private final Map<Class<?>, Marshaller> definedMarshallers;
+	private final IntegerEncodingStrategy integerEncodingStrategy;
 	private final MarshallerStrategy marshallerStrategy;
+	private final MarshallerContext marshallerContext;
+	private final ConcurrentMap<Type, Marshaller> marshallerCache = new ConcurrentHashMap<Type, Marshaller>();
+	private final ByteOrder byteOrder;
+	private final boolean adaptiveReferenceTracking;
 
 	InternalSerializer(ClassDefinitionContainer classDefinitionContainer, SerializationStrategy serializationStrategy,
 			ClassComparisonStrategy classComparisonStrategy, Map<Class<?>, ClassDescriptor> classDescriptors, Map<Class<?>, Marshaller> marshallers,
-			ObjectInstantiatorFactory objectInstantiatorFactory, Logger logger, MarshallerStrategy marshallerStrategy, File debugCacheDirectory) {
+			ObjectInstantiatorFactory objectInstantiatorFactory, Logger logger, MarshallerStrategy marshallerStrategy, File debugCacheDirectory,
+			ByteOrder byteOrder, IntegerEncodingStrategy integerEncodingStrategy, boolean adaptiveReferenceTracking) {
 
 		this.classDefinitionContainer.set(classDefinitionContainer);
 		this.classComparisonStrategy = classComparisonStrategy;
 		this.classDescriptors = Collections.unmodifiableMap(classDescriptors);
 		this.serializationStrategy = serializationStrategy;
+		this.integerEncodingStrategy = integerEncodingStrategy;
+		this.adaptiveReferenceTracking = adaptiveReferenceTracking;
 
-		for (ClassDescriptor classDescriptor : classDescriptors.values()) {
-			if (classDescriptor instanceof InternalClassDescriptor && classDescriptor.getMarshaller() == null) {
-				Marshaller marshaller = marshallerGenerator.generateMarshaller(classDescriptor.getType(), classDescriptor.getPropertyDescriptors(),
-						marshallers, this, serializationStrategy, objectInstantiatorFactory, debugCacheDirectory);
+		this.objectInstantiatorFactory = objectInstantiatorFactory;
 
-				((InternalClassDescriptor) classDescriptor).setMarshaller(marshaller);
-				marshallers.put(classDescriptor.getType(), marshaller);
-			}
+		Set<Class<?>> visitedTypes = new HashSet<Class<?>>();
+		for (ClassDescriptor classDescriptor : classDescriptors.values()) {
+			generateMarshaller(classDescriptor, marshallers, visitedTypes, debugCacheDirectory);
 		}
 
-		this.definedMarshallers = marshallers;
 		this.marshallerStrategy = marshallerStrategy;
-		this.objectInstantiatorFactory = objectInstantiatorFactory;
+		this.marshallerContext = InternalSerializationContext.buildMarshallerContext(marshallers);
+		this.byteOrder = byteOrder;
 	}
 
 	@Override
@@ -101,73 +130,128 @@ class InternalSerializer implements ClassDescriptorAwareSerializer {
 	}
 
 	@Override
-	public <V> void serialize(V value, DataOutput dataOutput) {
+	public <V> void serialize(V value, LightningOutput output) {
+		InternalSerializationContext serializationContext = acquireSerializationContext();
 		try {
-			SerializationContext serializationContext = new InternalSerializationContext(classDefinitionContainer.get(), serializationStrategy,
-					marshallerStrategy, objectInstantiatorFactory, definedMarshallers);
-
 			Class<?> type = value.getClass();
 			ClassDescriptor classDescriptor = findClassDescriptor(type);
-			dataOutput.writeLong(classDescriptor.getClassDefinition().getId());
-			classDescriptor.getMarshaller().marshall(value, type, dataOutput, serializationContext);
+			output.writeVarLong(classDescriptor.getClassDefinition().getId());
+			classDescriptor.getMarshaller().marshall(value, type, output, serializationContext);
 		}
 		catch (IOException e) {
 			throw new SerializerExecutionException("Error while serializing value", e);
 		}
+		finally {
+			releaseSerializationContext(serializationContext);
+		}
 	}
 
 	@Override
-	public <V> void serialize(V value, OutputStream outputStream) {
-		if (outputStream instanceof DataOutput)
-			serialize(value, (DataOutput) outputStream);
+	public <V> void serialize(V value, DataOutput dataOutput) {
+		if (dataOutput instanceof OutputStream)
+			serialize(value, (OutputStream) dataOutput);
 		else
-			serialize(value, (DataOutput) new DataOutputStream(outputStream));
+			serialize(value, (OutputStream) new DataOutputOutputStream(dataOutput));
+	}
+
+	@Override
+	public <V> void serialize(V value, OutputStream outputStream) {
+		LightningOutput output = new LightningOutput(outputStream, byteOrder);
+		serialize(value, output);
+
+		try {
+			output.flush();
+		}
+		catch (IOException e) {
+			throw new SerializerExecutionException("Error while serializing value", e);
+		}
 	}
 
 	@Override
 	public <V> void serialize(V value, Writer writer) {
-		serialize(value, (DataOutput) new DataOutputStream(new WriterOutputStream(writer, "UTF-8")));
+		serialize(value, (OutputStream) new WriterOutputStream(writer, "UTF-8"));
 	}
 
 	@Override
 	public <V> void serialize(V value, ByteBuffer buffer) {
-		serialize(value, (DataOutput) new DataOutputStream(new BufferOutputStream(buffer)));
+		LightningOutput output = new LightningOutput(buffer, byteOrder);
+		int start = output.position();
+		serialize(value, output);
+		buffer.position(buffer.position() + output.position() - start);
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
-	public <V> V deserialize(DataInput dataInput) {
+	public <V> byte[] serialize(V value) {
+		ClassDescriptor classDescriptor = findClassDescriptor(value.getClass());
+		InternalClassDescriptor internalClassDescriptor = null;
+		if (classDescriptor instanceof InternalClassDescriptor) {
+			internalClassDescriptor = (InternalClassDescriptor) classDescriptor;
+		}
+
+		int estimate = internalClassDescriptor != null ? internalClassDescriptor.getSerializedSizeEstimate() : 0;
+		LightningOutput output = acquireOutput(estimate);
 		try {
-			SerializationContext serializationContext = new InternalSerializationContext(classDefinitionContainer.get(), serializationStrategy,
-					marshallerStrategy, objectInstantiatorFactory, definedMarshallers);
+			serialize(value, output);
 
-			long typeId = dataInput.readLong();
+			if (internalClassDescriptor != null) {
+				internalClassDescriptor.updateSerializedSizeEstimate(output.position());
+			}
+			return output.toByteArray();
+		}
+		finally {
+			releaseOutput(output);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <V> V deserialize(LightningInput input) {
+		InternalSerializationContext serializationContext = acquireSerializationContext();
+		try {
+			long typeId = input.readVarLong();
 			Class<?> clazz = classDefinitionContainer.get().getTypeById(typeId);
 			ClassDescriptor classDescriptor = findClassDescriptor(clazz);
-			return (V) classDescriptor.getMarshaller().unmarshall(clazz, dataInput, serializationContext);
+			return (V) classDescriptor.getMarshaller().unmarshall(clazz, input, serializationContext);
 		}
 		catch (IOException e) {
 			throw new SerializerExecutionException("Error while deserializing value", e);
 		}
+		finally {
+			releaseSerializationContext(serializationContext);
+		}
 	}
 
 	@Override
-	public <V> V deserialize(InputStream inputStream) {
-		if (inputStream instanceof DataInput) {
-			return deserialize((DataInput) inputStream);
+	public <V> V deserialize(DataInput dataInput) {
+		if (dataInput instanceof InputStream) {
+			return deserialize((InputStream) dataInput);
 		}
 
-		return deserialize((DataInput) new DataInputStream(inputStream));
+		return deserialize((InputStream) new DataInputInputStream(dataInput));
+	}
+
+	@Override
+	public <V> V deserialize(InputStream inputStream) {
+		return deserialize(new LightningInput(inputStream, byteOrder));
 	}
 
 	@Override
 	public <V> V deserialize(Reader reader) {
-		return deserialize((DataInput) new DataInputStream(new ReaderInputStream(reader, "UTF-8")));
+		return deserialize((InputStream) new ReaderInputStream(reader, "UTF-8"));
 	}
 
 	@Override
 	public <V> V deserialize(ByteBuffer buffer) {
-		return deserialize((DataInput) new DataInputStream(new BufferInputStream(buffer)));
+		LightningInput input = new LightningInput(buffer, byteOrder);
+		int start = input.position();
+		V value = deserialize(input);
+		buffer.position(buffer.position() + input.position() - start);
+		return value;
+	}
+
+	@Override
+	public <V> V deserialize(byte[] data, int offset, int length) {
+		return deserialize(new LightningInput(data, offset, length, byteOrder));
 	}
 
 	@Override
@@ -175,6 +259,82 @@ class InternalSerializer implements ClassDescriptorAwareSerializer {
 		return classDescriptors.get(type);
 	}
 
+	private void generateMarshaller(ClassDescriptor classDescriptor, Map<Class<?>, Marshaller> marshallers, Set<Class<?>> visitedTypes,
+			File debugCacheDirectory) {
+
+		if (!(classDescriptor instanceof InternalClassDescriptor) || classDescriptor.getMarshaller() != null
+				|| !visitedTypes.add(classDescriptor.getType())) {
+			return;
+		}
+
+		// Generate marshallers of property types first so that the generated
+		// code can bind them directly instead of resolving them lazily
+		for (PropertyDescriptor propertyDescriptor : classDescriptor.getPropertyDescriptors()) {
+			Class<?> propertyType = propertyDescriptor.getType();
+			ClassDescriptor propertyClassDescriptor = classDescriptors.get(!propertyType.isArray() ? propertyType : propertyType.getComponentType());
+			if (propertyClassDescriptor != null) {
+				generateMarshaller(propertyClassDescriptor, marshallers, visitedTypes, debugCacheDirectory);
+			}
+		}
+
+		Marshaller marshaller = marshallerGenerator.generateMarshaller(classDescriptor.getType(), classDescriptor.getPropertyDescriptors(), marshallers,
+				this, serializationStrategy, integerEncodingStrategy, objectInstantiatorFactory, debugCacheDirectory);
+
+		if (adaptiveReferenceTracking && marshaller instanceof AbstractGeneratedMarshaller) {
+			((AbstractGeneratedMarshaller) marshaller).enableAdaptiveReferenceTracking();
+		}
+
+		((InternalClassDescriptor) classDescriptor).setMarshaller(marshaller);
+		marshallers.put(classDescriptor.getType(), marshaller);
+	}
+
+	private InternalSerializationContext acquireSerializationContext() {
+		Reference<InternalSerializationContext> reference = serializationContextCache.get();
+		InternalSerializationContext serializationContext = reference != null ? reference.get() : null;
+		if (serializationContext == null) {
+			serializationContext = buildSerializationContext();
+			serializationContexts.put(Thread.currentThread(), serializationContext);
+			serializationContextCache.set(new WeakReference<InternalSerializationContext>(serializationContext));
+		}
+
+		// Nested calls on the same thread need their own context
+		if (!serializationContext.acquire()) {
+			return buildSerializationContext();
+		}
+
+		serializationContext.setClassDefinitionContainer(classDefinitionContainer.get());
+		return serializationContext;
+	}
+
+	private void releaseSerializationContext(InternalSerializationContext serializationContext) {
+		serializationContext.reset();
+		serializationContext.release();
+	}
+
+	private InternalSerializationContext buildSerializationContext() {
+		return new InternalSerializationContext(classDefinitionContainer.get(), serializationStrategy, integerEncodingStrategy, marshallerStrategy,
+				objectInstantiatorFactory, marshallerContext, marshallerCache);
+	}
+
+	private LightningOutput acquireOutput(int capacity) {
+		LightningOutput output = outputCache.get();
+		if (output == null) {
+			return new LightningOutput(capacity, byteOrder);
+		}
+
+		// Take it out of the cache while in use in case serialize is called
+		// recursively (e.g. by a custom marshaller)
+		outputCache.set(null);
+		output.reset(capacity);
+		return output;
+	}
+
+	private void releaseOutput(LightningOutput output) {
+		if (output.getBuffer().length <= MAX_CACHED_BUFFER_SIZE) {
+			outputCache.set(output);
+		}
+	}
+
 	private void consistencyCheckClassChecksums(ClassDefinitionContainer oldClassDefinitionContainer, ClassDefinitionContainer classDefinitionContainer) {
 		for (ClassDefinition classDefinition : classDefinitionContainer.getClassDefinitions()) {
 			ClassDefinition oldClassDefinition = oldClassDefinitionContainer.getClassDefinitionByCanonicalName(classDefinition.getCanonicalName());
@@ -182,6 +342,18 @@ class InternalSerializer implements ClassDescriptorAwareSerializer {
 				throw new ClassDefinitionInconsistentException("No ClassDefinition for type " + classDefinition.getCanonicalName() + " was found");
 			}
 
+			// Type ids are written instead of class names so both sides have
+			// to agree on them
+			if (classDefinition.getId() != oldClassDefinition.getId()) {
+				throw new ClassDefinitionInconsistentException("TypeId of type " + classDefinition.getCanonicalName() + " is not constistent");
+			}
+
+			// Flat structs are written in memory layout so both sides have to
+			// agree on it
+			if (classDefinition.getLayoutFingerprint() != oldClassDefinition.getLayoutFingerprint()) {
+				throw new ClassDefinitionInconsistentException("Flat struct layout of type " + classDefinition.getCanonicalName() + " is not constistent");
+			}
+
 			if (classComparisonStrategy != ClassComparisonStrategy.SkipComparison) {
 				if (classComparisonStrategy == ClassComparisonStrategy.SerialVersionUID) {
 					long serialVersionUID = classDefinition.getSerialVersionUID();
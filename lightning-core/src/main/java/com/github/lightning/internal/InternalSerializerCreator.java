@@ -18,8 +18,11 @@ package com.github.lightning.internal;
 import java.io.File;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -31,9 +34,11 @@ import java.util.Stack;
 import com.github.lightning.ClassComparisonStrategy;
 import com.github.lightning.Marshaller;
 import com.github.lightning.MarshallerStrategy;
+import com.github.lightning.IntegerEncodingStrategy;
 import com.github.lightning.SerializationStrategy;
 import com.github.lightning.Serializer;
 import com.github.lightning.configuration.SerializerDefinition;
+import com.github.lightning.exceptions.SerializerDefinitionException;
 import com.github.lightning.generator.DefinitionBuildingContext;
 import com.github.lightning.generator.DefinitionVisitor;
 import com.github.lightning.generator.PropertyDescriptorFactory;
@@ -48,6 +53,7 @@ import com.github.lightning.metadata.Attribute;
 import com.github.lightning.metadata.ClassDefinition;
 import com.github.lightning.metadata.ClassDescriptor;
 import com.github.lightning.metadata.PropertyDescriptor;
+import com.github.lightning.metadata.TypeId;
 
 public final class InternalSerializerCreator {
 
@@ -57,9 +63,13 @@ public final class InternalSerializerCreator {
 	private final ObjectInstantiatorFactory objectInstantiatorFactory = new ObjenesisSerializer(true);
 
 	private SerializationStrategy serializationStrategy = SerializationStrategy.SpeedOptimized;
+	private IntegerEncodingStrategy integerEncodingStrategy = IntegerEncodingStrategy.FixedLength;
 	private Class<? extends Annotation> attributeAnnotation = Attribute.class;
 	private ClassComparisonStrategy classComparisonStrategy = ClassComparisonStrategy.LightningChecksum;
 	private File debugCacheDirectory = null;
+	private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+	private boolean flatStructs = false;
+	private boolean adaptiveReferenceTracking = false;
 	private Logger logger = new LoggerAdapter();
 
 	public InternalSerializerCreator() {
@@ -93,11 +103,31 @@ public final class InternalSerializerCreator {
 		return this;
 	}
 
+	public InternalSerializerCreator setIntegerEncodingStrategy(IntegerEncodingStrategy integerEncodingStrategy) {
+		this.integerEncodingStrategy = integerEncodingStrategy;
+		return this;
+	}
+
 	public InternalSerializerCreator setClassComparisonStrategy(ClassComparisonStrategy classComparisonStrategy) {
 		this.classComparisonStrategy = classComparisonStrategy;
 		return this;
 	}
 
+	public InternalSerializerCreator setByteOrder(ByteOrder byteOrder) {
+		this.byteOrder = byteOrder;
+		return this;
+	}
+
+	public InternalSerializerCreator setFlatStructs(boolean flatStructs) {
+		this.flatStructs = flatStructs;
+		return this;
+	}
+
+	public InternalSerializerCreator setAdaptiveReferenceTracking(boolean adaptiveReferenceTracking) {
+		this.adaptiveReferenceTracking = adaptiveReferenceTracking;
+		return this;
+	}
+
 	public Serializer build() {
 		PropertyDescriptorFactory propertyDescriptorFactory = new InternalPropertyDescriptorFactory(logger);
 		MarshallerStrategy marshallerStrategy = new InternalMarshallerStrategy();
@@ -109,18 +139,70 @@ public final class InternalSerializerCreator {
 			serializerDefinition.acceptVisitor(definitionVisitor);
 		}
 
-		Set<ClassDefinition> classDefinitions = new HashSet<ClassDefinition>(Arrays.asList(ClassUtil.CLASS_DESCRIPTORS));
+		List<InternalClassDefinition> userClassDefinitions = new ArrayList<InternalClassDefinition>();
 		for (InternalClassDescriptor classDescriptor : classDescriptors.values()) {
-			classDefinitions.add(classDescriptor.build(ClassUtil.CLASS_DESCRIPTORS).getClassDefinition());
+			ClassDefinition classDefinition = classDescriptor.build(ClassUtil.CLASS_DESCRIPTORS, flatStructs).getClassDefinition();
+			if (classDefinition instanceof InternalClassDefinition) {
+				userClassDefinitions.add((InternalClassDefinition) classDefinition);
+			}
 		}
 
+		// Ids have to be assigned before definitions are put into hash based
+		// collections since they are part of the hashCode
+		assignTypeIds(userClassDefinitions);
+
+		Set<ClassDefinition> classDefinitions = new HashSet<ClassDefinition>(Arrays.asList(ClassUtil.CLASS_DESCRIPTORS));
+		classDefinitions.addAll(userClassDefinitions);
+
 		Map<Class<?>, ClassDescriptor> cleanedClassDescriptors = new HashMap<Class<?>, ClassDescriptor>(classDescriptors.size());
 		for (Entry<Class<?>, InternalClassDescriptor> entry : classDescriptors.entrySet()) {
 			cleanedClassDescriptors.put(entry.getKey(), entry.getValue());
 		}
 
 		return new InternalSerializer(new InternalClassDefinitionContainer(classDefinitions), serializationStrategy, classComparisonStrategy,
-				cleanedClassDescriptors, marshallers, objectInstantiatorFactory, logger, marshallerStrategy, debugCacheDirectory);
+				cleanedClassDescriptors, marshallers, objectInstantiatorFactory, logger, marshallerStrategy, debugCacheDirectory,
+				byteOrder, integerEncodingStrategy, adaptiveReferenceTracking);
+	}
+
+	private void assignTypeIds(List<InternalClassDefinition> classDefinitions) {
+		// Sorting by canonical name makes the assigned ids independent of the
+		// order types were defined in
+		Collections.sort(classDefinitions);
+
+		BitSet usedTypeIds = new BitSet();
+		List<InternalClassDefinition> unpinnedClassDefinitions = new ArrayList<InternalClassDefinition>();
+		for (InternalClassDefinition classDefinition : classDefinitions) {
+			TypeId typeId = classDefinition.getType().getAnnotation(TypeId.class);
+			if (typeId == null) {
+				unpinnedClassDefinitions.add(classDefinition);
+				continue;
+			}
+
+			int id = typeId.value();
+			if (id < ClassUtil.FIRST_USER_TYPE_ID || id > ClassUtil.MAX_TYPE_ID) {
+				throw new SerializerDefinitionException("TypeId " + id + " of type " + classDefinition.getCanonicalName() + " is not in range "
+						+ ClassUtil.FIRST_USER_TYPE_ID + " to " + ClassUtil.MAX_TYPE_ID);
+			}
+
+			if (usedTypeIds.get(id)) {
+				throw new SerializerDefinitionException("TypeId " + id + " of type " + classDefinition.getCanonicalName()
+						+ " is already used by another type");
+			}
+
+			usedTypeIds.set(id);
+			classDefinition.setId(id);
+		}
+
+		int nextId = ClassUtil.FIRST_USER_TYPE_ID;
+		for (InternalClassDefinition classDefinition : unpinnedClassDefinitions) {
+			nextId = usedTypeIds.nextClearBit(nextId);
+			if (nextId > ClassUtil.MAX_TYPE_ID) {
+				throw new SerializerDefinitionException("No free TypeId left for type " + classDefinition.getCanonicalName());
+			}
+
+			usedTypeIds.set(nextId);
+			classDefinition.setId(nextId);
+		}
 	}
 
 	private InternalClassDescriptor findClassDescriptor(Class<?> type) {
@@ -52,7 +52,7 @@ public abstract class FieldArrayPropertyAccessor extends FieldValuePropertyAcces
 	}
 
 	@Override
-	protected Field getField() {
+	public Field getField() {
 		return field;
 	}
 }
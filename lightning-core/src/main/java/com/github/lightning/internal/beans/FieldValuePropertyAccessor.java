@@ -49,7 +49,7 @@ public abstract class FieldValuePropertyAccessor extends AbstractValuePropertyAc
 		return field.getType();
 	}
 
-	protected Field getField() {
+	public Field getField() {
 		return field;
 	}
 }
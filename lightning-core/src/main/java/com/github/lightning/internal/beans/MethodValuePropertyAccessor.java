@@ -51,11 +51,11 @@ public abstract class MethodValuePropertyAccessor extends AbstractValuePropertyA
 		return getter.getReturnType();
 	}
 
-	protected Method getGetterMethod() {
+	public Method getGetterMethod() {
 		return getter;
 	}
 
-	protected Method getSetterMethod() {
+	public Method getSetterMethod() {
 		return setter;
 	}
 }
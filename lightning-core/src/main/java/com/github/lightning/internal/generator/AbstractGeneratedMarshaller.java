@@ -15,9 +15,8 @@
  */
 package com.github.lightning.internal.generator;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
+import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -29,18 +28,31 @@ import com.github.lightning.exceptions.SerializerDefinitionException;
 import com.github.lightning.instantiator.ObjectInstantiator;
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
 import com.github.lightning.internal.ClassDescriptorAwareSerializer;
+import com.github.lightning.internal.marshaller.FlatStructLayout;
+import com.github.lightning.internal.marshaller.PolymorphicTypeCache;
 import com.github.lightning.internal.util.ClassUtil;
+import com.github.lightning.internal.util.UnsafeUtil;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.metadata.ClassDescriptor;
 import com.github.lightning.metadata.PropertyAccessor;
 import com.github.lightning.metadata.PropertyDescriptor;
 
+@SuppressWarnings("restriction")
 public abstract class AbstractGeneratedMarshaller implements Marshaller {
 
+	// Used by generated code to access fields with inlined offsets
+	protected static final sun.misc.Unsafe UNSAFE = UnsafeUtil.getUnsafe();
+
 	private final Class<?> marshalledType;
 	private final Map<Class<?>, Marshaller> marshallers;
 	private final ClassDescriptor classDescriptor;
 	private final List<PropertyDescriptor> propertyDescriptors;
 	private final ObjectInstantiator objectInstantiator;
+	private final ReferenceTrackingPolicy referenceTrackingPolicy;
+
+	// Lazily built since only used by flat struct marshallers
+	private FlatStructLayout flatStructLayout;
 
 	public AbstractGeneratedMarshaller(Class<?> marshalledType, Map<Class<?>, Marshaller> marshallers, ClassDescriptorAwareSerializer serializer,
 			ObjectInstantiatorFactory objectInstantiatorFactory) {
@@ -50,6 +62,7 @@ public abstract class AbstractGeneratedMarshaller implements Marshaller {
 		this.classDescriptor = serializer.findClassDescriptor(marshalledType);
 		this.propertyDescriptors = Collections.unmodifiableList(classDescriptor.getPropertyDescriptors());
 		this.objectInstantiator = objectInstantiatorFactory.getInstantiatorOf(marshalledType);
+		this.referenceTrackingPolicy = ReferenceTrackingPolicy.build(marshalledType, serializer);
 	}
 
 	@Override
@@ -59,18 +72,22 @@ public abstract class AbstractGeneratedMarshaller implements Marshaller {
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (serializationContext.getSerializationStrategy() == SerializationStrategy.SizeOptimized) {
-			if (ClassUtil.isReferenceCapable(type)) {
-				long referenceId = dataInput.readLong();
-				V instance;
-				if (containsReferenceId(referenceId, serializationContext)) {
-					instance = (V) findObjectByReferenceId(referenceId, serializationContext);
+			if (referenceTrackingPolicy.isTracked() && ClassUtil.isReferenceCapable(type)) {
+				long referenceId = readReferenceId(dataInput, serializationContext);
+				if (referenceId == -1) {
+					// Instance was written without being tracked
+					return unmarshall((V) newInstance(), type, dataInput, serializationContext);
 				}
-				else {
-					// Instance not yet received, for first time deserialize it
-					instance = unmarshall((V) newInstance(), type, dataInput, serializationContext);
+
+				V instance = (V) findObjectByReferenceId(referenceId, serializationContext);
+				if (instance == null) {
+					// Instance not yet received, register it before its
+					// properties so ids arrive in the order they were assigned
+					instance = (V) newInstance();
 					cacheObjectForUnmarshall(referenceId, instance, serializationContext);
+					instance = unmarshall(instance, type, dataInput, serializationContext);
 				}
 
 				return instance;
@@ -85,28 +102,80 @@ public abstract class AbstractGeneratedMarshaller implements Marshaller {
 		return unmarshall(value, type, dataInput, serializationContext);
 	}
 
-	protected abstract <V> V unmarshall(V value, Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException;
+	protected abstract <V> V unmarshall(V value, Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException;
 
-	protected boolean isAlreadyMarshalled(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	protected boolean isAlreadyMarshalled(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (serializationContext.getSerializationStrategy() != SerializationStrategy.SizeOptimized) {
 			return false;
 		}
 
-		if (!ClassUtil.isReferenceCapable(type)) {
+		if (!referenceTrackingPolicy.isTracked() || !ClassUtil.isReferenceCapable(type)) {
+			return false;
+		}
+
+		if (!referenceTrackingPolicy.isTrackingInstances()) {
+			writeReferenceId(-1, dataOutput, serializationContext);
 			return false;
 		}
 
 		long referenceId = findReferenceIdByObject(value, serializationContext);
 		if (referenceId == -1) {
+			referenceTrackingPolicy.recordInstance(false);
 			referenceId = cacheObjectForMarshall(value, serializationContext);
-			dataOutput.writeLong(referenceId);
+			writeReferenceId(referenceId, dataOutput, serializationContext);
 			return false;
 		}
 
-		dataOutput.writeLong(referenceId);
+		referenceTrackingPolicy.recordInstance(true);
+		writeReferenceId(referenceId, dataOutput, serializationContext);
 		return true;
 	}
 
+	/**
+	 * Lets this marshaller stop tracking references of its (acyclic) type if
+	 * sampled instances are never referenced twice within a message.
+	 */
+	public void enableAdaptiveReferenceTracking() {
+		referenceTrackingPolicy.enableSampling();
+	}
+
+	public boolean isReferenceTracked() {
+		return referenceTrackingPolicy.isTrackingInstances();
+	}
+
+	protected void writeReferenceId(long referenceId, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		// Reference ids are small sequential indices, always write them as
+		// varint independent of the IntegerEncodingStrategy. They are shifted
+		// by one, zero marks untracked instances.
+		dataOutput.writeVarLong(referenceId + 1);
+	}
+
+	protected long readReferenceId(LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		return dataInput.readVarLong() - 1;
+	}
+
+	protected void writePresenceBitmap(long bitmap, int bytes, LightningOutput dataOutput) throws IOException {
+		for (int i = 0; i < bytes; i++) {
+			dataOutput.writeByte((int) (bitmap >>> (i * 8)));
+		}
+	}
+
+	protected long readPresenceBitmap(int bytes, LightningInput dataInput) throws IOException {
+		long bitmap = 0;
+		for (int i = 0; i < bytes; i++) {
+			bitmap |= (dataInput.readByte() & 0xFFL) << (i * 8);
+		}
+		return bitmap;
+	}
+
+	protected void writeFlatStruct(Object value, LightningOutput dataOutput) throws IOException {
+		getFlatStructLayout().write(value, dataOutput);
+	}
+
+	protected void readFlatStruct(Object value, LightningInput dataInput) throws IOException {
+		getFlatStructLayout().read(value, dataInput);
+	}
+
 	protected ClassDescriptor getClassDescriptor() {
 		return classDescriptor;
 	}
@@ -131,6 +200,11 @@ public abstract class AbstractGeneratedMarshaller implements Marshaller {
 	}
 
 	protected Marshaller findMarshaller(Class<?> type) {
+		// Interface and abstract typed properties can hold any bound subtype
+		if (isPolymorphicType(type)) {
+			return new PolymorphicMarshaller(type);
+		}
+
 		Marshaller marshaller = marshallers.get(type);
 		if (marshaller != null) {
 			return marshaller;
@@ -155,10 +229,83 @@ public abstract class AbstractGeneratedMarshaller implements Marshaller {
 		return serializationContext.putMarshalledInstance(instance);
 	}
 
-	protected long cacheObjectForUnmarshall(long referenceId, Object instance, SerializationContext serializationContext) {
+	protected long cacheObjectForUnmarshall(long referenceId, Object instance, SerializationContext serializationContext) throws IOException {
 		return serializationContext.putUnmarshalledInstance(referenceId, instance);
 	}
 
+	private FlatStructLayout getFlatStructLayout() {
+		// Racy initialization is fine, the layout is immutable
+		FlatStructLayout flatStructLayout = this.flatStructLayout;
+		if (flatStructLayout == null) {
+			flatStructLayout = FlatStructLayout.build(marshalledType);
+			this.flatStructLayout = flatStructLayout;
+		}
+		return flatStructLayout;
+	}
+
+	private boolean isPolymorphicType(Class<?> type) {
+		if (type.isPrimitive() || type.isArray() || type == Object.class) {
+			return false;
+		}
+
+		if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+			return false;
+		}
+
+		// Types handled by a built-in marshaller (like List or Map) are
+		// resolved as usual
+		Marshaller marshaller = marshallers.get(type);
+		return marshaller == null || marshaller instanceof AbstractGeneratedMarshaller;
+	}
+
+	private class PolymorphicMarshaller implements Marshaller {
+
+		private final Class<?> type;
+		private final PolymorphicTypeCache typeCache = new PolymorphicTypeCache();
+
+		private PolymorphicMarshaller(Class<?> type) {
+			this.type = type;
+		}
+
+		@Override
+		public boolean acceptType(Class<?> type) {
+			return this.type.isAssignableFrom(type);
+		}
+
+		@Override
+		public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+			// Type id is shifted by one, zero marks null values
+			if (value == null) {
+				dataOutput.writeVarLong(0);
+				return;
+			}
+
+			Class<?> valueType = value.getClass();
+			PolymorphicTypeCache.Entry cacheEntry = typeCache.findByType(valueType, serializationContext);
+			if (cacheEntry == null || cacheEntry.getMarshaller() == null) {
+				throw new SerializerDefinitionException("No marshaller for type " + valueType + " found");
+			}
+
+			dataOutput.writeVarLong(cacheEntry.getId() + 1);
+			cacheEntry.getMarshaller().marshall(value, valueType, dataOutput, serializationContext);
+		}
+
+		@Override
+		public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+			long typeId = dataInput.readVarLong();
+			if (typeId == 0) {
+				return null;
+			}
+
+			PolymorphicTypeCache.Entry cacheEntry = typeCache.findById(typeId - 1, serializationContext);
+			if (cacheEntry == null || cacheEntry.getMarshaller() == null) {
+				throw new SerializerDefinitionException("No marshaller for type id " + (typeId - 1) + " found");
+			}
+
+			return cacheEntry.getMarshaller().unmarshall(cacheEntry.getClassDefinition().getType(), dataInput, serializationContext);
+		}
+	}
+
 	private class DelegatingMarshaller implements Marshaller {
 
 		private final Class<?> type;
@@ -174,7 +321,7 @@ public abstract class AbstractGeneratedMarshaller implements Marshaller {
 		}
 
 		@Override
-		public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 			Marshaller marshaller = this.marshaller;
 			if (marshaller == null) {
 				marshaller = getMarshaller();
@@ -188,7 +335,7 @@ public abstract class AbstractGeneratedMarshaller implements Marshaller {
 		}
 
 		@Override
-		public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+		public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 			Marshaller marshaller = this.marshaller;
 			if (marshaller == null) {
 				marshaller = getMarshaller();
@@ -17,12 +17,20 @@ package com.github.lightning.internal.generator;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.FieldVisitor;
@@ -31,6 +39,7 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 
+import com.github.lightning.IntegerEncodingStrategy;
 import com.github.lightning.Marshaller;
 import com.github.lightning.MarshallerStrategy;
 import com.github.lightning.SerializationStrategy;
@@ -38,67 +47,211 @@ import com.github.lightning.exceptions.SerializerMarshallerGeneratorException;
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
 import com.github.lightning.internal.ClassDescriptorAwareSerializer;
 import com.github.lightning.internal.InternalMarshallerStrategy;
+import com.github.lightning.internal.beans.FieldValuePropertyAccessor;
+import com.github.lightning.internal.beans.MethodValuePropertyAccessor;
 import com.github.lightning.internal.util.ClassUtil;
+import com.github.lightning.internal.util.InternalUtil;
+import com.github.lightning.internal.util.UnsafeUtil;
+import com.github.lightning.logging.Logger;
+import com.github.lightning.logging.LoggerAdapter;
+import com.github.lightning.metadata.ClassDefinition;
+import com.github.lightning.metadata.ClassDescriptor;
+import com.github.lightning.metadata.PropertyAccessor;
 import com.github.lightning.metadata.PropertyDescriptor;
 
+@SuppressWarnings("restriction")
 public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants, MarshallerGenerator {
 
-	private final GeneratorClassLoader classloader = CreateClassLoader.createClassLoader(getClass().getClassLoader());
+	private static final sun.misc.Unsafe UNSAFE = UnsafeUtil.getUnsafe();
+
+	// Keeps generated methods well below HotSpot's HugeMethodLimit (8000
+	// bytes of bytecode), larger methods are never JIT compiled
+	private static final int MAX_PROPERTIES_PER_METHOD = 32;
+
+	// Java 7 and later verify class files with stack map frames much faster
+	// than by type inference
+	private static final int CLASS_FILE_VERSION = isStackMapFrameVersionSupported() ? V1_7 : V1_6;
+
+	private static final Logger LOGGER = new LoggerAdapter(BytecodeMarshallerGenerator.class);
+
+	// Generated classes are shared by all serializers, there is one class
+	// loader per class loader of the marshalled types. Generator class loaders
+	// are only weakly referenced and unloaded together with their classes as
+	// soon as no serializer uses them anymore
+	private static final Map<ClassLoader, WeakReference<GeneratorClassLoader>> CLASS_LOADERS = new WeakHashMap<ClassLoader, WeakReference<GeneratorClassLoader>>();
+
+	// Class loader the marshaller currently generated is defined in
+	private GeneratorClassLoader classloader;
 
 	@Override
-	public Marshaller generateMarshaller(Class<?> type, List<PropertyDescriptor> propertyDescriptors, Map<Class<?>, Marshaller> marshallers,
-			ClassDescriptorAwareSerializer serializer, SerializationStrategy serializationStrategy, ObjectInstantiatorFactory objectInstantiatorFactory,
-			File debugCacheDirectory) {
+	public synchronized Marshaller generateMarshaller(Class<?> type, List<PropertyDescriptor> propertyDescriptors,
+			Map<Class<?>, Marshaller> marshallers, ClassDescriptorAwareSerializer serializer, SerializationStrategy serializationStrategy,
+			IntegerEncodingStrategy integerEncodingStrategy, ObjectInstantiatorFactory objectInstantiatorFactory, File debugCacheDirectory) {
 
+		classloader = getGeneratorClassLoader(type);
 		try {
-			ClassWriter cw = new ClassWriter(0);
-
 			// Copy properties and sort them by name
 			List<PropertyDescriptor> propertyDescriptorsCopy = new ArrayList<PropertyDescriptor>(propertyDescriptors);
 			Collections.sort(propertyDescriptorsCopy);
 
-			// Build className e.g. "SomeTypeMarshaller$$X$$Lightning"
-			String className = new StringBuilder(!type.isArray() ? type.getSimpleName() : type.getComponentType().getSimpleName() + "Array")
-					.append("Marshaller").append(GENEREATED_CLASS_ID.getAndIncrement()).append("Lightning").toString();
+			Class<? extends Marshaller> generatedClass;
+			synchronized (classloader) {
+				// Make marshalled types visible to the generated class, even if
+				// Lightning's class loader can't see them
+				classloader.addTypeClassLoader(getComponentType(type).getClassLoader());
+				for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+					classloader.addTypeClassLoader(getComponentType(propertyDescriptor.getType()).getClassLoader());
+				}
+
+				Object key = buildMarshallerClassKey(type, propertyDescriptorsCopy, marshallers, serializer, serializationStrategy,
+						integerEncodingStrategy);
+
+				// With a debug cache directory classes are always generated to
+				// get their bytecode dumped
+				generatedClass = debugCacheDirectory == null ? classloader.findMarshallerClass(key) : null;
+				if (generatedClass == null) {
+					generatedClass = generateMarshallerClass(type, propertyDescriptorsCopy, marshallers, serializer, serializationStrategy,
+							integerEncodingStrategy, debugCacheDirectory);
+					classloader.cacheMarshallerClass(key, generatedClass);
+				}
+			}
+
+			Constructor<? extends Marshaller> constructor = generatedClass.getConstructor(Class.class, Map.class, ClassDescriptorAwareSerializer.class,
+					ObjectInstantiatorFactory.class, List.class, MarshallerStrategy.class);
+
+			constructor.setAccessible(true);
+			return constructor.newInstance(type, marshallers, serializer, objectInstantiatorFactory, propertyDescriptorsCopy, new InternalMarshallerStrategy());
+		}
+		catch (Exception e) {
+			throw new SerializerMarshallerGeneratorException("Marshaller for type " + type + " could not be generated", e);
+		}
+		finally {
+			classloader = null;
+		}
+	}
+
+	private Class<? extends Marshaller> generateMarshallerClass(Class<?> type, List<PropertyDescriptor> propertyDescriptors,
+			Map<Class<?>, Marshaller> marshallers, ClassDescriptorAwareSerializer serializer, SerializationStrategy serializationStrategy,
+			IntegerEncodingStrategy integerEncodingStrategy, File debugCacheDirectory) throws IOException {
+
+		ClassWriter cw = new FrameComputingClassWriter();
+
+		// Build className e.g. "SomeTypeMarshaller$$X$$Lightning"
+		String className = new StringBuilder(!type.isArray() ? type.getSimpleName() : type.getComponentType().getSimpleName() + "Array")
+				.append("Marshaller").append(GENEREATED_CLASS_ID.getAndIncrement()).append("Lightning").toString();
+
+		// Build class
+		cw.visit(CLASS_FILE_VERSION, ACC_PUBLIC | ACC_SUPER | ACC_FINAL, className, null, SUPER_CLASS_INTERNAL_TYPE, null);
+
+		// Build marshaller fields
+		createMarshallerFields(cw, propertyDescriptors);
+
+		// Build constructor
+		createConstructor(cw, className, propertyDescriptors);
+
+		// Flat structs are copied as one block instead of field by field
+		ClassDescriptor classDescriptor = serializer.findClassDescriptor(type);
+		boolean flatStruct = classDescriptor != null && classDescriptor.getClassDefinition() != null
+				&& classDescriptor.getClassDefinition().getLayoutFingerprint() != 0;
+
+		// Build Marshaller#marshall method
+		createMarshallMethod(cw, className, type, serializationStrategy, integerEncodingStrategy, propertyDescriptors, marshallers, flatStruct);
 
-			// Build class
-			cw.visit(V1_6, ACC_PUBLIC & ACC_SUPER, className, null, SUPER_CLASS_INTERNAL_TYPE, null);
+		// Build Marshaller#unmarshall method
+		createUnmarshallMethod(cw, className, type, serializationStrategy, integerEncodingStrategy, propertyDescriptors, marshallers, flatStruct);
 
-			// Build marshaller fields
-			createMarshallerFields(cw, propertyDescriptorsCopy);
+		// Build AbstractGeneratedMarshaller#newInstance method
+		createNewInstanceMethod(cw, type);
 
-			// Build constructor
-			createConstructor(cw, className, propertyDescriptorsCopy);
+		// Closing class visit
+		cw.visitEnd();
 
-			// Build Marshaller#marshall method
-			createMarshallMethod(cw, className, type, serializationStrategy, propertyDescriptorsCopy);
+		final byte[] bytecode = cw.toByteArray();
 
-			// Build Marshaller#unmarshall method
-			createUnmarshallMethod(cw, className, type, propertyDescriptorsCopy);
+		if (debugCacheDirectory != null) {
+			File file = new File(debugCacheDirectory, className + ".class");
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(bytecode);
+			out.flush();
+			out.close();
+		}
 
-			// Closing class visit
-			cw.visitEnd();
+		return classloader.loadClass(bytecode);
+	}
 
-			final byte[] bytecode = cw.toByteArray();
+	private void createNewInstanceMethod(ClassWriter cw, Class<?> type) {
+		if (type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers()) || !Modifier.isPublic(type.getModifiers())
+				|| !isVisible(type)) {
+			return;
+		}
 
-			if (debugCacheDirectory != null) {
-				File file = new File(debugCacheDirectory, className + ".class");
-				FileOutputStream out = new FileOutputStream(file);
-				out.write(bytecode);
-				out.flush();
-				out.close();
+		// Instances are created like Java serialization does: only the no-arg
+		// constructor of the first non-Serializable class is called
+		Class<?> constructorType = type;
+		while (Serializable.class.isAssignableFrom(constructorType)) {
+			constructorType = constructorType.getSuperclass();
+		}
+
+		Constructor<?> constructor = null;
+		if (constructorType == type) {
+			try {
+				constructor = type.getDeclaredConstructor();
+			}
+			catch (NoSuchMethodException e) {
+				// Fallback to the ObjectInstantiator
 			}
+		}
 
-			Class<? extends Marshaller> generatedClass = classloader.loadClass(bytecode);
-			Constructor<? extends Marshaller> constructor = generatedClass.getConstructor(Class.class, Map.class, ClassDescriptorAwareSerializer.class,
-					ObjectInstantiatorFactory.class, List.class, MarshallerStrategy.class);
+		// Types without a public no-arg constructor are allocated without
+		// calling one, the same as the ObjectInstantiator would do
+		boolean invokeConstructor = constructor != null && Modifier.isPublic(constructor.getModifiers());
+		boolean allocateInstance = (constructorType == Object.class || constructorType == type) && UNSAFE != null;
+		if (!invokeConstructor && !allocateInstance) {
+			return;
+		}
 
-			constructor.setAccessible(true);
-			return constructor.newInstance(type, marshallers, serializer, objectInstantiatorFactory, propertyDescriptorsCopy, new InternalMarshallerStrategy());
+		MethodVisitor mv = cw.visitMethod(ACC_PROTECTED, "newInstance", MARSHALLER_NEW_INSTANCE_SIGNATURE, null, null);
+		mv.visitCode();
+
+		if (invokeConstructor) {
+			mv.visitTypeInsn(NEW, Type.getInternalName(type));
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(type), "<init>", "()V");
 		}
-		catch (Exception e) {
-			throw new SerializerMarshallerGeneratorException("Marshaller for type " + type + " could not be generated", e);
+		else {
+			// Allocate without calling any constructor
+			mv.visitFieldInsn(GETSTATIC, SUPER_CLASS_INTERNAL_TYPE, "UNSAFE", UNSAFE_CLASS_DESCRIPTOR);
+			mv.visitLdcInsn(Type.getType(type));
+			mv.visitMethodInsn(INVOKEVIRTUAL, UNSAFE_CLASS_INTERNAL_TYPE, "allocateInstance", UNSAFE_ALLOCATE_INSTANCE_SIGNATURE);
+		}
+
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private Object buildMarshallerClassKey(Class<?> type, List<PropertyDescriptor> propertyDescriptors, Map<Class<?>, Marshaller> marshallers,
+			ClassDescriptorAwareSerializer serializer, SerializationStrategy serializationStrategy, IntegerEncodingStrategy integerEncodingStrategy) {
+
+		// Everything the generated bytecode depends on
+		List<Object> key = new ArrayList<Object>();
+		key.add(type);
+		key.add(serializationStrategy);
+		key.add(integerEncodingStrategy);
+
+		ClassDescriptor classDescriptor = serializer.findClassDescriptor(type);
+		ClassDefinition classDefinition = classDescriptor != null ? classDescriptor.getClassDefinition() : null;
+		byte[] checksum = classDefinition != null ? classDefinition.getChecksum() : InternalUtil.getChecksum(propertyDescriptors, LOGGER);
+		key.add(ByteBuffer.wrap(checksum));
+		key.add(Long.valueOf(classDefinition != null ? classDefinition.getLayoutFingerprint() : 0L));
+
+		for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+			Marshaller marshaller = propertyDescriptor.getMarshaller();
+			key.add(propertyDescriptor.getPropertyAccessor().getClass());
+			key.add(marshaller != null ? marshaller.getClass() : null);
+			key.add(getDirectMarshallerType(propertyDescriptor, marshallers));
 		}
+		return key;
 	}
 
 	private void createMarshallerFields(ClassWriter cw, List<PropertyDescriptor> propertyDescriptors) {
@@ -146,7 +299,7 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 
 			// Load property type
 			mv.visitVarInsn(ALOAD, 5);
-			mv.visitIntInsn(BIPUSH, i);
+			visitIntConstant(mv, i);
 			mv.visitMethodInsn(INVOKEINTERFACE, LIST_CLASS_INTERNAL_TYPE, "get", "(I)Ljava/lang/Object;");
 
 			// Store PropertyDescriptor
@@ -186,7 +339,6 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 			}
 			else {
 				// Check if marshaller is defined
-				mv.visitVarInsn(ALOAD, 0);
 				mv.visitVarInsn(ALOAD, 7);
 				mv.visitMethodInsn(INVOKEINTERFACE, PROPERTYDESCRIPTOR_CLASS_INTERNAL_TYPE, "getMarshaller", PROPERTY_DESCRIPTOR_GET_MARSHALLER_SIGNATURE);
 				mv.visitTypeInsn(CHECKCAST, MARSHALLER_CLASS_INTERNAL_TYPE);
@@ -228,7 +380,8 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 	}
 
 	private void createMarshallMethod(ClassWriter cw, String className, Class<?> type, SerializationStrategy serializationStrategy,
-			List<PropertyDescriptor> propertyDescriptors) {
+			IntegerEncodingStrategy integerEncodingStrategy, List<PropertyDescriptor> propertyDescriptors, Map<Class<?>, Marshaller> marshallers,
+			boolean flatStruct) {
 
 		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "marshall", MARSHALLER_MARSHALL_SIGNATURE, null, MARSHALLER_EXCEPTIONS);
 
@@ -266,12 +419,44 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 			mv.visitLabel(notYetMarshalled);
 		}
 
-		for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-			if (propertyDescriptor.getType().isArray() && !propertyDescriptor.getType().getComponentType().isPrimitive()) {
-				visitObjectArrayPropertyAccessorRead(mv, className, propertyDescriptor);
-			}
-			else {
-				visitValuePropertyAccessorRead(mv, className, propertyDescriptor);
+		if (flatStruct) {
+			// Call super.writeFlatStruct(value, dataOutput)
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitVarInsn(ALOAD, 3);
+			mv.visitMethodInsn(INVOKEVIRTUAL, SUPER_CLASS_INTERNAL_TYPE, "writeFlatStruct", MARSHALLER_WRITE_FLAT_STRUCT_SIGNATURE);
+
+			mv.visitInsn(RETURN);
+			mv.visitMaxs(9, 9);
+			mv.visitEnd();
+			return;
+		}
+
+		// Nullable properties (and default valued primitives if size
+		// optimized) are tracked in a presence bitmap, absent properties are
+		// not written at all
+		int[] presenceBits = buildPresenceBits(serializationStrategy, propertyDescriptors);
+		int nextSlot = 11;
+
+		List<int[]> chunks = buildPropertyChunks(propertyDescriptors.size());
+		if (chunks.size() == 1) {
+			nextSlot = visitChunkMarshall(mv, className, integerEncodingStrategy, propertyDescriptors, presenceBits, chunks.get(0), 9, nextSlot,
+					marshallers);
+		}
+		else {
+			// Wide types are split into helper methods, otherwise the method
+			// would exceed the JIT's huge method limit and never be compiled.
+			// Every chunk writes its own bitmap ahead of its values so each
+			// value is only read once.
+			for (int c = 0; c < chunks.size(); c++) {
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitVarInsn(ALOAD, 2);
+				mv.visitVarInsn(ALOAD, 3);
+				mv.visitVarInsn(ALOAD, 4);
+				mv.visitMethodInsn(INVOKESPECIAL, className, "marshall" + c, MARSHALLER_MARSHALL_CHUNK_SIGNATURE);
+
+				createMarshallChunkMethod(cw, className, integerEncodingStrategy, propertyDescriptors, presenceBits, chunks.get(c), c, marshallers);
 			}
 		}
 
@@ -279,35 +464,156 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		mv.visitInsn(RETURN);
 
 		// End visiting
-		mv.visitMaxs(9, 9);
+		mv.visitMaxs(9, nextSlot);
 		mv.visitEnd();
 	}
 
-	private void visitValuePropertyAccessorRead(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor) {
+	private void createMarshallChunkMethod(ClassWriter cw, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			List<PropertyDescriptor> propertyDescriptors, int[] presenceBits, int[] chunk, int index, Map<Class<?>, Marshaller> marshallers) {
+
+		MethodVisitor mv = cw.visitMethod(ACC_PRIVATE, "marshall" + index, MARSHALLER_MARSHALL_CHUNK_SIGNATURE, null, MARSHALLER_EXCEPTIONS);
+
+		// Same local variable layout as the marshall method itself
+		int nextSlot = visitChunkMarshall(mv, className, integerEncodingStrategy, propertyDescriptors, presenceBits, chunk, 9, 11, marshallers);
+
+		mv.visitInsn(RETURN);
+
+		mv.visitMaxs(9, nextSlot);
+		mv.visitEnd();
+	}
+
+	private int visitChunkMarshall(MethodVisitor mv, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			List<PropertyDescriptor> propertyDescriptors, int[] presenceBits, int[] chunk, int bitmapSlot, int nextSlot,
+			Map<Class<?>, Marshaller> marshallers) {
+
+		int bitmapBytes = getPresenceBitmapBytes(presenceBits, chunk);
+		if (bitmapBytes > 0) {
+			mv.visitInsn(LCONST_0);
+			mv.visitVarInsn(LSTORE, bitmapSlot);
+		}
+
+		// Read tracked values once into local variables and build bitmap
+		int[] valueSlots = new int[propertyDescriptors.size()];
+		nextSlot = visitPresenceBitmapBuild(mv, className, propertyDescriptors, presenceBits, chunk, bitmapSlot, valueSlots, nextSlot);
+
+		if (bitmapBytes > 0) {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(LLOAD, bitmapSlot);
+			visitIntConstant(mv, bitmapBytes);
+			mv.visitVarInsn(ALOAD, 3);
+			mv.visitMethodInsn(INVOKEVIRTUAL, SUPER_CLASS_INTERNAL_TYPE, "writePresenceBitmap", MARSHALLER_WRITE_PRESENCE_BITMAP_SIGNATURE);
+		}
+
+		visitPropertiesMarshall(mv, className, integerEncodingStrategy, propertyDescriptors, presenceBits, chunk, bitmapSlot, valueSlots, marshallers);
+		return nextSlot;
+	}
+
+	private int visitPresenceBitmapBuild(MethodVisitor mv, String className, List<PropertyDescriptor> propertyDescriptors, int[] presenceBits,
+			int[] chunk, int bitmapSlot, int[] valueSlots, int nextSlot) {
+
+		for (int i = chunk[0]; i < chunk[1]; i++) {
+			valueSlots[i] = -1;
+			if (presenceBits[i] == -1) {
+				continue;
+			}
+
+			PropertyDescriptor propertyDescriptor = propertyDescriptors.get(i);
+			Type propertyType = Type.getType(propertyDescriptor.getType());
+			valueSlots[i] = nextSlot;
+			nextSlot += propertyType.getSize();
+
+			visitPropertyValueRead(mv, className, propertyDescriptor);
+			mv.visitVarInsn(propertyType.getOpcode(ISTORE), valueSlots[i]);
+
+			Label absent = new Label();
+			visitPresenceTest(propertyDescriptor.getType(), valueSlots[i], absent, mv);
+
+			mv.visitVarInsn(LLOAD, bitmapSlot);
+			mv.visitLdcInsn(Long.valueOf(1L << presenceBits[i]));
+			mv.visitInsn(LOR);
+			mv.visitVarInsn(LSTORE, bitmapSlot);
+
+			mv.visitLabel(absent);
+		}
+		return nextSlot;
+	}
+
+	private void visitPropertiesMarshall(MethodVisitor mv, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			List<PropertyDescriptor> propertyDescriptors, int[] presenceBits, int[] chunk, int bitmapSlot, int[] valueSlots,
+			Map<Class<?>, Marshaller> marshallers) {
+
+		for (int i = chunk[0]; i < chunk[1]; i++) {
+			PropertyDescriptor propertyDescriptor = propertyDescriptors.get(i);
+
+			Label absent = null;
+			if (presenceBits[i] != -1) {
+				absent = new Label();
+				visitPresenceBitTest(bitmapSlot, presenceBits[i], IFEQ, absent, mv);
+			}
+
+			Class<?> primitiveType = getDirectPrimitiveType(propertyDescriptor, presenceBits[i] != -1);
+			if (propertyDescriptor.getType().isArray() && !propertyDescriptor.getType().getComponentType().isPrimitive()) {
+				visitObjectArrayPropertyAccessorRead(mv, className, integerEncodingStrategy, propertyDescriptor, valueSlots[i]);
+			}
+			else if (primitiveType != null) {
+				visitPrimitivePropertyAccessorRead(mv, className, integerEncodingStrategy, propertyDescriptor, primitiveType, valueSlots[i]);
+			}
+			else {
+				visitValuePropertyAccessorRead(mv, className, propertyDescriptor, getDirectMarshallerType(propertyDescriptor, marshallers), valueSlots[i]);
+			}
+
+			if (absent != null) {
+				mv.visitLabel(absent);
+			}
+		}
+	}
+
+	private void visitPrimitivePropertyAccessorRead(MethodVisitor mv, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			PropertyDescriptor propertyDescriptor, Class<?> primitiveType, int valueSlot) {
 		Class<?> propertyType = propertyDescriptor.getType();
 
-		// Load this to method stack
-		mv.visitVarInsn(ALOAD, 0);
+		// Load LightningOutput to method stack
+		mv.visitVarInsn(ALOAD, 3);
 
-		// Load property marshaller on stack
-		mv.visitFieldInsn(GETFIELD, className, toFinalFieldName("marshaller", propertyDescriptor), MARSHALLER_CLASS_DESCRIPTOR);
+		if (valueSlot == -1) {
+			// Read value directly from instance
+			visitPropertyValueRead(mv, className, propertyDescriptor);
+		}
+		else {
+			// Load already read value to method stack
+			mv.visitVarInsn(Type.getType(propertyType).getOpcode(ILOAD), valueSlot);
+		}
 
-		// Load this to method stack
-		mv.visitVarInsn(ALOAD, 0);
+		// Present wrappers are unboxed and written without a null flag
+		if (!propertyType.isPrimitive()) {
+			visitPrimitiveAutoboxing(primitiveType, mv);
+		}
 
-		// Read PropertyAccessor from field
-		mv.visitFieldInsn(GETFIELD, className, toFinalFieldName("accessor", propertyDescriptor), PROPERTYACCESSOR_CLASS_DESCRIPTOR);
+		// Call LightningOutput#writeX
+		visitLightningOutputWrite(primitiveType, integerEncodingStrategy, mv);
+	}
+
+	private void visitValuePropertyAccessorRead(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor,
+			Class<?> directMarshallerType, int valueSlot) {
+		Class<?> propertyType = propertyDescriptor.getType();
+
+		// Load property marshaller on stack
+		visitMarshallerLoad(mv, className, propertyDescriptor, directMarshallerType);
 
 		// Load property type
-		mv.visitInsn(DUP);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, className, toFinalFieldName("accessor", propertyDescriptor), PROPERTYACCESSOR_CLASS_DESCRIPTOR);
 		mv.visitMethodInsn(INVOKEINTERFACE, PROPERTYACCESSOR_CLASS_INTERNAL_TYPE, "getType", OBJECT_GET_CLASS_SIGNATURE);
 		mv.visitVarInsn(ASTORE, 5);
 
-		// Load value to method stack
-		mv.visitVarInsn(ALOAD, 1);
-
-		// Load value by type on stack
-		visitPropertyAccessorValueRead(propertyType, mv);
+		if (valueSlot == -1) {
+			// Load value by type on stack
+			visitPropertyValueRead(mv, className, propertyDescriptor);
+		}
+		else {
+			// Load already read value to method stack
+			mv.visitVarInsn(Type.getType(propertyType).getOpcode(ILOAD), valueSlot);
+		}
 
 		// If type is primitive add some "autoboxing" magic
 		if (propertyType.isPrimitive()) {
@@ -317,17 +623,18 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		// Load type to method stack
 		mv.visitVarInsn(ALOAD, 5);
 
-		// Load DataOutput to method stack
+		// Load LightningOutput to method stack
 		mv.visitVarInsn(ALOAD, 3);
 
 		// Load SerializationContext to method stack
 		mv.visitVarInsn(ALOAD, 4);
 
 		// Call Marshaller#marshall on properties marshaller
-		mv.visitMethodInsn(INVOKEINTERFACE, MARSHALLER_CLASS_INTERNAL_TYPE, "marshall", MARSHALLER_MARSHALL_SIGNATURE);
+		visitMarshallerInvoke(mv, "marshall", MARSHALLER_MARSHALL_SIGNATURE, directMarshallerType);
 	}
 
-	private void visitObjectArrayPropertyAccessorRead(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor) {
+	private void visitObjectArrayPropertyAccessorRead(MethodVisitor mv, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			PropertyDescriptor propertyDescriptor, int valueSlot) {
 		Class<?> propertyType = propertyDescriptor.getType();
 
 		// Load this to method stack
@@ -344,11 +651,14 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		mv.visitMethodInsn(INVOKEINTERFACE, PROPERTYACCESSOR_CLASS_INTERNAL_TYPE, "getType", OBJECT_GET_CLASS_SIGNATURE);
 		mv.visitVarInsn(ASTORE, 5);
 
-		// Load value to method stack
-		mv.visitVarInsn(ALOAD, 1);
-
 		// Save array to stack position 6
-		visitPropertyAccessorValueRead(propertyType, mv);
+		mv.visitInsn(POP);
+		if (valueSlot == -1) {
+			visitPropertyValueRead(mv, className, propertyDescriptor);
+		}
+		else {
+			mv.visitVarInsn(ALOAD, valueSlot);
+		}
 		mv.visitTypeInsn(CHECKCAST, Type.getType(propertyType).getInternalName());
 		mv.visitVarInsn(ASTORE, 6);
 
@@ -356,7 +666,12 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		mv.visitVarInsn(ALOAD, 3);
 		mv.visitVarInsn(ALOAD, 6);
 		mv.visitInsn(ARRAYLENGTH);
-		mv.visitMethodInsn(INVOKEINTERFACE, DATAOUTPUT_CLASS_INTERNAL_TYPE, "writeInt", "(I)V");
+		if (integerEncodingStrategy == IntegerEncodingStrategy.Compact) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGOUTPUT_CLASS_INTERNAL_TYPE, "writeVarInt", "(I)V");
+		}
+		else {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGOUTPUT_CLASS_INTERNAL_TYPE, "writeInt", "(I)V");
+		}
 
 		// Loop over every element in array
 		Label forLoopEnd = new Label();
@@ -394,7 +709,7 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		mv.visitVarInsn(ALOAD, 5);
 		mv.visitMethodInsn(INVOKEVIRTUAL, CLASS_CLASS_INTERNAL_TYPE, "getComponentType", CLASS_GET_COMPONENT_TYPE);
 
-		// Load DataOutput to method stack
+		// Load LightningOutput to method stack
 		mv.visitVarInsn(ALOAD, 3);
 
 		// Load SerializationContext to method stack
@@ -412,17 +727,45 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		mv.visitJumpInsn(IF_ICMPLT, forLoopStart);
 	}
 
-	private void createUnmarshallMethod(ClassWriter cw, String className, Class<?> type, List<PropertyDescriptor> propertyDescriptors) {
+	private void createUnmarshallMethod(ClassWriter cw, String className, Class<?> type, SerializationStrategy serializationStrategy,
+			IntegerEncodingStrategy integerEncodingStrategy, List<PropertyDescriptor> propertyDescriptors, Map<Class<?>, Marshaller> marshallers,
+			boolean flatStruct) {
 		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "unmarshall", MARSHALLER_UNMARSHALL_SIGNATURE, null, MARSHALLER_EXCEPTIONS);
 
-		for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-			if (propertyDescriptor.getType().isArray() && !propertyDescriptor.getType().getComponentType().isPrimitive()) {
-				visitArrayPropertyAccessorWrite(mv, className, propertyDescriptor);
-			}
-			else {
-				visitValuePropertyAccessorWrite(mv, className, propertyDescriptor);
+		if (flatStruct) {
+			// Call super.readFlatStruct(value, dataInput)
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitVarInsn(ALOAD, 3);
+			mv.visitMethodInsn(INVOKEVIRTUAL, SUPER_CLASS_INTERNAL_TYPE, "readFlatStruct", MARSHALLER_READ_FLAT_STRUCT_SIGNATURE);
+
+			mv.visitVarInsn(ALOAD, 1);
+			visitReturn(type, mv);
+			mv.visitMaxs(5, 5);
+			mv.visitEnd();
+			return;
+		}
+
+		int[] presenceBits = buildPresenceBits(serializationStrategy, propertyDescriptors);
+
+		List<int[]> chunks = buildPropertyChunks(propertyDescriptors.size());
+		if (chunks.size() > 1) {
+			// Wide types are split into helper methods, see
+			// createMarshallMethod
+			for (int c = 0; c < chunks.size(); c++) {
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitVarInsn(ALOAD, 2);
+				mv.visitVarInsn(ALOAD, 3);
+				mv.visitVarInsn(ALOAD, 4);
+				mv.visitMethodInsn(INVOKESPECIAL, className, "unmarshall" + c, MARSHALLER_UNMARSHALL_CHUNK_SIGNATURE);
+
+				createUnmarshallChunkMethod(cw, className, integerEncodingStrategy, propertyDescriptors, presenceBits, chunks.get(c), c, marshallers);
 			}
 		}
+		else {
+			visitChunkUnmarshall(mv, className, integerEncodingStrategy, propertyDescriptors, presenceBits, chunks.get(0), 11, marshallers);
+		}
 
 		// Load instance to method stack
 		mv.visitVarInsn(ALOAD, 1);
@@ -431,11 +774,100 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		visitReturn(type, mv);
 
 		// End visiting
-		mv.visitMaxs(11, 11);
+		mv.visitMaxs(11, 13);
 		mv.visitEnd();
 	}
 
-	private void visitValuePropertyAccessorWrite(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor) {
+	private void createUnmarshallChunkMethod(ClassWriter cw, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			List<PropertyDescriptor> propertyDescriptors, int[] presenceBits, int[] chunk, int index, Map<Class<?>, Marshaller> marshallers) {
+
+		MethodVisitor mv = cw.visitMethod(ACC_PRIVATE, "unmarshall" + index, MARSHALLER_UNMARSHALL_CHUNK_SIGNATURE, null, MARSHALLER_EXCEPTIONS);
+
+		// Same local variable layout as the unmarshall method itself
+		visitChunkUnmarshall(mv, className, integerEncodingStrategy, propertyDescriptors, presenceBits, chunk, 11, marshallers);
+
+		mv.visitInsn(RETURN);
+
+		mv.visitMaxs(11, 13);
+		mv.visitEnd();
+	}
+
+	private void visitChunkUnmarshall(MethodVisitor mv, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			List<PropertyDescriptor> propertyDescriptors, int[] presenceBits, int[] chunk, int bitmapSlot, Map<Class<?>, Marshaller> marshallers) {
+
+		int bitmapBytes = getPresenceBitmapBytes(presenceBits, chunk);
+		if (bitmapBytes > 0) {
+			mv.visitVarInsn(ALOAD, 0);
+			visitIntConstant(mv, bitmapBytes);
+			mv.visitVarInsn(ALOAD, 3);
+			mv.visitMethodInsn(INVOKEVIRTUAL, SUPER_CLASS_INTERNAL_TYPE, "readPresenceBitmap", MARSHALLER_READ_PRESENCE_BITMAP_SIGNATURE);
+			mv.visitVarInsn(LSTORE, bitmapSlot);
+		}
+
+		visitPropertiesUnmarshall(mv, className, integerEncodingStrategy, propertyDescriptors, presenceBits, chunk, bitmapSlot, marshallers);
+	}
+
+	private void visitPropertiesUnmarshall(MethodVisitor mv, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			List<PropertyDescriptor> propertyDescriptors, int[] presenceBits, int[] chunk, int bitmapSlot, Map<Class<?>, Marshaller> marshallers) {
+
+		for (int i = chunk[0]; i < chunk[1]; i++) {
+			PropertyDescriptor propertyDescriptor = propertyDescriptors.get(i);
+			boolean tracked = presenceBits[i] != -1;
+
+			Label end = null;
+			if (tracked) {
+				Label present = new Label();
+				end = new Label();
+				visitPresenceBitTest(bitmapSlot, presenceBits[i], IFNE, present, mv);
+
+				// Absent properties are explicitly reset since instances
+				// might be created using a constructor
+				visitPropertyValueWriteStart(mv, className, propertyDescriptor);
+				visitDefaultValue(propertyDescriptor.getType(), mv);
+				visitPropertyValueWriteEnd(mv, propertyDescriptor);
+				mv.visitJumpInsn(GOTO, end);
+
+				mv.visitLabel(present);
+			}
+
+			Class<?> primitiveType = getDirectPrimitiveType(propertyDescriptor, tracked);
+			if (propertyDescriptor.getType().isArray() && !propertyDescriptor.getType().getComponentType().isPrimitive()) {
+				visitArrayPropertyAccessorWrite(mv, className, integerEncodingStrategy, propertyDescriptor);
+			}
+			else if (primitiveType != null) {
+				visitPrimitivePropertyAccessorWrite(mv, className, integerEncodingStrategy, propertyDescriptor, primitiveType);
+			}
+			else {
+				visitValuePropertyAccessorWrite(mv, className, propertyDescriptor, getDirectMarshallerType(propertyDescriptor, marshallers));
+			}
+
+			if (end != null) {
+				mv.visitLabel(end);
+			}
+		}
+	}
+
+	private void visitPrimitivePropertyAccessorWrite(MethodVisitor mv, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			PropertyDescriptor propertyDescriptor, Class<?> primitiveType) {
+		Class<?> propertyType = propertyDescriptor.getType();
+
+		// Prepare property write
+		visitPropertyValueWriteStart(mv, className, propertyDescriptor);
+
+		// Call LightningInput#readX
+		mv.visitVarInsn(ALOAD, 3);
+		visitLightningInputRead(primitiveType, integerEncodingStrategy, mv);
+
+		// Present wrappers were written without a null flag
+		if (!propertyType.isPrimitive()) {
+			visitWrapperAutoboxing(primitiveType, mv);
+		}
+
+		// Write value to instance
+		visitPropertyValueWriteEnd(mv, propertyDescriptor);
+	}
+
+	private void visitValuePropertyAccessorWrite(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor, Class<?> directMarshallerType) {
 		Class<?> propertyType = propertyDescriptor.getType();
 
 		// Load this to method stack
@@ -447,11 +879,8 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		// Store PropertyAccessor for later use
 		mv.visitVarInsn(ASTORE, 5);
 
-		// Load this to method stack
-		mv.visitVarInsn(ALOAD, 0);
-
 		// Load property marshaller to method stack
-		mv.visitFieldInsn(GETFIELD, className, toFinalFieldName("marshaller", propertyDescriptor), MARSHALLER_CLASS_DESCRIPTOR);
+		visitMarshallerLoad(mv, className, propertyDescriptor, directMarshallerType);
 
 		// Load PropertyAccessor to method stack
 		mv.visitVarInsn(ALOAD, 5);
@@ -459,23 +888,20 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		// Load Type from PropertyAccessor to method stack
 		mv.visitMethodInsn(INVOKEINTERFACE, PROPERTYACCESSOR_CLASS_INTERNAL_TYPE, "getType", OBJECT_GET_CLASS_SIGNATURE);
 
-		// Load DataInput to method stack
+		// Load LightningInput to method stack
 		mv.visitVarInsn(ALOAD, 3);
 
 		// Load SerializationContext to method stack
 		mv.visitVarInsn(ALOAD, 4);
 
 		// Call Marshaller#unmarshall on properties marshaller
-		mv.visitMethodInsn(INVOKEINTERFACE, MARSHALLER_CLASS_INTERNAL_TYPE, "unmarshall", MARSHALLER_BASE_UNMARSHALL_SIGNATURE);
+		visitMarshallerInvoke(mv, "unmarshall", MARSHALLER_BASE_UNMARSHALL_SIGNATURE, directMarshallerType);
 
 		// Save value
 		mv.visitVarInsn(ASTORE, 6);
 
-		// Load PropertyAccessor to method stack
-		mv.visitVarInsn(ALOAD, 5);
-
-		// Load instance to method stack
-		mv.visitVarInsn(ALOAD, 1);
+		// Prepare property write
+		visitPropertyValueWriteStart(mv, className, propertyDescriptor);
 
 		// Load value to method stack
 		mv.visitVarInsn(ALOAD, 6);
@@ -485,17 +911,23 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 			visitPrimitiveAutoboxing(propertyType, mv);
 		}
 
-		// Call PropertyAccessor#writeX
-		visitPropertyAccessorValueWrite(propertyType, mv);
+		// Write value to instance
+		visitPropertyValueWriteEnd(mv, propertyDescriptor);
 	}
 
-	private void visitArrayPropertyAccessorWrite(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor) {
+	private void visitArrayPropertyAccessorWrite(MethodVisitor mv, String className, IntegerEncodingStrategy integerEncodingStrategy,
+			PropertyDescriptor propertyDescriptor) {
 		Class<?> propertyType = propertyDescriptor.getType();
 		Class<?> componentType = propertyType.getComponentType();
 
 		// Read size
 		mv.visitVarInsn(ALOAD, 3);
-		mv.visitMethodInsn(INVOKEINTERFACE, DATAINPUT_CLASS_INTERNAL_TYPE, "readInt", "()I");
+		if (integerEncodingStrategy == IntegerEncodingStrategy.Compact) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readVarInt", "()I");
+		}
+		else {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readInt", "()I");
+		}
 		mv.visitInsn(DUP);
 		mv.visitVarInsn(ISTORE, 5);
 
@@ -551,10 +983,9 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		mv.visitJumpInsn(IF_ICMPLT, forLoopStart);
 
 		// Write array to object
-		mv.visitVarInsn(ALOAD, 9);
-		mv.visitVarInsn(ALOAD, 1);
+		visitPropertyValueWriteStart(mv, className, propertyDescriptor);
 		mv.visitVarInsn(ALOAD, 6);
-		visitPropertyAccessorValueWrite(propertyType.getComponentType(), mv);
+		visitPropertyValueWriteEnd(mv, propertyDescriptor);
 	}
 
 	private void visitReturn(Class<?> type, MethodVisitor mv) {
@@ -591,6 +1022,187 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		mv.visitInsn(returnOpcode);
 	}
 
+	private void visitPropertyValueRead(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor) {
+		Field field = getInlineableField(propertyDescriptor);
+		MethodValuePropertyAccessor methodAccessor = getInvokableMethodAccessor(propertyDescriptor);
+		if (methodAccessor != null) {
+			Method getter = methodAccessor.getGetterMethod();
+			String owner = Type.getInternalName(getter.getDeclaringClass());
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, owner);
+			mv.visitMethodInsn(INVOKEVIRTUAL, owner, getter.getName(), Type.getMethodDescriptor(getter));
+		}
+		else if (field != null && isDirectlyAccessible(field)) {
+			String owner = Type.getInternalName(field.getDeclaringClass());
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, owner);
+			mv.visitFieldInsn(GETFIELD, owner, field.getName(), Type.getDescriptor(field.getType()));
+		}
+		else if (field != null) {
+			mv.visitFieldInsn(GETSTATIC, SUPER_CLASS_INTERNAL_TYPE, "UNSAFE", UNSAFE_CLASS_DESCRIPTOR);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitLdcInsn(Long.valueOf(UNSAFE.objectFieldOffset(field)));
+			Type unsafeType = getUnsafeAccessType(field.getType());
+			mv.visitMethodInsn(INVOKEVIRTUAL, UNSAFE_CLASS_INTERNAL_TYPE, "get" + getUnsafeAccessName(unsafeType),
+					Type.getMethodDescriptor(unsafeType, new Type[] { Type.getType(Object.class), Type.LONG_TYPE }));
+		}
+		else {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, className, toFinalFieldName("accessor", propertyDescriptor), PROPERTYACCESSOR_CLASS_DESCRIPTOR);
+			mv.visitVarInsn(ALOAD, 1);
+			visitPropertyAccessorValueRead(propertyDescriptor.getType(), mv);
+		}
+	}
+
+	private void visitPropertyValueWriteStart(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor) {
+		Field field = getInlineableField(propertyDescriptor);
+		MethodValuePropertyAccessor methodAccessor = getInvokableMethodAccessor(propertyDescriptor);
+		if (methodAccessor != null) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(methodAccessor.getSetterMethod().getDeclaringClass()));
+		}
+		else if (field != null && isDirectlyAccessible(field)) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(field.getDeclaringClass()));
+		}
+		else if (field != null) {
+			mv.visitFieldInsn(GETSTATIC, SUPER_CLASS_INTERNAL_TYPE, "UNSAFE", UNSAFE_CLASS_DESCRIPTOR);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitLdcInsn(Long.valueOf(UNSAFE.objectFieldOffset(field)));
+		}
+		else {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, className, toFinalFieldName("accessor", propertyDescriptor), PROPERTYACCESSOR_CLASS_DESCRIPTOR);
+			mv.visitVarInsn(ALOAD, 1);
+		}
+	}
+
+	private void visitPropertyValueWriteEnd(MethodVisitor mv, PropertyDescriptor propertyDescriptor) {
+		Field field = getInlineableField(propertyDescriptor);
+		MethodValuePropertyAccessor methodAccessor = getInvokableMethodAccessor(propertyDescriptor);
+		if (methodAccessor != null) {
+			Method setter = methodAccessor.getSetterMethod();
+			Class<?> parameterType = setter.getParameterTypes()[0];
+			if (!parameterType.isPrimitive()) {
+				mv.visitTypeInsn(CHECKCAST, Type.getInternalName(parameterType));
+			}
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(setter.getDeclaringClass()), setter.getName(), Type.getMethodDescriptor(setter));
+
+			// Drop the result of fluent setters
+			Class<?> returnType = setter.getReturnType();
+			if (returnType != void.class) {
+				mv.visitInsn(returnType == long.class || returnType == double.class ? POP2 : POP);
+			}
+		}
+		else if (field != null && isDirectlyAccessible(field)) {
+			if (!field.getType().isPrimitive()) {
+				mv.visitTypeInsn(CHECKCAST, Type.getInternalName(field.getType()));
+			}
+			mv.visitFieldInsn(PUTFIELD, Type.getInternalName(field.getDeclaringClass()), field.getName(), Type.getDescriptor(field.getType()));
+		}
+		else if (field != null) {
+			Type unsafeType = getUnsafeAccessType(field.getType());
+			mv.visitMethodInsn(INVOKEVIRTUAL, UNSAFE_CLASS_INTERNAL_TYPE, "put" + getUnsafeAccessName(unsafeType),
+					Type.getMethodDescriptor(Type.VOID_TYPE, new Type[] { Type.getType(Object.class), Type.LONG_TYPE, unsafeType }));
+		}
+		else {
+			visitPropertyAccessorValueWrite(propertyDescriptor.getType(), mv);
+		}
+	}
+
+	private Field getInlineableField(PropertyDescriptor propertyDescriptor) {
+		// Only field accessors can be inlined, methods are handled by
+		// getInvokableMethodAccessor
+		PropertyAccessor propertyAccessor = propertyDescriptor.getPropertyAccessor();
+		if (!(propertyAccessor instanceof FieldValuePropertyAccessor)) {
+			return null;
+		}
+
+		Field field = ((FieldValuePropertyAccessor) propertyAccessor).getField();
+		return UNSAFE != null || isDirectlyAccessible(field) ? field : null;
+	}
+
+	private MethodValuePropertyAccessor getInvokableMethodAccessor(PropertyDescriptor propertyDescriptor) {
+		// Public getters and setters of visible types are called directly
+		// instead of through the PropertyAccessor
+		PropertyAccessor propertyAccessor = propertyDescriptor.getPropertyAccessor();
+		if (!(propertyAccessor instanceof MethodValuePropertyAccessor)) {
+			return null;
+		}
+
+		MethodValuePropertyAccessor methodAccessor = (MethodValuePropertyAccessor) propertyAccessor;
+		Method getter = methodAccessor.getGetterMethod();
+		Method setter = methodAccessor.getSetterMethod();
+		if (getter == null || setter == null || !isDirectlyInvokable(getter) || !isDirectlyInvokable(setter)) {
+			return null;
+		}
+
+		return isVisible(getter.getReturnType()) && isVisible(setter.getParameterTypes()[0]) ? methodAccessor : null;
+	}
+
+	private boolean isDirectlyInvokable(Method method) {
+		int modifiers = method.getModifiers();
+		Class<?> declaringClass = method.getDeclaringClass();
+		if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || declaringClass.isInterface()
+				|| !Modifier.isPublic(declaringClass.getModifiers())) {
+			return false;
+		}
+
+		return isVisible(declaringClass);
+	}
+
+	private boolean isDirectlyAccessible(Field field) {
+		int modifiers = field.getModifiers();
+		Class<?> declaringClass = field.getDeclaringClass();
+		if (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers) || !Modifier.isPublic(declaringClass.getModifiers())) {
+			return false;
+		}
+
+		return isVisible(declaringClass) && isVisible(field.getType());
+	}
+
+	private boolean isVisible(Class<?> type) {
+		type = getComponentType(type);
+
+		if (type.isPrimitive()) {
+			return true;
+		}
+
+		try {
+			return Class.forName(type.getName(), false, classloader) == type;
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private Type getUnsafeAccessType(Class<?> type) {
+		return type.isPrimitive() ? Type.getType(type) : Type.getType(Object.class);
+	}
+
+	private String getUnsafeAccessName(Type type) {
+		switch (type.getSort()) {
+			case Type.BOOLEAN:
+				return "Boolean";
+			case Type.BYTE:
+				return "Byte";
+			case Type.CHAR:
+				return "Char";
+			case Type.SHORT:
+				return "Short";
+			case Type.INT:
+				return "Int";
+			case Type.LONG:
+				return "Long";
+			case Type.FLOAT:
+				return "Float";
+			case Type.DOUBLE:
+				return "Double";
+			default:
+				return "Object";
+		}
+	}
+
 	private void visitPropertyAccessorValueRead(Class<?> type, MethodVisitor mv) {
 		String methodName = null;
 		String methodSignature = null;
@@ -741,10 +1353,290 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		}
 	}
 
+	private int[] buildPresenceBits(SerializationStrategy serializationStrategy, List<PropertyDescriptor> propertyDescriptors) {
+		// Bits are numbered per chunk, every chunk has its own bitmap
+		int[] presenceBits = new int[propertyDescriptors.size()];
+		int nextBit = 0;
+		for (int i = 0; i < propertyDescriptors.size(); i++) {
+			if (i % MAX_PROPERTIES_PER_METHOD == 0) {
+				nextBit = 0;
+			}
+
+			Class<?> propertyType = propertyDescriptors.get(i).getType();
+			if (!propertyType.isPrimitive() || serializationStrategy == SerializationStrategy.SizeOptimized) {
+				presenceBits[i] = nextBit++;
+			}
+			else {
+				presenceBits[i] = -1;
+			}
+		}
+		return presenceBits;
+	}
+
+	private void visitIntConstant(MethodVisitor mv, int value) {
+		// BIPUSH only takes a signed byte, wider classes need SIPUSH or LDC
+		if (value >= -1 && value <= 5) {
+			mv.visitInsn(ICONST_0 + value);
+		}
+		else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			mv.visitIntInsn(BIPUSH, value);
+		}
+		else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			mv.visitIntInsn(SIPUSH, value);
+		}
+		else {
+			mv.visitLdcInsn(Integer.valueOf(value));
+		}
+	}
+
+	private int getPresenceBitmapBytes(int[] presenceBits, int[] chunk) {
+		int bits = 0;
+		for (int i = chunk[0]; i < chunk[1]; i++) {
+			if (presenceBits[i] != -1) {
+				bits++;
+			}
+		}
+		return (bits + 7) / 8;
+	}
+
+	private List<int[]> buildPropertyChunks(int propertyCount) {
+		List<int[]> chunks = new ArrayList<int[]>();
+		int start = 0;
+		do {
+			int end = Math.min(propertyCount, start + MAX_PROPERTIES_PER_METHOD);
+			chunks.add(new int[] { start, end });
+			start = end;
+		}
+		while (start < propertyCount);
+		return chunks;
+	}
+
+	private void visitPresenceBitTest(int bitmapSlot, int presenceBit, int jumpOpcode, Label label, MethodVisitor mv) {
+		mv.visitVarInsn(LLOAD, bitmapSlot);
+		mv.visitLdcInsn(Long.valueOf(1L << presenceBit));
+		mv.visitInsn(LAND);
+		mv.visitInsn(LCONST_0);
+		mv.visitInsn(LCMP);
+		mv.visitJumpInsn(jumpOpcode, label);
+	}
+
+	private void visitPresenceTest(Class<?> type, int valueSlot, Label absent, MethodVisitor mv) {
+		if (!type.isPrimitive()) {
+			mv.visitVarInsn(ALOAD, valueSlot);
+			mv.visitJumpInsn(IFNULL, absent);
+		}
+		else if (type == long.class) {
+			mv.visitVarInsn(LLOAD, valueSlot);
+			mv.visitInsn(LCONST_0);
+			mv.visitInsn(LCMP);
+			mv.visitJumpInsn(IFEQ, absent);
+		}
+		else if (type == float.class) {
+			// Compare raw bits to not lose -0.0
+			mv.visitVarInsn(FLOAD, valueSlot);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "floatToRawIntBits", "(F)I");
+			mv.visitJumpInsn(IFEQ, absent);
+		}
+		else if (type == double.class) {
+			mv.visitVarInsn(DLOAD, valueSlot);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "doubleToRawLongBits", "(D)J");
+			mv.visitInsn(LCONST_0);
+			mv.visitInsn(LCMP);
+			mv.visitJumpInsn(IFEQ, absent);
+		}
+		else {
+			mv.visitVarInsn(ILOAD, valueSlot);
+			mv.visitJumpInsn(IFEQ, absent);
+		}
+	}
+
+	private void visitDefaultValue(Class<?> type, MethodVisitor mv) {
+		if (!type.isPrimitive()) {
+			mv.visitInsn(ACONST_NULL);
+		}
+		else if (type == long.class) {
+			mv.visitInsn(LCONST_0);
+		}
+		else if (type == float.class) {
+			mv.visitInsn(FCONST_0);
+		}
+		else if (type == double.class) {
+			mv.visitInsn(DCONST_0);
+		}
+		else {
+			mv.visitInsn(ICONST_0);
+		}
+	}
+
+	private Class<?> getDirectMarshallerType(PropertyDescriptor propertyDescriptor, Map<Class<?>, Marshaller> marshallers) {
+		// Values of final types can only be handled by the marshaller of
+		// exactly that type, if it was generated by this generator its
+		// concrete class can be called directly
+		Class<?> propertyType = propertyDescriptor.getType();
+		if (propertyType.isPrimitive() || propertyType.isArray() || !Modifier.isFinal(propertyType.getModifiers())) {
+			return null;
+		}
+
+		Marshaller marshaller = propertyDescriptor.getMarshaller();
+		if (marshaller == null) {
+			marshaller = marshallers.get(propertyType);
+		}
+
+		if (!(marshaller instanceof AbstractGeneratedMarshaller) || marshaller.getClass().getClassLoader() != classloader) {
+			return null;
+		}
+
+		return marshaller.getClass();
+	}
+
+	private void visitMarshallerLoad(MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor, Class<?> directMarshallerType) {
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, className, toFinalFieldName("marshaller", propertyDescriptor), MARSHALLER_CLASS_DESCRIPTOR);
+		if (directMarshallerType != null) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(directMarshallerType));
+		}
+	}
+
+	private void visitMarshallerInvoke(MethodVisitor mv, String methodName, String methodSignature, Class<?> directMarshallerType) {
+		if (directMarshallerType != null) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(directMarshallerType), methodName, methodSignature);
+		}
+		else {
+			mv.visitMethodInsn(INVOKEINTERFACE, MARSHALLER_CLASS_INTERNAL_TYPE, methodName, methodSignature);
+		}
+	}
+
+	private Class<?> getDirectPrimitiveType(PropertyDescriptor propertyDescriptor, boolean tracked) {
+		// Only properties handled by build-in marshallers are written
+		// directly, user defined marshallers might use a different format
+		Marshaller marshaller = propertyDescriptor.getMarshaller();
+		if (!InternalMarshallerStrategy.isBuiltInPrimitiveMarshaller(marshaller)) {
+			return null;
+		}
+
+		// Wrappers can only be written directly if tracked as non-null
+		Class<?> propertyType = propertyDescriptor.getType();
+		Class<?> primitiveType = propertyType.isPrimitive() ? propertyType : tracked ? ClassUtil.getPrimitiveType(propertyType) : null;
+		return primitiveType != null && marshaller.acceptType(primitiveType) ? primitiveType : null;
+	}
+
+	private void visitLightningOutputWrite(Class<?> type, IntegerEncodingStrategy integerEncodingStrategy, MethodVisitor mv) {
+		boolean compact = integerEncodingStrategy == IntegerEncodingStrategy.Compact;
+		String methodName = null;
+		String methodSignature = null;
+
+		if (type == boolean.class) {
+			methodName = "writeBoolean";
+			methodSignature = "(Z)V";
+		}
+		else if (type == byte.class) {
+			methodName = "writeByte";
+			methodSignature = "(I)V";
+		}
+		else if (type == char.class) {
+			methodName = compact ? "writeVarInt" : "writeChar";
+			methodSignature = "(I)V";
+		}
+		else if (type == short.class) {
+			methodName = compact ? "writeSignedVarInt" : "writeShort";
+			methodSignature = "(I)V";
+		}
+		else if (type == int.class) {
+			methodName = compact ? "writeSignedVarInt" : "writeInt";
+			methodSignature = "(I)V";
+		}
+		else if (type == long.class) {
+			methodName = compact ? "writeSignedVarLong" : "writeLong";
+			methodSignature = "(J)V";
+		}
+		else if (type == float.class) {
+			methodName = "writeFloat";
+			methodSignature = "(F)V";
+		}
+		else {
+			methodName = "writeDouble";
+			methodSignature = "(D)V";
+		}
+
+		mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGOUTPUT_CLASS_INTERNAL_TYPE, methodName, methodSignature);
+	}
+
+	private void visitLightningInputRead(Class<?> type, IntegerEncodingStrategy integerEncodingStrategy, MethodVisitor mv) {
+		boolean compact = integerEncodingStrategy == IntegerEncodingStrategy.Compact;
+
+		if (type == boolean.class) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readBoolean", "()Z");
+		}
+		else if (type == byte.class) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readByte", "()B");
+		}
+		else if (type == char.class && compact) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readVarInt", "()I");
+			mv.visitInsn(I2C);
+		}
+		else if (type == char.class) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readChar", "()C");
+		}
+		else if (type == short.class && compact) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readSignedVarInt", "()I");
+			mv.visitInsn(I2S);
+		}
+		else if (type == short.class) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readShort", "()S");
+		}
+		else if (type == int.class) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, compact ? "readSignedVarInt" : "readInt", "()I");
+		}
+		else if (type == long.class) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, compact ? "readSignedVarLong" : "readLong", "()J");
+		}
+		else if (type == float.class) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readFloat", "()F");
+		}
+		else {
+			mv.visitMethodInsn(INVOKEVIRTUAL, LIGHTNINGINPUT_CLASS_INTERNAL_TYPE, "readDouble", "()D");
+		}
+	}
+
 	private String toFinalFieldName(String prefix, PropertyDescriptor propertyDescriptor) {
 		return new StringBuilder(prefix.toUpperCase()).append("_").append(propertyDescriptor.getPropertyName().toUpperCase()).append("_LIGHTNING").toString();
 	}
 
+	private static GeneratorClassLoader getGeneratorClassLoader(Class<?> type) {
+		ClassLoader typeClassLoader = getComponentType(type).getClassLoader();
+		if (typeClassLoader == null) {
+			typeClassLoader = BytecodeMarshallerGenerator.class.getClassLoader();
+		}
+
+		synchronized (CLASS_LOADERS) {
+			WeakReference<GeneratorClassLoader> reference = CLASS_LOADERS.get(typeClassLoader);
+			GeneratorClassLoader classloader = reference != null ? reference.get() : null;
+			if (classloader == null) {
+				classloader = CreateClassLoader.createClassLoader(BytecodeMarshallerGenerator.class.getClassLoader());
+				CLASS_LOADERS.put(typeClassLoader, new WeakReference<GeneratorClassLoader>(classloader));
+			}
+			return classloader;
+		}
+	}
+
+	private static Class<?> getComponentType(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		return type;
+	}
+
+	private static boolean isStackMapFrameVersionSupported() {
+		try {
+			// Only available since Java 7
+			Class.forName("java.lang.invoke.MethodHandle");
+			return true;
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
 	protected void visitSystemOutPrintln(MethodVisitor mv, int stackPosition) {
 		mv.visitVarInsn(ASTORE, stackPosition);
 		mv.visitFieldInsn(GETSTATIC, Type.getType(System.class).getInternalName(), "out", Type.getType(PrintStream.class).getDescriptor());
@@ -753,4 +1645,43 @@ public class BytecodeMarshallerGenerator implements Opcodes, GeneratorConstants,
 		mv.visitMethodInsn(INVOKEVIRTUAL, Type.getType(PrintStream.class).getInternalName(), "println", "(Ljava/lang/String;)V");
 		mv.visitVarInsn(ALOAD, stackPosition);
 	}
+
+	private class FrameComputingClassWriter extends ClassWriter {
+
+		private FrameComputingClassWriter() {
+			super(COMPUTE_FRAMES);
+		}
+
+		@Override
+		protected String getCommonSuperClass(String type1, String type2) {
+			// Resolve types using the generator class loader since ASM's own
+			// class loader might not see the marshalled types
+			try {
+				Class<?> class1 = Class.forName(type1.replace('/', '.'), false, classloader);
+				Class<?> class2 = Class.forName(type2.replace('/', '.'), false, classloader);
+				if (class1.isAssignableFrom(class2)) {
+					return type1;
+				}
+
+				if (class2.isAssignableFrom(class1)) {
+					return type2;
+				}
+
+				if (class1.isInterface() || class2.isInterface()) {
+					return OBJECT_CLASS_INTERNAL_TYPE;
+				}
+
+				do {
+					class1 = class1.getSuperclass();
+				}
+				while (!class1.isAssignableFrom(class2));
+
+				return Type.getInternalName(class1);
+			}
+			catch (ClassNotFoundException e) {
+				// Not yet defined types (like the generated class itself)
+				return OBJECT_CLASS_INTERNAL_TYPE;
+			}
+		}
+	}
 }
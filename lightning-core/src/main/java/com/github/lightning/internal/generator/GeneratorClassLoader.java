@@ -15,12 +15,65 @@
  */
 package com.github.lightning.internal.generator;
 
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.github.lightning.Marshaller;
+
 public class GeneratorClassLoader extends ClassLoader {
 
+	// Class loaders of the marshalled types (e.g. of plugins), generated
+	// classes keep the types they use alive themselves
+	private final List<WeakReference<ClassLoader>> typeClassLoaders = new CopyOnWriteArrayList<WeakReference<ClassLoader>>();
+
+	private final Map<Object, Class<? extends Marshaller>> marshallerClasses = new HashMap<Object, Class<? extends Marshaller>>();
+
 	public GeneratorClassLoader(final ClassLoader classLoader) {
 		super(classLoader);
 	}
 
+	public void addTypeClassLoader(ClassLoader classLoader) {
+		if (classLoader == null || classLoader == getParent()) {
+			return;
+		}
+
+		for (WeakReference<ClassLoader> reference : typeClassLoaders) {
+			if (reference.get() == classLoader) {
+				return;
+			}
+		}
+		typeClassLoaders.add(new WeakReference<ClassLoader>(classLoader));
+	}
+
+	public synchronized Class<? extends Marshaller> findMarshallerClass(Object key) {
+		return marshallerClasses.get(key);
+	}
+
+	public synchronized void cacheMarshallerClass(Object key, Class<? extends Marshaller> marshallerClass) {
+		marshallerClasses.put(key, marshallerClass);
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		for (WeakReference<ClassLoader> reference : typeClassLoaders) {
+			ClassLoader classLoader = reference.get();
+			if (classLoader == null) {
+				continue;
+			}
+
+			try {
+				return Class.forName(name, false, classLoader);
+			}
+			catch (ClassNotFoundException e) {
+				// Try next class loader
+			}
+		}
+		return super.findClass(name);
+	}
+
 	@SuppressWarnings("unchecked")
 	public <T> Class<T> loadClass(final byte[] data) {
 		return (Class<T>) defineClass(null, data, 0, data.length);
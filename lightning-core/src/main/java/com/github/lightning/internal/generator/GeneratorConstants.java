@@ -15,8 +15,6 @@
  */
 package com.github.lightning.internal.generator;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +28,8 @@ import com.github.lightning.MarshallerStrategy;
 import com.github.lightning.SerializationContext;
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
 import com.github.lightning.internal.ClassDescriptorAwareSerializer;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.metadata.ArrayPropertyAccessor;
 import com.github.lightning.metadata.PropertyAccessor;
 import com.github.lightning.metadata.PropertyDescriptor;
@@ -38,13 +38,13 @@ import com.github.lightning.metadata.ValuePropertyAccessor;
 public interface GeneratorConstants {
 
 	static String MARSHALLER_MARSHALL_SIGNATURE = Type.getMethodDescriptor(Type.VOID_TYPE, new Type[] { Type.getType(Object.class), Type.getType(Class.class),
-			Type.getType(DataOutput.class), Type.getType(SerializationContext.class) });
+			Type.getType(LightningOutput.class), Type.getType(SerializationContext.class) });
 
 	static String MARSHALLER_BASE_UNMARSHALL_SIGNATURE = Type.getMethodDescriptor(Type.getType(Object.class),
-			new Type[] { Type.getType(Class.class), Type.getType(DataInput.class), Type.getType(SerializationContext.class) });
+			new Type[] { Type.getType(Class.class), Type.getType(LightningInput.class), Type.getType(SerializationContext.class) });
 
 	static String MARSHALLER_UNMARSHALL_SIGNATURE = Type.getMethodDescriptor(Type.getType(Object.class),
-			new Type[] { Type.getType(Object.class), Type.getType(Class.class), Type.getType(DataInput.class), Type.getType(SerializationContext.class) });
+			new Type[] { Type.getType(Object.class), Type.getType(Class.class), Type.getType(LightningInput.class), Type.getType(SerializationContext.class) });
 
 	static String MARSHALLER_FIND_MARSHALLER_SIGNATURE = Type.getMethodDescriptor(Type.getType(Marshaller.class), new Type[] { Type.getType(Class.class) });
 
@@ -52,7 +52,29 @@ public interface GeneratorConstants {
 			new Type[] { Type.getType(String.class) });
 
 	static String MARSHALLER_IS_ALREADY_MARSHALLED_SIGNATURE = Type.getMethodDescriptor(Type.BOOLEAN_TYPE,
-			new Type[] { Type.getType(Object.class), Type.getType(Class.class), Type.getType(DataOutput.class), Type.getType(SerializationContext.class) });
+			new Type[] { Type.getType(Object.class), Type.getType(Class.class), Type.getType(LightningOutput.class), Type.getType(SerializationContext.class) });
+
+	static String MARSHALLER_WRITE_PRESENCE_BITMAP_SIGNATURE = Type.getMethodDescriptor(Type.VOID_TYPE,
+			new Type[] { Type.LONG_TYPE, Type.INT_TYPE, Type.getType(LightningOutput.class) });
+
+	static String MARSHALLER_READ_PRESENCE_BITMAP_SIGNATURE = Type.getMethodDescriptor(Type.LONG_TYPE,
+			new Type[] { Type.INT_TYPE, Type.getType(LightningInput.class) });
+
+	static String MARSHALLER_MARSHALL_CHUNK_SIGNATURE = Type.getMethodDescriptor(Type.VOID_TYPE, new Type[] { Type.getType(Object.class),
+			Type.getType(Class.class), Type.getType(LightningOutput.class), Type.getType(SerializationContext.class) });
+
+	static String MARSHALLER_UNMARSHALL_CHUNK_SIGNATURE = Type.getMethodDescriptor(Type.VOID_TYPE, new Type[] { Type.getType(Object.class),
+			Type.getType(Class.class), Type.getType(LightningInput.class), Type.getType(SerializationContext.class) });
+
+	static String MARSHALLER_WRITE_FLAT_STRUCT_SIGNATURE = Type.getMethodDescriptor(Type.VOID_TYPE, new Type[] { Type.getType(Object.class),
+			Type.getType(LightningOutput.class) });
+
+	static String MARSHALLER_READ_FLAT_STRUCT_SIGNATURE = Type.getMethodDescriptor(Type.VOID_TYPE, new Type[] { Type.getType(Object.class),
+			Type.getType(LightningInput.class) });
+
+	static String MARSHALLER_NEW_INSTANCE_SIGNATURE = Type.getMethodDescriptor(Type.getType(Object.class), new Type[0]);
+
+	static String UNSAFE_ALLOCATE_INSTANCE_SIGNATURE = Type.getMethodDescriptor(Type.getType(Object.class), new Type[] { Type.getType(Class.class) });
 
 	static String MARSHALLER_CONSTRUCTOR_SIGNATURE = Type.getMethodDescriptor(
 			Type.VOID_TYPE,
@@ -84,13 +106,16 @@ public interface GeneratorConstants {
 	static String ARRAYPROPERTYACCESSOR_CLASS_INTERNAL_TYPE = Type.getType(ArrayPropertyAccessor.class).getInternalName();
 	static String PROPERTYDESCRIPTOR_CLASS_INTERNAL_TYPE = Type.getType(PropertyDescriptor.class).getInternalName();
 	static String CLASS_CLASS_INTERNAL_TYPE = Type.getType(Class.class).getInternalName();
-	static String DATAOUTPUT_CLASS_INTERNAL_TYPE = Type.getType(DataOutput.class).getInternalName();
-	static String DATAINPUT_CLASS_INTERNAL_TYPE = Type.getType(DataInput.class).getInternalName();
+	static String OBJECT_CLASS_INTERNAL_TYPE = Type.getType(Object.class).getInternalName();
+	static String LIGHTNINGOUTPUT_CLASS_INTERNAL_TYPE = Type.getType(LightningOutput.class).getInternalName();
+	static String LIGHTNINGINPUT_CLASS_INTERNAL_TYPE = Type.getType(LightningInput.class).getInternalName();
 	static String MARSHALLERSTRATEGY_CLASS_INTERNAL_TYPE = Type.getType(MarshallerStrategy.class).getInternalName();
+	static String UNSAFE_CLASS_INTERNAL_TYPE = "sun/misc/Unsafe";
 
 	static String MARSHALLER_CLASS_DESCRIPTOR = Type.getType(Marshaller.class).getDescriptor();
 	static String PROPERTYDESCRIPTOR_CLASS_DESCRIPTOR = Type.getType(PropertyDescriptor.class).getDescriptor();
 	static String PROPERTYACCESSOR_CLASS_DESCRIPTOR = Type.getType(PropertyAccessor.class).getDescriptor();
+	static String UNSAFE_CLASS_DESCRIPTOR = "L" + UNSAFE_CLASS_INTERNAL_TYPE + ";";
 
 	static String[] MARSHALLER_EXCEPTIONS = { IOEXCEPTION_CLASS_INTERNAL_TYPE };
 
@@ -19,6 +19,7 @@ import java.io.File;
 import java.util.List;
 import java.util.Map;
 
+import com.github.lightning.IntegerEncodingStrategy;
 import com.github.lightning.Marshaller;
 import com.github.lightning.SerializationStrategy;
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
@@ -28,7 +29,7 @@ import com.github.lightning.metadata.PropertyDescriptor;
 public interface MarshallerGenerator {
 
 	Marshaller generateMarshaller(Class<?> type, List<PropertyDescriptor> propertyDescriptors, Map<Class<?>, Marshaller> marshallers,
-			ClassDescriptorAwareSerializer serializer, SerializationStrategy serializationStrategy, ObjectInstantiatorFactory objectInstantiatorFactory,
-			File debugCacheDirectory);
+			ClassDescriptorAwareSerializer serializer, SerializationStrategy serializationStrategy, IntegerEncodingStrategy integerEncodingStrategy,
+			ObjectInstantiatorFactory objectInstantiatorFactory, File debugCacheDirectory);
 
 }
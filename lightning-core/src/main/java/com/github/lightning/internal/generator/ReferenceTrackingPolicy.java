@@ -0,0 +1,140 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.generator;
+
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.lightning.internal.ClassDescriptorAwareSerializer;
+import com.github.lightning.internal.util.ClassUtil;
+import com.github.lightning.metadata.ClassDescriptor;
+import com.github.lightning.metadata.PropertyDescriptor;
+import com.github.lightning.metadata.Unshared;
+
+/**
+ * Decides whether instances of a marshalled type are registered for reference
+ * tracking in SizeOptimized mode.<br>
+ * Types that can not be part of a reference cycle and are annotated with
+ * {@link Unshared} are never tracked and have no reference id written. With
+ * sampling enabled other acyclic types are observed for a number of instances
+ * and stop being tracked if none of them was referenced twice within a
+ * message. Those still write a reference id of 0 to mark untracked instances.
+ */
+final class ReferenceTrackingPolicy {
+
+	// Number of instances sampled before an unrepeated type stops being tracked
+	static final int SAMPLE_SIZE = 1024;
+
+	private final boolean tracked;
+	private final boolean acyclic;
+
+	private volatile boolean sampling = false;
+	private volatile boolean shared = false;
+	private volatile boolean untracked = false;
+
+	private final AtomicInteger samples = new AtomicInteger();
+
+	private ReferenceTrackingPolicy(boolean tracked, boolean acyclic) {
+		this.tracked = tracked;
+		this.acyclic = acyclic;
+	}
+
+	static ReferenceTrackingPolicy build(Class<?> type, ClassDescriptorAwareSerializer serializer) {
+		boolean acyclic = !canReach(type, type, serializer, new HashSet<Class<?>>());
+		boolean tracked = !acyclic || !type.isAnnotationPresent(Unshared.class);
+		return new ReferenceTrackingPolicy(tracked, acyclic);
+	}
+
+	/**
+	 * Returns true if reference ids are written for this type at all. This
+	 * only depends on the class definitions so both sides agree on it.
+	 */
+	boolean isTracked() {
+		return tracked;
+	}
+
+	void enableSampling() {
+		sampling = tracked && acyclic;
+	}
+
+	/**
+	 * Returns true if the next marshalled instance has to be registered in the
+	 * reference table.
+	 */
+	boolean isTrackingInstances() {
+		return tracked && !untracked;
+	}
+
+	void recordInstance(boolean repeated) {
+		if (!sampling || shared) {
+			return;
+		}
+
+		if (repeated) {
+			shared = true;
+		}
+		else if (samples.incrementAndGet() >= SAMPLE_SIZE) {
+			untracked = true;
+			sampling = false;
+		}
+	}
+
+	private static boolean canReach(Class<?> current, Class<?> target, ClassDescriptorAwareSerializer serializer, Set<Class<?>> visitedTypes) {
+		ClassDescriptor classDescriptor = serializer.findClassDescriptor(current);
+		if (classDescriptor == null) {
+			// Not a bound type, nothing is known about its properties
+			return true;
+		}
+
+		for (PropertyDescriptor propertyDescriptor : classDescriptor.getPropertyDescriptors()) {
+			Class<?> propertyType = propertyDescriptor.getType();
+			if (propertyType.isArray()) {
+				while (propertyType.isArray()) {
+					propertyType = propertyType.getComponentType();
+				}
+
+				// Elements of non final component types might be subtypes
+				if (!isLeafType(propertyType) && !Modifier.isFinal(propertyType.getModifiers())) {
+					return true;
+				}
+			}
+
+			if (isLeafType(propertyType)) {
+				continue;
+			}
+
+			if (propertyType == target || propertyType == Object.class || propertyType.isInterface()
+					|| Modifier.isAbstract(propertyType.getModifiers())) {
+				return true;
+			}
+
+			if (visitedTypes.add(propertyType) && canReach(propertyType, target, serializer, visitedTypes)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isLeafType(Class<?> type) {
+		return !ClassUtil.isReferenceCapable(type) || type == String.class || type == Character.class || type.isEnum()
+				|| type == BigInteger.class || type == BigDecimal.class;
+	}
+}
@@ -15,8 +15,8 @@
  */
 package com.github.lightning.internal.instantiator;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.github.lightning.instantiator.ObjectInstantiator;
 import com.github.lightning.instantiator.ObjectInstantiatorFactory;
@@ -35,7 +35,7 @@ public class ObjenesisBase implements ObjectInstantiatorFactory {
 	protected final InstantiatorStrategy strategy;
 
 	/** Strategy cache. Key = Class, Value = InstantiatorStrategy */
-	protected Map<String, ObjectInstantiator> cache;
+	protected ConcurrentMap<Class<?>, ObjectInstantiator> cache;
 
 	/**
 	 * Constructor allowing to pick a strategy and using cache
@@ -61,7 +61,7 @@ public class ObjenesisBase implements ObjectInstantiatorFactory {
 			throw new IllegalArgumentException("A strategy can't be null");
 		}
 		this.strategy = strategy;
-		this.cache = useCache ? new HashMap<String, ObjectInstantiator>() : null;
+		this.cache = useCache ? new ConcurrentHashMap<Class<?>, ObjectInstantiator>() : null;
 	}
 
 	@Override
@@ -87,7 +87,8 @@ public class ObjenesisBase implements ObjectInstantiatorFactory {
 	 * instances from the same class, it is way more efficient to create them
 	 * from the same
 	 * ObjectInstantiator than calling {@link #newInstance(Class)}.<br>
-	 * Explicitly made this NON-THREADSAFE for performance reasons.
+	 * Instances are shared by all threads using a serializer so the cache is
+	 * thread-safe, lookups do not lock.
 	 * 
 	 * @param clazz
 	 *            Class to instantiate
@@ -98,10 +99,15 @@ public class ObjenesisBase implements ObjectInstantiatorFactory {
 		if (cache == null) {
 			return strategy.newInstantiatorOf(clazz);
 		}
-		ObjectInstantiator instantiator = cache.get(clazz.getName());
+		ObjectInstantiator instantiator = cache.get(clazz);
 		if (instantiator == null) {
 			instantiator = strategy.newInstantiatorOf(clazz);
-			cache.put(clazz.getName(), instantiator);
+
+			// Keep the first instantiator if another thread was faster
+			ObjectInstantiator cachedInstantiator = cache.putIfAbsent(clazz, instantiator);
+			if (cachedInstantiator != null) {
+				instantiator = cachedInstantiator;
+			}
 		}
 		return instantiator;
 	}
@@ -15,30 +15,34 @@
  */
 package com.github.lightning.internal.io;
 
+import java.io.DataInput;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
 
-public class BufferInputStream extends InputStream {
+public class DataInputInputStream extends InputStream {
 
-	private final ByteBuffer byteBuffer;
+	private final DataInput dataInput;
 
-	public BufferInputStream(ByteBuffer byteBuffer) {
-		this.byteBuffer = byteBuffer;
+	public DataInputInputStream(DataInput dataInput) {
+		this.dataInput = dataInput;
 	}
 
 	@Override
-	public synchronized int read() throws IOException {
-		if (!byteBuffer.hasRemaining()) {
+	public int read() throws IOException {
+		try {
+			return dataInput.readUnsignedByte();
+		}
+		catch (EOFException e) {
 			return -1;
 		}
-		return byteBuffer.get();
 	}
 
 	@Override
-	public synchronized int read(byte[] bytes, int off, int len) throws IOException {
-		len = Math.min(len, byteBuffer.remaining());
-		byteBuffer.get(bytes, off, len);
+	public int read(byte[] bytes, int off, int len) throws IOException {
+		// DataInput has no partial reads, LightningInput only requests bytes
+		// that are really needed so readFully is safe here
+		dataInput.readFully(bytes, off, len);
 		return len;
 	}
 }
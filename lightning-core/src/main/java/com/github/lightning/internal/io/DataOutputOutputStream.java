@@ -15,25 +15,25 @@
  */
 package com.github.lightning.internal.io;
 
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
 
-public class BufferOutputStream extends OutputStream {
+public class DataOutputOutputStream extends OutputStream {
 
-	private final ByteBuffer byteBuffer;
+	private final DataOutput dataOutput;
 
-	public BufferOutputStream(ByteBuffer byteBuffer) {
-		this.byteBuffer = byteBuffer;
+	public DataOutputOutputStream(DataOutput dataOutput) {
+		this.dataOutput = dataOutput;
 	}
 
 	@Override
-	public synchronized void write(int b) throws IOException {
-		byteBuffer.put((byte) b);
+	public void write(int b) throws IOException {
+		dataOutput.write(b);
 	}
 
 	@Override
-	public synchronized void write(byte[] bytes, int off, int len) throws IOException {
-		byteBuffer.put(bytes, off, len);
+	public void write(byte[] bytes, int off, int len) throws IOException {
+		dataOutput.write(bytes, off, len);
 	}
 }
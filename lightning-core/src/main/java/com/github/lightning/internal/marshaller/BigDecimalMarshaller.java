@@ -15,47 +15,48 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.charset.Charset;
+import java.math.BigInteger;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class BigDecimalMarshaller extends AbstractMarshaller {
 
-	private static final Charset CHARSET = Charset.forName("ASCII");
-
 	@Override
 	public boolean acceptType(Class<?> type) {
 		return BigDecimal.class == type;
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
-		String representation = ((BigDecimal) value).toString();
-		byte[] data = representation.getBytes(CHARSET);
-		dataOutput.writeInt(data.length);
-		dataOutput.write(data);
+		BigDecimal bigDecimal = (BigDecimal) value;
+		dataOutput.writeSignedVarInt(bigDecimal.scale());
+		BigIntegerMarshaller.writeBigInteger(bigDecimal.unscaledValue(), dataOutput);
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int length = dataInput.readInt();
+		int scale = dataInput.readSignedVarInt();
+		int length = dataInput.readVarInt();
+		if (length == 0) {
+			return (V) BigDecimal.valueOf(dataInput.readSignedVarLong(), scale);
+		}
+
 		byte[] data = new byte[length];
 		dataInput.readFully(data);
-
-		return (V) new BigDecimal(new String(data, CHARSET));
+		return (V) new BigDecimal(new BigInteger(data), scale);
 	}
 }
@@ -15,13 +15,13 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.math.BigInteger;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class BigIntegerMarshaller extends AbstractMarshaller {
 
@@ -31,27 +31,49 @@ public class BigIntegerMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
-		byte[] data = ((BigInteger) value).toByteArray();
-		dataOutput.writeInt(data.length);
-		dataOutput.write(data);
+		writeBigInteger((BigInteger) value, dataOutput);
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int length = dataInput.readInt();
+		return (V) readBigInteger(dataInput);
+	}
+
+	/**
+	 * Values fitting into a long are written as a zero header followed by a
+	 * ZigZag varlong, all others as their byte length followed by the two's
+	 * complement representation.
+	 */
+	static void writeBigInteger(BigInteger value, LightningOutput dataOutput) throws IOException {
+		if (value.bitLength() < 64) {
+			dataOutput.writeVarInt(0);
+			dataOutput.writeSignedVarLong(value.longValue());
+		}
+		else {
+			byte[] data = value.toByteArray();
+			dataOutput.writeVarInt(data.length);
+			dataOutput.write(data);
+		}
+	}
+
+	static BigInteger readBigInteger(LightningInput dataInput) throws IOException {
+		int length = dataInput.readVarInt();
+		if (length == 0) {
+			return BigInteger.valueOf(dataInput.readSignedVarLong());
+		}
+
 		byte[] data = new byte[length];
 		dataInput.readFully(data);
-
-		return (V) new BigInteger(data);
+		return new BigInteger(data);
 	}
 }
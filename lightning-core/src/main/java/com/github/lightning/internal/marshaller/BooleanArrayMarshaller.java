@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class BooleanArrayMarshaller extends AbstractMarshaller {
 
@@ -30,14 +30,14 @@ public class BooleanArrayMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
 		if (boolean[].class == type) {
 			boolean[] array = (boolean[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
 			for (boolean arrayValue : array) {
 				dataOutput.writeBoolean(arrayValue);
@@ -45,22 +45,24 @@ public class BooleanArrayMarshaller extends AbstractMarshaller {
 		}
 		else {
 			Boolean[] array = (Boolean[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (boolean arrayValue : array) {
-				dataOutput.writeBoolean(arrayValue);
+			for (Boolean arrayValue : array) {
+				if (writePossibleNull(arrayValue, dataOutput)) {
+					dataOutput.writeBoolean(arrayValue);
+				}
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		if (boolean[].class == type) {
 			boolean[] array = new boolean[size];
 			for (int i = 0; i < size; i++) {
@@ -72,7 +74,9 @@ public class BooleanArrayMarshaller extends AbstractMarshaller {
 		else {
 			Boolean[] array = new Boolean[size];
 			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readBoolean();
+				if (!isNull(dataInput)) {
+					array[i] = dataInput.readBoolean();
+				}
 			}
 
 			return (V) array;
@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class ByteArrayMarshaller extends AbstractMarshaller {
 
@@ -30,49 +30,49 @@ public class ByteArrayMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
 		if (byte[].class == type) {
 			byte[] array = (byte[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (byte arrayValue : array) {
-				dataOutput.writeByte(arrayValue);
-			}
+			dataOutput.write(array, 0, array.length);
 		}
 		else {
 			Byte[] array = (Byte[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (byte arrayValue : array) {
-				dataOutput.writeByte(arrayValue);
+			for (Byte arrayValue : array) {
+				if (writePossibleNull(arrayValue, dataOutput)) {
+					dataOutput.writeByte(arrayValue);
+				}
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		if (byte[].class == type) {
 			byte[] array = new byte[size];
-			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readByte();
-			}
+			dataInput.readFully(array, 0, size);
 
 			return (V) array;
 		}
 		else {
 			Byte[] array = new Byte[size];
 			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readByte();
+				if (!isNull(dataInput)) {
+					array[i] = dataInput.readByte();
+				}
 			}
 
 			return (V) array;
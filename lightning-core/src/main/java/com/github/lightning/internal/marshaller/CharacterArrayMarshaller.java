@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class CharacterArrayMarshaller extends AbstractMarshaller {
 
@@ -30,41 +30,53 @@ public class CharacterArrayMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
 		if (char[].class == type) {
 			char[] array = (char[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (char arrayValue : array) {
-				dataOutput.writeChar(arrayValue);
+			if (isCompact(serializationContext)) {
+				for (char arrayValue : array) {
+					writeChar(arrayValue, dataOutput, serializationContext);
+				}
+			}
+			else {
+				dataOutput.writeChars(array, 0, array.length);
 			}
 		}
 		else {
 			Character[] array = (Character[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (char arrayValue : array) {
-				dataOutput.writeChar(arrayValue);
+			for (Character arrayValue : array) {
+				if (writePossibleNull(arrayValue, dataOutput)) {
+					writeChar(arrayValue, dataOutput, serializationContext);
+				}
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		if (char[].class == type) {
 			char[] array = new char[size];
-			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readChar();
+			if (isCompact(serializationContext)) {
+				for (int i = 0; i < size; i++) {
+					array[i] = readChar(dataInput, serializationContext);
+				}
+			}
+			else {
+				dataInput.readChars(array, 0, size);
 			}
 
 			return (V) array;
@@ -72,7 +84,9 @@ public class CharacterArrayMarshaller extends AbstractMarshaller {
 		else {
 			Character[] array = new Character[size];
 			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readChar();
+				if (!isNull(dataInput)) {
+					array[i] = readChar(dataInput, serializationContext);
+				}
 			}
 
 			return (V) array;
@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class CharacterMarshaller extends AbstractMarshaller {
 
@@ -30,25 +30,25 @@ public class CharacterMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (Character.class == type) {
 			if (!writePossibleNull(value, dataOutput)) {
 				return;
 			}
 		}
 
-		dataOutput.writeChar((Character) value);
+		writeChar((Character) value, dataOutput, serializationContext);
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (Character.class == type) {
 			if (isNull(dataInput)) {
 				return null;
 			}
 		}
 
-		return (V) Character.valueOf(dataInput.readChar());
+		return (V) Character.valueOf(readChar(dataInput, serializationContext));
 	}
 }
@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class DoubleArrayMarshaller extends AbstractMarshaller {
 
@@ -30,49 +30,49 @@ public class DoubleArrayMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
 		if (double[].class == type) {
 			double[] array = (double[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (double arrayValue : array) {
-				dataOutput.writeDouble(arrayValue);
-			}
+			dataOutput.writeDoubles(array, 0, array.length);
 		}
 		else {
 			Double[] array = (Double[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (double arrayValue : array) {
-				dataOutput.writeDouble(arrayValue);
+			for (Double arrayValue : array) {
+				if (writePossibleNull(arrayValue, dataOutput)) {
+					dataOutput.writeDouble(arrayValue);
+				}
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		if (double[].class == type) {
 			double[] array = new double[size];
-			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readDouble();
-			}
+			dataInput.readDoubles(array, 0, size);
 
 			return (V) array;
 		}
 		else {
 			Double[] array = new Double[size];
 			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readDouble();
+				if (!isNull(dataInput)) {
+					array[i] = dataInput.readDouble();
+				}
 			}
 
 			return (V) array;
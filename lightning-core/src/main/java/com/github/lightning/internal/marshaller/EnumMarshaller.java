@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class EnumMarshaller extends AbstractMarshaller {
 
@@ -30,26 +30,26 @@ public class EnumMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
-		dataOutput.writeLong(serializationContext.getClassDefinitionContainer().getClassDefinitionByType(type).getId());
-		dataOutput.writeInt(((Enum<?>) value).ordinal());
+		dataOutput.writeVarLong(serializationContext.getClassDefinitionContainer().getClassDefinitionByType(type).getId());
+		writeUnsignedInt(((Enum<?>) value).ordinal(), dataOutput, serializationContext);
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		long typeId = dataInput.readLong();
+		long typeId = dataInput.readVarLong();
 		Class<?> propertyType = serializationContext.getClassDefinitionContainer().getTypeById(typeId);
 
-		int ordinal = dataInput.readInt();
+		int ordinal = readUnsignedInt(dataInput, serializationContext);
 		Enum<?>[] values = ((Class<Enum<?>>) propertyType).getEnumConstants();
 		for (Enum<?> value : values) {
 			if (value.ordinal() == ordinal) {
@@ -15,8 +15,6 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -24,6 +22,8 @@ import java.io.ObjectOutput;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractObjectMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class ExternalizableMarshaller extends AbstractObjectMarshaller {
 
@@ -33,14 +33,14 @@ public class ExternalizableMarshaller extends AbstractObjectMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
-		((Externalizable) value).writeExternal((ObjectOutput) dataOutput);
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		((Externalizable) value).writeExternal((ObjectOutput) dataOutput.asDataOutput());
 	}
 
 	@Override
-	public <V> V unmarshall(V value, Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(V value, Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		try {
-			((Externalizable) value).readExternal((ObjectInput) dataInput);
+			((Externalizable) value).readExternal((ObjectInput) dataInput.asDataInput());
 			return value;
 		}
 		catch (ClassNotFoundException e) {
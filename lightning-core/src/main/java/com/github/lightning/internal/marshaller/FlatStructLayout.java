@@ -0,0 +1,265 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.marshaller;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.github.lightning.Marshaller;
+import com.github.lightning.internal.InternalMarshallerStrategy;
+import com.github.lightning.internal.beans.FieldValuePropertyAccessor;
+import com.github.lightning.internal.util.UnsafeUtil;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
+import com.github.lightning.metadata.PropertyAccessor;
+import com.github.lightning.metadata.PropertyDescriptor;
+
+/**
+ * Memory layout of a class only consisting of primitive fields. Instances of
+ * such flat structs are written as one block: all fields ordered by their
+ * field offset, packed and in native byte order. If the fields are
+ * contiguous in memory the block is copied as a whole, otherwise field by
+ * field. The layout fingerprint covers the field order and native byte order
+ * and has to match on both sides.
+ */
+@SuppressWarnings("restriction")
+public final class FlatStructLayout {
+
+	private static final sun.misc.Unsafe UNSAFE = UnsafeUtil.getUnsafe();
+	private static final long BYTE_ARRAY_OFFSET = UNSAFE != null ? UNSAFE.arrayBaseOffset(byte[].class) : -1;
+
+	// Newer JVMs only allow Unsafe#copyMemory between primitive arrays
+	private static final boolean OBJECT_COPY_MEMORY_SUPPORTED = isObjectCopyMemorySupported();
+
+	private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+
+	private static final ThreadLocal<byte[]> BUFFER_CACHE = new ThreadLocal<byte[]>();
+
+	private final Field[] fields;
+	private final long[] offsets;
+	private final int[] widths;
+	private final int size;
+	private final boolean contiguous;
+	private final long fingerprint;
+
+	private FlatStructLayout(Field[] fields) {
+		this.fields = fields;
+		this.offsets = new long[fields.length];
+		this.widths = new int[fields.length];
+
+		int size = 0;
+		boolean contiguous = true;
+		long fingerprint = hash(FNV_OFFSET_BASIS, ByteOrder.nativeOrder().toString());
+		for (int i = 0; i < fields.length; i++) {
+			offsets[i] = UNSAFE.objectFieldOffset(fields[i]);
+			widths[i] = getWidth(fields[i].getType());
+			contiguous &= i == 0 || offsets[i] == offsets[i - 1] + widths[i - 1];
+			size += widths[i];
+
+			fingerprint = hash(fingerprint, fields[i].getName());
+			fingerprint = hash(fingerprint, fields[i].getType().getName());
+		}
+
+		this.size = size;
+		this.contiguous = contiguous && OBJECT_COPY_MEMORY_SUPPORTED;
+
+		// Zero is reserved for types not written as flat struct
+		this.fingerprint = fingerprint != 0 ? fingerprint : 1;
+	}
+
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public void write(Object value, LightningOutput dataOutput) throws IOException {
+		byte[] buffer = acquireBuffer(size);
+		if (contiguous) {
+			UNSAFE.copyMemory(value, offsets[0], buffer, BYTE_ARRAY_OFFSET, size);
+		}
+		else {
+			long position = BYTE_ARRAY_OFFSET;
+			for (int i = 0; i < offsets.length; i++) {
+				copy(value, offsets[i], buffer, position, widths[i]);
+				position += widths[i];
+			}
+		}
+
+		dataOutput.write(buffer, 0, size);
+	}
+
+	public void read(Object value, LightningInput dataInput) throws IOException {
+		byte[] buffer = acquireBuffer(size);
+		dataInput.readFully(buffer, 0, size);
+
+		if (contiguous) {
+			UNSAFE.copyMemory(buffer, BYTE_ARRAY_OFFSET, value, offsets[0], size);
+		}
+		else {
+			long position = BYTE_ARRAY_OFFSET;
+			for (int i = 0; i < offsets.length; i++) {
+				copy(buffer, position, value, offsets[i], widths[i]);
+				position += widths[i];
+			}
+		}
+	}
+
+	/**
+	 * Builds the layout of the given type or returns null if the type is not
+	 * a flat struct.
+	 */
+	public static FlatStructLayout build(Class<?> type) {
+		if (UNSAFE == null || type.isPrimitive() || type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+			return null;
+		}
+
+		List<Field> fields = new ArrayList<Field>();
+		for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) {
+					continue;
+				}
+
+				if (!field.getType().isPrimitive()) {
+					return null;
+				}
+
+				fields.add(field);
+			}
+		}
+
+		if (fields.isEmpty()) {
+			return null;
+		}
+
+		Field[] sortedFields = fields.toArray(new Field[fields.size()]);
+		Arrays.sort(sortedFields, new Comparator<Field>() {
+
+			@Override
+			public int compare(Field o1, Field o2) {
+				long offset1 = UNSAFE.objectFieldOffset(o1);
+				long offset2 = UNSAFE.objectFieldOffset(o2);
+				return offset1 < offset2 ? -1 : offset1 == offset2 ? 0 : 1;
+			}
+		});
+
+		return new FlatStructLayout(sortedFields);
+	}
+
+	/**
+	 * Returns the layout fingerprint if the type is a flat struct and all of
+	 * its fields are properties handled by build-in marshallers, otherwise 0.
+	 */
+	public static long getLayoutFingerprint(Class<?> type, List<PropertyDescriptor> propertyDescriptors) {
+		FlatStructLayout layout = build(type);
+		if (layout == null || layout.fields.length != propertyDescriptors.size()) {
+			return 0;
+		}
+
+		Set<Field> propertyFields = new HashSet<Field>();
+		for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+			PropertyAccessor propertyAccessor = propertyDescriptor.getPropertyAccessor();
+			Marshaller marshaller = propertyDescriptor.getMarshaller();
+			if (!(propertyAccessor instanceof FieldValuePropertyAccessor) || !InternalMarshallerStrategy.isBuiltInPrimitiveMarshaller(marshaller)
+					|| !marshaller.acceptType(propertyDescriptor.getType())) {
+				return 0;
+			}
+
+			propertyFields.add(((FieldValuePropertyAccessor) propertyAccessor).getField());
+		}
+
+		return propertyFields.equals(new HashSet<Field>(Arrays.asList(layout.fields))) ? layout.getFingerprint() : 0;
+	}
+
+	private static void copy(Object source, long sourceOffset, Object target, long targetOffset, int width) {
+		switch (width) {
+			case 1:
+				UNSAFE.putByte(target, targetOffset, UNSAFE.getByte(source, sourceOffset));
+				break;
+			case 2:
+				UNSAFE.putShort(target, targetOffset, UNSAFE.getShort(source, sourceOffset));
+				break;
+			case 4:
+				UNSAFE.putInt(target, targetOffset, UNSAFE.getInt(source, sourceOffset));
+				break;
+
+			default:
+				UNSAFE.putLong(target, targetOffset, UNSAFE.getLong(source, sourceOffset));
+		}
+	}
+
+	private static byte[] acquireBuffer(int size) {
+		byte[] buffer = BUFFER_CACHE.get();
+		if (buffer == null || buffer.length < size) {
+			buffer = new byte[size];
+			BUFFER_CACHE.set(buffer);
+		}
+		return buffer;
+	}
+
+	private static int getWidth(Class<?> type) {
+		if (type == long.class || type == double.class) {
+			return 8;
+		}
+		else if (type == int.class || type == float.class) {
+			return 4;
+		}
+		else if (type == short.class || type == char.class) {
+			return 2;
+		}
+		return 1;
+	}
+
+	private static long hash(long hash, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+		}
+		return (hash ^ 0xFF) * FNV_PRIME;
+	}
+
+	private static boolean isObjectCopyMemorySupported() {
+		if (UNSAFE == null) {
+			return false;
+		}
+
+		try {
+			long offset = UNSAFE.objectFieldOffset(Probe.class.getDeclaredField("value"));
+			UNSAFE.copyMemory(new Probe(), offset, new byte[8], BYTE_ARRAY_OFFSET, 8);
+			return true;
+		}
+		catch (Throwable e) {
+			return false;
+		}
+	}
+
+	private static class Probe {
+
+		@SuppressWarnings("unused")
+		private long value;
+	}
+}
@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class FloatArrayMarshaller extends AbstractMarshaller {
 
@@ -30,49 +30,49 @@ public class FloatArrayMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
 		if (float[].class == type) {
 			float[] array = (float[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (float arrayValue : array) {
-				dataOutput.writeFloat(arrayValue);
-			}
+			dataOutput.writeFloats(array, 0, array.length);
 		}
 		else {
 			Float[] array = (Float[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (float arrayValue : array) {
-				dataOutput.writeFloat(arrayValue);
+			for (Float arrayValue : array) {
+				if (writePossibleNull(arrayValue, dataOutput)) {
+					dataOutput.writeFloat(arrayValue);
+				}
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		if (float[].class == type) {
 			float[] array = new float[size];
-			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readFloat();
-			}
+			dataInput.readFloats(array, 0, size);
 
 			return (V) array;
 		}
 		else {
 			Float[] array = new Float[size];
 			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readFloat();
+				if (!isNull(dataInput)) {
+					array[i] = dataInput.readFloat();
+				}
 			}
 
 			return (V) array;
@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class IntegerArrayMarshaller extends AbstractMarshaller {
 
@@ -30,41 +30,53 @@ public class IntegerArrayMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
 		if (int[].class == type) {
 			int[] array = (int[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (int arrayValue : array) {
-				dataOutput.writeInt(arrayValue);
+			if (isCompact(serializationContext)) {
+				for (int arrayValue : array) {
+					writeInt(arrayValue, dataOutput, serializationContext);
+				}
+			}
+			else {
+				dataOutput.writeInts(array, 0, array.length);
 			}
 		}
 		else {
 			Integer[] array = (Integer[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (int arrayValue : array) {
-				dataOutput.writeInt(arrayValue);
+			for (Integer arrayValue : array) {
+				if (writePossibleNull(arrayValue, dataOutput)) {
+					writeInt(arrayValue, dataOutput, serializationContext);
+				}
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		if (int[].class == type) {
 			int[] array = new int[size];
-			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readInt();
+			if (isCompact(serializationContext)) {
+				for (int i = 0; i < size; i++) {
+					array[i] = readInt(dataInput, serializationContext);
+				}
+			}
+			else {
+				dataInput.readInts(array, 0, size);
 			}
 
 			return (V) array;
@@ -72,7 +84,9 @@ public class IntegerArrayMarshaller extends AbstractMarshaller {
 		else {
 			Integer[] array = new Integer[size];
 			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readInt();
+				if (!isNull(dataInput)) {
+					array[i] = readInt(dataInput, serializationContext);
+				}
 			}
 
 			return (V) array;
@@ -15,8 +15,6 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
@@ -28,6 +26,8 @@ import com.github.lightning.SerializationContext;
 import com.github.lightning.TypeBindableMarshaller;
 import com.github.lightning.base.AbstractMarshaller;
 import com.github.lightning.exceptions.SerializerExecutionException;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.metadata.ClassDefinition;
 
 public class ListMarshaller extends AbstractMarshaller implements TypeBindableMarshaller {
@@ -36,6 +36,8 @@ public class ListMarshaller extends AbstractMarshaller implements TypeBindableMa
 
 	private Marshaller listTypeMarshaller;
 
+	private final PolymorphicTypeCache typeCache = new PolymorphicTypeCache();
+
 	public ListMarshaller() {
 		this(null);
 	}
@@ -50,28 +52,27 @@ public class ListMarshaller extends AbstractMarshaller implements TypeBindableMa
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (writePossibleNull(value, dataOutput)) {
 			List<?> list = (List<?>) value;
-			dataOutput.writeInt(list.size());
+			writeUnsignedInt(list.size(), dataOutput, serializationContext);
 			for (Object entry : list) {
 				if (writePossibleNull(entry, dataOutput)) {
+					PolymorphicTypeCache.Entry cacheEntry = typeCache.findByType(entry.getClass(), serializationContext);
+					if (cacheEntry == null) {
+						throw new SerializerExecutionException("No ClassDefinition found for type " + entry.getClass());
+					}
+
 					Marshaller marshaller;
 					if (listType != null) {
 						ensureMarshallerInitialized(serializationContext);
 						marshaller = listTypeMarshaller;
 					}
 					else {
-						marshaller = serializationContext.findMarshaller(entry.getClass());
+						marshaller = cacheEntry.getMarshaller();
 					}
 
-					ClassDefinition classDefinition = serializationContext.getClassDefinitionContainer().getClassDefinitionByType(entry.getClass());
-
-					if (classDefinition == null) {
-						throw new SerializerExecutionException("No ClassDefinition found for type " + entry.getClass());
-					}
-
-					dataOutput.writeLong(classDefinition.getId());
+					dataOutput.writeVarLong(cacheEntry.getId());
 					marshaller.marshall(entry, entry.getClass(), dataOutput, serializationContext);
 				}
 			}
@@ -80,12 +81,12 @@ public class ListMarshaller extends AbstractMarshaller implements TypeBindableMa
 
 	@Override
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		List list = new ArrayList(size);
 		if (size > 0) {
 			for (int i = 0; i < size; i++) {
@@ -93,8 +94,11 @@ public class ListMarshaller extends AbstractMarshaller implements TypeBindableMa
 					list.add(null);
 				}
 				else {
-					long classId = dataInput.readLong();
-					ClassDefinition classDefinition = serializationContext.getClassDefinitionContainer().getClassDefinitionById(classId);
+					long classId = dataInput.readVarLong();
+					PolymorphicTypeCache.Entry cacheEntry = typeCache.findById(classId, serializationContext);
+					if (cacheEntry == null) {
+						throw new SerializerExecutionException("No ClassDefinition found for id " + classId);
+					}
 
 					Marshaller marshaller;
 					if (listType != null) {
@@ -102,9 +106,10 @@ public class ListMarshaller extends AbstractMarshaller implements TypeBindableMa
 						marshaller = listTypeMarshaller;
 					}
 					else {
-						marshaller = serializationContext.findMarshaller(classDefinition.getType());
+						marshaller = cacheEntry.getMarshaller();
 					}
 
+					ClassDefinition classDefinition = cacheEntry.getClassDefinition();
 					list.add(marshaller.unmarshall(classDefinition.getType(), dataInput, serializationContext));
 				}
 			}
@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class LongArrayMarshaller extends AbstractMarshaller {
 
@@ -30,41 +30,53 @@ public class LongArrayMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
 		if (long[].class == type) {
 			long[] array = (long[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (long arrayValue : array) {
-				dataOutput.writeLong(arrayValue);
+			if (isCompact(serializationContext)) {
+				for (long arrayValue : array) {
+					writeLong(arrayValue, dataOutput, serializationContext);
+				}
+			}
+			else {
+				dataOutput.writeLongs(array, 0, array.length);
 			}
 		}
 		else {
 			Long[] array = (Long[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (long arrayValue : array) {
-				dataOutput.writeLong(arrayValue);
+			for (Long arrayValue : array) {
+				if (writePossibleNull(arrayValue, dataOutput)) {
+					writeLong(arrayValue, dataOutput, serializationContext);
+				}
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		if (long[].class == type) {
 			long[] array = new long[size];
-			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readLong();
+			if (isCompact(serializationContext)) {
+				for (int i = 0; i < size; i++) {
+					array[i] = readLong(dataInput, serializationContext);
+				}
+			}
+			else {
+				dataInput.readLongs(array, 0, size);
 			}
 
 			return (V) array;
@@ -72,7 +84,9 @@ public class LongArrayMarshaller extends AbstractMarshaller {
 		else {
 			Long[] array = new Long[size];
 			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readLong();
+				if (!isNull(dataInput)) {
+					array[i] = readLong(dataInput, serializationContext);
+				}
 			}
 
 			return (V) array;
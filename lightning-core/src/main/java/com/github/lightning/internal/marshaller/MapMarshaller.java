@@ -15,8 +15,6 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Arrays;
@@ -29,6 +27,8 @@ import com.github.lightning.SerializationContext;
 import com.github.lightning.TypeBindableMarshaller;
 import com.github.lightning.base.AbstractMarshaller;
 import com.github.lightning.exceptions.SerializerExecutionException;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.metadata.ClassDefinition;
 
 public class MapMarshaller extends AbstractMarshaller implements TypeBindableMarshaller {
@@ -39,6 +39,9 @@ public class MapMarshaller extends AbstractMarshaller implements TypeBindableMar
 	private Marshaller mapKeyTypeMarshaller;
 	private Marshaller mapValueTypeMarshaller;
 
+	private final PolymorphicTypeCache keyTypeCache = new PolymorphicTypeCache();
+	private final PolymorphicTypeCache valueTypeCache = new PolymorphicTypeCache();
+
 	public MapMarshaller() {
 		this(null, null);
 	}
@@ -54,53 +57,60 @@ public class MapMarshaller extends AbstractMarshaller implements TypeBindableMar
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		writePossibleNull(value, dataOutput);
 
 		Map<?, ?> map = (Map<?, ?>) value;
-		dataOutput.writeInt(map.size());
+		writeUnsignedInt(map.size(), dataOutput, serializationContext);
 		for (Entry<?, ?> entry : map.entrySet()) {
-			Marshaller keyMarshaller;
-			Marshaller valueMarshaller;
 			if (mapKeyType != null) {
 				ensureMarshallersInitialized(serializationContext);
-				keyMarshaller = mapKeyTypeMarshaller;
-				valueMarshaller = mapValueTypeMarshaller;
-			}
-			else {
-				keyMarshaller = entry.getKey() != null ? serializationContext.findMarshaller(entry.getKey().getClass()) : null;
-				valueMarshaller = entry.getValue() != null ? serializationContext.findMarshaller(entry.getValue().getClass()) : null;
 			}
 
 			if (writePossibleNull(entry.getKey(), dataOutput)) {
-				ClassDefinition keyClassDefinition = serializationContext.getClassDefinitionContainer().getClassDefinitionByType(entry.getKey().getClass());
-				dataOutput.writeLong(keyClassDefinition.getId());
-				keyMarshaller.marshall(entry.getKey(), entry.getKey().getClass(), dataOutput, serializationContext);
+				Class<?> keyType = entry.getKey().getClass();
+				PolymorphicTypeCache.Entry keyCacheEntry = keyTypeCache.findByType(keyType, serializationContext);
+				if (keyCacheEntry == null) {
+					throw new SerializerExecutionException("No ClassDefinition found for type " + keyType);
+				}
+
+				Marshaller keyMarshaller = mapKeyType != null ? mapKeyTypeMarshaller : keyCacheEntry.getMarshaller();
+				dataOutput.writeVarLong(keyCacheEntry.getId());
+				keyMarshaller.marshall(entry.getKey(), keyType, dataOutput, serializationContext);
 			}
 
 			if (writePossibleNull(entry.getValue(), dataOutput)) {
-				ClassDefinition valueClassDefinition = serializationContext.getClassDefinitionContainer().getClassDefinitionByType(entry.getValue().getClass());
-				dataOutput.writeLong(valueClassDefinition.getId());
-				valueMarshaller.marshall(entry.getValue(), entry.getValue().getClass(), dataOutput, serializationContext);
+				Class<?> valueType = entry.getValue().getClass();
+				PolymorphicTypeCache.Entry valueCacheEntry = valueTypeCache.findByType(valueType, serializationContext);
+				if (valueCacheEntry == null) {
+					throw new SerializerExecutionException("No ClassDefinition found for type " + valueType);
+				}
+
+				Marshaller valueMarshaller = mapKeyType != null ? mapValueTypeMarshaller : valueCacheEntry.getMarshaller();
+				dataOutput.writeVarLong(valueCacheEntry.getId());
+				valueMarshaller.marshall(entry.getValue(), valueType, dataOutput, serializationContext);
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		Map map = new LinkedHashMap(size);
 		if (size > 0) {
 			for (int i = 0; i < size; i++) {
 				Object key = null;
 				if (!isNull(dataInput)) {
-					long keyClassId = dataInput.readLong();
-					ClassDefinition keyClassDefinition = serializationContext.getClassDefinitionContainer().getClassDefinitionById(keyClassId);
+					long keyClassId = dataInput.readVarLong();
+					PolymorphicTypeCache.Entry keyCacheEntry = keyTypeCache.findById(keyClassId, serializationContext);
+					if (keyCacheEntry == null) {
+						throw new SerializerExecutionException("No ClassDefinition found for id " + keyClassId);
+					}
 
 					Marshaller keyMarshaller;
 					if (mapKeyType != null) {
@@ -108,16 +118,20 @@ public class MapMarshaller extends AbstractMarshaller implements TypeBindableMar
 						keyMarshaller = mapKeyTypeMarshaller;
 					}
 					else {
-						keyMarshaller = serializationContext.findMarshaller(keyClassDefinition.getType());
+						keyMarshaller = keyCacheEntry.getMarshaller();
 					}
 
+					ClassDefinition keyClassDefinition = keyCacheEntry.getClassDefinition();
 					key = keyMarshaller.unmarshall(keyClassDefinition.getType(), dataInput, serializationContext);
 				}
 
 				Object value = null;
 				if (!isNull(dataInput)) {
-					long valueClassId = dataInput.readLong();
-					ClassDefinition valueClassDefinition = serializationContext.getClassDefinitionContainer().getClassDefinitionById(valueClassId);
+					long valueClassId = dataInput.readVarLong();
+					PolymorphicTypeCache.Entry valueCacheEntry = valueTypeCache.findById(valueClassId, serializationContext);
+					if (valueCacheEntry == null) {
+						throw new SerializerExecutionException("No ClassDefinition found for id " + valueClassId);
+					}
 
 					Marshaller valueMarshaller;
 					if (mapKeyType != null) {
@@ -125,9 +139,10 @@ public class MapMarshaller extends AbstractMarshaller implements TypeBindableMar
 						valueMarshaller = mapValueTypeMarshaller;
 					}
 					else {
-						valueMarshaller = serializationContext.findMarshaller(valueClassDefinition.getType());
+						valueMarshaller = valueCacheEntry.getMarshaller();
 					}
 
+					ClassDefinition valueClassDefinition = valueCacheEntry.getClassDefinition();
 					value = valueMarshaller.unmarshall(valueClassDefinition.getType(), dataInput, serializationContext);
 				}
 
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.marshaller;
+
+import com.github.lightning.Marshaller;
+import com.github.lightning.SerializationContext;
+import com.github.lightning.metadata.ClassDefinition;
+import com.github.lightning.metadata.ClassDefinitionContainer;
+
+/**
+ * Small per call site cache for values whose runtime type is not known
+ * statically. Most sites only ever see one or two concrete types so the last
+ * {@value #MAX_ENTRIES} resolved types are remembered together with their
+ * {@link ClassDefinition} and {@link Marshaller}. On a miss the full lookup
+ * through the {@link SerializationContext} is used.
+ */
+public final class PolymorphicTypeCache {
+
+	private static final int MAX_ENTRIES = 4;
+
+	private static final Entry[] EMPTY_ENTRIES = new Entry[0];
+
+	// Entries are replaced as a whole so the cache is safe to be shared by
+	// concurrently used marshallers
+	private volatile Entries entries = new Entries(null, EMPTY_ENTRIES);
+
+	public Entry findByType(Class<?> type, SerializationContext serializationContext) {
+		ClassDefinitionContainer classDefinitionContainer = serializationContext.getClassDefinitionContainer();
+		Entries entries = this.entries;
+		if (entries.classDefinitionContainer == classDefinitionContainer) {
+			for (Entry entry : entries.values) {
+				if (entry.type == type) {
+					return entry;
+				}
+			}
+		}
+
+		ClassDefinition classDefinition = classDefinitionContainer.getClassDefinitionByType(type);
+		if (classDefinition == null) {
+			return null;
+		}
+
+		return cache(entries, classDefinitionContainer, new Entry(type, classDefinition, serializationContext.findMarshaller(type)));
+	}
+
+	public Entry findById(long id, SerializationContext serializationContext) {
+		ClassDefinitionContainer classDefinitionContainer = serializationContext.getClassDefinitionContainer();
+		Entries entries = this.entries;
+		if (entries.classDefinitionContainer == classDefinitionContainer) {
+			for (Entry entry : entries.values) {
+				if (entry.classDefinition.getId() == id) {
+					return entry;
+				}
+			}
+		}
+
+		ClassDefinition classDefinition = classDefinitionContainer.getClassDefinitionById(id);
+		if (classDefinition == null) {
+			return null;
+		}
+
+		Class<?> type = classDefinition.getType();
+		return cache(entries, classDefinitionContainer, new Entry(type, classDefinition, serializationContext.findMarshaller(type)));
+	}
+
+	private Entry cache(Entries entries, ClassDefinitionContainer classDefinitionContainer, Entry entry) {
+		Entry[] values = entries.classDefinitionContainer == classDefinitionContainer ? entries.values : EMPTY_ENTRIES;
+		if (values.length < MAX_ENTRIES) {
+			Entry[] newValues = new Entry[values.length + 1];
+			System.arraycopy(values, 0, newValues, 0, values.length);
+			newValues[values.length] = entry;
+			this.entries = new Entries(classDefinitionContainer, newValues);
+		}
+		return entry;
+	}
+
+	public static final class Entry {
+
+		private final Class<?> type;
+		private final ClassDefinition classDefinition;
+		private final Marshaller marshaller;
+
+		private Entry(Class<?> type, ClassDefinition classDefinition, Marshaller marshaller) {
+			this.type = type;
+			this.classDefinition = classDefinition;
+			this.marshaller = marshaller;
+		}
+
+		public Class<?> getType() {
+			return type;
+		}
+
+		public ClassDefinition getClassDefinition() {
+			return classDefinition;
+		}
+
+		public long getId() {
+			return classDefinition.getId();
+		}
+
+		public Marshaller getMarshaller() {
+			return marshaller;
+		}
+	}
+
+	private static final class Entries {
+
+		private final ClassDefinitionContainer classDefinitionContainer;
+		private final Entry[] values;
+
+		private Entries(ClassDefinitionContainer classDefinitionContainer, Entry[] values) {
+			this.classDefinitionContainer = classDefinitionContainer;
+			this.values = values;
+		}
+	}
+}
@@ -15,17 +15,15 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.io.Serializable;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractObjectMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class SerializableMarshaller extends AbstractObjectMarshaller {
 
@@ -35,15 +33,15 @@ public class SerializableMarshaller extends AbstractObjectMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
-		ObjectOutputStream stream = new ObjectOutputStream((OutputStream) dataOutput);
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		ObjectOutputStream stream = new ObjectOutputStream(dataOutput.asOutputStream());
 		stream.writeObject(value);
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(V value, Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
-		ObjectInputStream stream = new ObjectInputStream((InputStream) dataInput);
+	public <V> V unmarshall(V value, Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		ObjectInputStream stream = new ObjectInputStream(dataInput.asInputStream());
 		try {
 			return (V) stream.readObject();
 		}
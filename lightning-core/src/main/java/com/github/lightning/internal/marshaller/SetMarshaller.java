@@ -15,8 +15,6 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Arrays;
@@ -28,6 +26,8 @@ import com.github.lightning.SerializationContext;
 import com.github.lightning.TypeBindableMarshaller;
 import com.github.lightning.base.AbstractMarshaller;
 import com.github.lightning.exceptions.SerializerExecutionException;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.metadata.ClassDefinition;
 
 public class SetMarshaller extends AbstractMarshaller implements TypeBindableMarshaller {
@@ -36,6 +36,8 @@ public class SetMarshaller extends AbstractMarshaller implements TypeBindableMar
 
 	private Marshaller setTypeMarshaller;
 
+	private final PolymorphicTypeCache typeCache = new PolymorphicTypeCache();
+
 	public SetMarshaller() {
 		this(null);
 	}
@@ -50,24 +52,27 @@ public class SetMarshaller extends AbstractMarshaller implements TypeBindableMar
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (writePossibleNull(value, dataOutput)) {
 			Set<?> set = (Set<?>) value;
-			dataOutput.writeInt(set.size());
+			writeUnsignedInt(set.size(), dataOutput, serializationContext);
 			for (Object entry : set) {
 				if (writePossibleNull(entry, dataOutput)) {
+					PolymorphicTypeCache.Entry cacheEntry = typeCache.findByType(entry.getClass(), serializationContext);
+					if (cacheEntry == null) {
+						throw new SerializerExecutionException("No ClassDefinition found for type " + entry.getClass());
+					}
+
 					Marshaller marshaller;
 					if (setType != null) {
 						ensureMarshallerInitialized(serializationContext);
 						marshaller = setTypeMarshaller;
 					}
 					else {
-						marshaller = serializationContext.findMarshaller(entry.getClass());
+						marshaller = cacheEntry.getMarshaller();
 					}
 
-					ClassDefinition classDefinition = serializationContext.getClassDefinitionContainer().getClassDefinitionByType(entry.getClass());
-
-					dataOutput.writeLong(classDefinition.getId());
+					dataOutput.writeVarLong(cacheEntry.getId());
 					marshaller.marshall(entry, entry.getClass(), dataOutput, serializationContext);
 				}
 			}
@@ -76,12 +81,12 @@ public class SetMarshaller extends AbstractMarshaller implements TypeBindableMar
 
 	@Override
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		Set set = new HashSet(size);
 		if (size > 0) {
 			for (int i = 0; i < size; i++) {
@@ -89,8 +94,11 @@ public class SetMarshaller extends AbstractMarshaller implements TypeBindableMar
 					set.add(null);
 				}
 				else {
-					long classId = dataInput.readLong();
-					ClassDefinition classDefinition = serializationContext.getClassDefinitionContainer().getClassDefinitionById(classId);
+					long classId = dataInput.readVarLong();
+					PolymorphicTypeCache.Entry cacheEntry = typeCache.findById(classId, serializationContext);
+					if (cacheEntry == null) {
+						throw new SerializerExecutionException("No ClassDefinition found for id " + classId);
+					}
 
 					Marshaller marshaller;
 					if (setType != null) {
@@ -98,9 +106,10 @@ public class SetMarshaller extends AbstractMarshaller implements TypeBindableMar
 						marshaller = setTypeMarshaller;
 					}
 					else {
-						marshaller = serializationContext.findMarshaller(classDefinition.getType());
+						marshaller = cacheEntry.getMarshaller();
 					}
 
+					ClassDefinition classDefinition = cacheEntry.getClassDefinition();
 					set.add(marshaller.unmarshall(classDefinition.getType(), dataInput, serializationContext));
 				}
 			}
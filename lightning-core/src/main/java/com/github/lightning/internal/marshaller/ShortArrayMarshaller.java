@@ -15,12 +15,12 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.base.AbstractMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class ShortArrayMarshaller extends AbstractMarshaller {
 
@@ -30,41 +30,53 @@ public class ShortArrayMarshaller extends AbstractMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		if (!writePossibleNull(value, dataOutput)) {
 			return;
 		}
 
 		if (short[].class == type) {
 			short[] array = (short[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (short arrayValue : array) {
-				dataOutput.writeShort(arrayValue);
+			if (isCompact(serializationContext)) {
+				for (short arrayValue : array) {
+					writeShort(arrayValue, dataOutput, serializationContext);
+				}
+			}
+			else {
+				dataOutput.writeShorts(array, 0, array.length);
 			}
 		}
 		else {
 			Short[] array = (Short[]) value;
-			dataOutput.writeInt(array.length);
+			writeUnsignedInt(array.length, dataOutput, serializationContext);
 
-			for (short arrayValue : array) {
-				dataOutput.writeShort(arrayValue);
+			for (Short arrayValue : array) {
+				if (writePossibleNull(arrayValue, dataOutput)) {
+					writeShort(arrayValue, dataOutput, serializationContext);
+				}
 			}
 		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public <V> V unmarshall(Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		if (isNull(dataInput)) {
 			return null;
 		}
 
-		int size = dataInput.readInt();
+		int size = readUnsignedInt(dataInput, serializationContext);
 		if (short[].class == type) {
 			short[] array = new short[size];
-			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readShort();
+			if (isCompact(serializationContext)) {
+				for (int i = 0; i < size; i++) {
+					array[i] = readShort(dataInput, serializationContext);
+				}
+			}
+			else {
+				dataInput.readShorts(array, 0, size);
 			}
 
 			return (V) array;
@@ -72,7 +84,9 @@ public class ShortArrayMarshaller extends AbstractMarshaller {
 		else {
 			Short[] array = new Short[size];
 			for (int i = 0; i < size; i++) {
-				array[i] = dataInput.readShort();
+				if (!isNull(dataInput)) {
+					array[i] = readShort(dataInput, serializationContext);
+				}
 			}
 
 			return (V) array;
@@ -15,13 +15,13 @@
  */
 package com.github.lightning.internal.marshaller;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.lightning.SerializationContext;
 import com.github.lightning.Streamed;
 import com.github.lightning.base.AbstractObjectMarshaller;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 
 public class StreamedMarshaller extends AbstractObjectMarshaller {
 
@@ -31,13 +31,13 @@ public class StreamedMarshaller extends AbstractObjectMarshaller {
 	}
 
 	@Override
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
-		((Streamed) value).writeTo(dataOutput);
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		((Streamed) value).writeTo(dataOutput.asDataOutput());
 	}
 
 	@Override
-	public <V> V unmarshall(V value, Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
-		((Streamed) value).readFrom(dataInput);
+	public <V> V unmarshall(V value, Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+		((Streamed) value).readFrom(dataInput.asDataInput());
 		return value;
 	}
 }
@@ -36,7 +36,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.WeakHashMap;
 
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
@@ -51,6 +51,10 @@ import com.github.lightning.metadata.ClassDefinition;
 
 public final class ClassUtil {
 
+	// Type ids below FIRST_USER_TYPE_ID are reserved for build-in types
+	public static final int FIRST_USER_TYPE_ID = 100;
+	public static final int MAX_TYPE_ID = 0xFFFF;
+
 	public static final ClassDefinition[] CLASS_DESCRIPTORS = new ClassDefinition[] { new JavaBuildInTypeClassDefinition(boolean.class, 1),
 			new JavaBuildInTypeClassDefinition(Boolean.class, 2), new JavaBuildInTypeClassDefinition(byte.class, 3),
 			new JavaBuildInTypeClassDefinition(Byte.class, 4), new JavaBuildInTypeClassDefinition(char.class, 5),
@@ -64,7 +68,9 @@ public final class ClassUtil {
 			new JavaBuildInTypeClassDefinition(Map.class, 20), new JavaBuildInTypeClassDefinition(BigInteger.class, 21),
 			new JavaBuildInTypeClassDefinition(BigDecimal.class, 22) };
 
-	private static final Map<Class<?>, Long> SERIAL_VERSION_UID_CACHE = new ConcurrentHashMap<Class<?>, Long>();
+	// Weakly keyed to not prevent classes (e.g. of reloaded plugins) from
+	// being unloaded
+	private static final Map<Class<?>, Long> SERIAL_VERSION_UID_CACHE = Collections.synchronizedMap(new WeakHashMap<Class<?>, Long>());
 
 	private ClassUtil() {
 	}
@@ -74,6 +80,34 @@ public final class ClassUtil {
 				&& Float.class != type && Double.class != type;
 	}
 
+	public static Class<?> getPrimitiveType(Class<?> wrapperType) {
+		if (Boolean.class == wrapperType) {
+			return boolean.class;
+		}
+		else if (Byte.class == wrapperType) {
+			return byte.class;
+		}
+		else if (Character.class == wrapperType) {
+			return char.class;
+		}
+		else if (Short.class == wrapperType) {
+			return short.class;
+		}
+		else if (Integer.class == wrapperType) {
+			return int.class;
+		}
+		else if (Long.class == wrapperType) {
+			return long.class;
+		}
+		else if (Float.class == wrapperType) {
+			return float.class;
+		}
+		else if (Double.class == wrapperType) {
+			return double.class;
+		}
+		return null;
+	}
+
 	public static Class<?> loadClass(String canonicalName) throws ClassNotFoundException {
 		return loadClass(canonicalName, ClassUtil.class.getClassLoader());
 	}
@@ -325,6 +359,11 @@ public final class ClassUtil {
 			return serialVersionUID;
 		}
 
+		@Override
+		public long getLayoutFingerprint() {
+			return 0;
+		}
+
 		@Override
 		public int hashCode() {
 			final int prime = 31;
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from object identity to primitive int values. Keys are
+ * compared by reference, values are stored unboxed. Used to track already
+ * marshalled instances without allocating an entry per object.
+ */
+public final class IdentityIntMap {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private Object[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+	private int threshold;
+
+	public IdentityIntMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IdentityIntMap(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * Returns the value mapped to the given instance or -1 if it is unknown.
+	 */
+	public int get(Object key) {
+		Object[] keys = this.keys;
+		int index = hash(key) & mask;
+		Object candidate;
+		while ((candidate = keys[index]) != null) {
+			if (candidate == key) {
+				return values[index];
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	public void put(Object key, int value) {
+		Object[] keys = this.keys;
+		int index = hash(key) & mask;
+		Object candidate;
+		while ((candidate = keys[index]) != null) {
+			if (candidate == key) {
+				values[index] = value;
+				return;
+			}
+			index = (index + 1) & mask;
+		}
+
+		keys[index] = key;
+		values[index] = value;
+		if (++size > threshold) {
+			resize(keys.length << 1);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int capacity() {
+		return keys.length;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, null);
+		size = 0;
+	}
+
+	private void resize(int capacity) {
+		Object[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			Object key = oldKeys[i];
+			if (key != null) {
+				int index = hash(key) & mask;
+				while (keys[index] != null) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = key;
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new Object[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		// Keep the load factor at 0.5 so linear probe chains stay short
+		threshold = capacity >>> 1;
+	}
+
+	private static int hash(Object key) {
+		// Spread identity hashes which tend to cluster in the lower bits
+		int hash = System.identityHashCode(key) * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -20,8 +20,6 @@ import static org.junit.Assert.assertNotNull;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -35,8 +33,8 @@ import org.junit.Test;
 
 import com.github.lightning.base.AbstractObjectMarshaller;
 import com.github.lightning.base.AbstractSerializerDefinition;
-import com.github.lightning.io.SerializerInputStream;
-import com.github.lightning.io.SerializerOutputStream;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.metadata.Attribute;
 
 @Ignore
@@ -55,15 +53,11 @@ public class Benchmark {
 
 		long size = 0;
 		for (int i = 0; i < WARMUP_ROUNDS; i++) {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			SerializerOutputStream out = new SerializerOutputStream(baos, serializer);
 			Foo foo = buildRandomFoo();
-			out.writeObject(foo);
+			byte[] data = serializer.serialize(foo);
 
-			assertNotNull(baos);
-			assertNotNull(out);
-			assertNotNull(baos.toByteArray());
-			size = baos.toByteArray().length;
+			assertNotNull(data);
+			size = data.length;
 		}
 
 		try {
@@ -77,12 +71,10 @@ public class Benchmark {
 			Foo foo = buildRandomFoo();
 
 			long startTime = System.nanoTime();
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			SerializerOutputStream out = new SerializerOutputStream(baos, serializer);
-			out.writeObject(foo);
+			byte[] data = serializer.serialize(foo);
 
 			time += System.nanoTime() - startTime;
-			assertNotNull(baos.toByteArray());
+			assertNotNull(data);
 		}
 
 		double avg = time / (double) BENCHMARK_ROUNDS;
@@ -104,19 +96,13 @@ public class Benchmark {
 
 		long size = 0;
 		for (int i = 0; i < WARMUP_ROUNDS; i++) {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			SerializerOutputStream out = new SerializerOutputStream(baos, serializer);
 			Foo foo = buildRandomFoo();
-			out.writeObject(foo);
+			byte[] data = serializer.serialize(foo);
 
-			assertNotNull(baos);
-			assertNotNull(out);
-			assertNotNull(baos.toByteArray());
-			size = baos.toByteArray().length;
+			assertNotNull(data);
+			size = data.length;
 
-			ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-			SerializerInputStream in = new SerializerInputStream(bais, serializer);
-			Object value = in.readObject();
+			Object value = serializer.deserialize(data, 0, data.length);
 			assertNotNull(value);
 			assertEquals(foo, value);
 		}
@@ -131,14 +117,10 @@ public class Benchmark {
 		for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
 			Foo foo = buildRandomFoo();
 
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			SerializerOutputStream out = new SerializerOutputStream(baos, serializer);
-			out.writeObject(foo);
+			byte[] data = serializer.serialize(foo);
 
 			long startTime = System.nanoTime();
-			ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-			SerializerInputStream in = new SerializerInputStream(bais, serializer);
-			Object value = in.readObject();
+			Object value = serializer.deserialize(data, 0, data.length);
 			time += System.nanoTime() - startTime;
 			assertNotNull(value);
 			assertEquals(foo, value);
@@ -406,11 +388,11 @@ public class Benchmark {
 		}
 
 		@Override
-		public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		}
 
 		@Override
-		public <V> V unmarshall(V value, Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+		public <V> V unmarshall(V value, Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 			return null;
 		}
 	}
@@ -423,11 +405,11 @@ public class Benchmark {
 		}
 
 		@Override
-		public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+		public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		}
 
 		@Override
-		public <V> V unmarshall(V value, Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+		public <V> V unmarshall(V value, Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 			return value;
 		}
 
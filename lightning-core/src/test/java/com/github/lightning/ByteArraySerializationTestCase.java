@@ -0,0 +1,164 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class ByteArraySerializationTestCase {
+
+	@Test
+	public void testByteArrayRoundTrip() throws Exception {
+		Serializer serializer = buildSerializer();
+		Holder value = new Holder(42, "lightning");
+
+		byte[] data = serializer.serialize(value);
+		Object result = serializer.deserialize(data, 0, data.length);
+		assertEquals(value, result);
+	}
+
+	@Test
+	public void testByteArrayMatchesStreamFormat() throws Exception {
+		Serializer serializer = buildSerializer();
+		Holder value = new Holder(-1, "stream");
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serialize(value, baos);
+
+		assertArrayEquals(baos.toByteArray(), serializer.serialize(value));
+	}
+
+	@Test
+	public void testGrowingAndShrinkingValues() throws Exception {
+		Serializer serializer = buildSerializer();
+
+		for (int length : new int[] { 0, 10, 200000, 1, 5000, 3 }) {
+			char[] chars = new char[length];
+			Arrays.fill(chars, 'x');
+			Holder value = new Holder(length, new String(chars));
+
+			byte[] data = serializer.serialize(value);
+			Object result = serializer.deserialize(data, 0, data.length);
+			assertEquals(value, result);
+		}
+	}
+
+	@Test
+	public void testDeserializeWithOffset() throws Exception {
+		Serializer serializer = buildSerializer();
+		Holder value1 = new Holder(1, "first");
+		Holder value2 = new Holder(2, "second");
+
+		byte[] data1 = serializer.serialize(value1);
+		byte[] data2 = serializer.serialize(value2);
+		byte[] data = new byte[data1.length + data2.length + 3];
+		System.arraycopy(data1, 0, data, 3, data1.length);
+		System.arraycopy(data2, 0, data, 3 + data1.length, data2.length);
+
+		assertEquals(value1, serializer.deserialize(data, 3, data1.length));
+		assertEquals(value2, serializer.deserialize(data, 3 + data1.length, data2.length));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testDeserializeOutOfBounds() throws Exception {
+		Serializer serializer = buildSerializer();
+		byte[] data = serializer.serialize(new Holder(1, "value"));
+		serializer.deserialize(data, 1, data.length);
+	}
+
+	private Serializer buildSerializer() {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Holder.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Holder {
+
+		@Attribute
+		private int id;
+
+		@Attribute
+		private String text;
+
+		public Holder() {
+		}
+
+		public Holder(int id, String text) {
+			this.id = id;
+			this.text = text;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public void setText(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + id;
+			result = prime * result + ((text == null) ? 0 : text.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Holder other = (Holder) obj;
+			if (id != other.id)
+				return false;
+			if (text == null) {
+				if (other.text != null)
+					return false;
+			}
+			else if (!text.equals(other.text))
+				return false;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.io.LightningOutput;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class ByteBufferSerializationTestCase {
+
+	@Test
+	public void testHeapByteBuffer() throws Exception {
+		Serializer serializer = buildSerializer(ByteOrder.BIG_ENDIAN);
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		assertRoundTrip(serializer, buffer);
+	}
+
+	@Test
+	public void testDirectByteBuffer() throws Exception {
+		Serializer serializer = buildSerializer(ByteOrder.BIG_ENDIAN);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+		assertRoundTrip(serializer, buffer);
+	}
+
+	@Test
+	public void testLittleEndianByteBuffers() throws Exception {
+		Serializer serializer = buildSerializer(ByteOrder.LITTLE_ENDIAN);
+		assertRoundTrip(serializer, ByteBuffer.allocate(1024));
+		assertRoundTrip(serializer, ByteBuffer.allocateDirect(1024));
+	}
+
+	@Test
+	public void testSlicedHeapByteBuffer() throws Exception {
+		Serializer serializer = buildSerializer(ByteOrder.BIG_ENDIAN);
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		buffer.position(17);
+		assertRoundTrip(serializer, buffer.slice());
+	}
+
+	@Test
+	public void testByteBufferMatchesStreamFormat() throws Exception {
+		Serializer serializer = buildSerializer(ByteOrder.BIG_ENDIAN);
+		Holder value = buildHolder();
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serialize(value, baos);
+		byte[] expected = baos.toByteArray();
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+		serializer.serialize(value, buffer);
+		assertEquals(expected.length, buffer.position());
+
+		buffer.flip();
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], buffer.get(i));
+		}
+	}
+
+	@Test
+	public void testDirectByteBufferToByteArray() throws Exception {
+		assertToByteArray(ByteBuffer.allocateDirect(64));
+	}
+
+	@Test
+	public void testSlicedByteBufferToByteArray() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		buffer.position(9);
+		assertToByteArray(buffer.slice());
+
+		buffer = ByteBuffer.allocateDirect(64);
+		buffer.position(9);
+		assertToByteArray(buffer.slice());
+	}
+
+	@Test
+	public void testPositionedByteBufferToByteArray() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		buffer.position(5);
+		assertToByteArray(buffer);
+
+		buffer = ByteBuffer.allocateDirect(64);
+		buffer.position(5);
+		assertToByteArray(buffer);
+
+		// Sliced and positioned
+		buffer = ByteBuffer.allocate(64);
+		buffer.position(9);
+		buffer = buffer.slice();
+		buffer.position(5);
+		assertToByteArray(buffer);
+	}
+
+	private void assertToByteArray(ByteBuffer buffer) throws Exception {
+		int position = buffer.position();
+		LightningOutput output = new LightningOutput(buffer);
+		output.writeInt(0x01020304);
+		output.writeString("lightning");
+
+		LightningOutput expected = new LightningOutput();
+		expected.writeInt(0x01020304);
+		expected.writeString("lightning");
+
+		assertArrayEquals(expected.toByteArray(), output.toByteArray());
+		assertEquals(position, buffer.position());
+	}
+
+	private void assertRoundTrip(Serializer serializer, ByteBuffer buffer) {
+		Holder value1 = buildHolder();
+		Holder value2 = buildHolder();
+		value2.setText("second ä世");
+		value2.setLongValue(-1L);
+
+		serializer.serialize(value1, buffer);
+		serializer.serialize(value2, buffer);
+		buffer.flip();
+
+		Object result1 = serializer.deserialize(buffer);
+		Object result2 = serializer.deserialize(buffer);
+
+		assertNotNull(result1);
+		assertNotNull(result2);
+		assertEquals(value1, result1);
+		assertEquals(value2, result2);
+		assertEquals(buffer.limit(), buffer.position());
+	}
+
+	private Holder buildHolder() {
+		Holder value = new Holder();
+		value.setIntValue(0x01020304);
+		value.setLongValue(0x0102030405060708L);
+		value.setShortValue((short) 0x0102);
+		value.setCharValue('世');
+		value.setDoubleValue(Math.PI);
+		value.setText("lightning");
+		return value;
+	}
+
+	private Serializer buildSerializer(ByteOrder byteOrder) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target")).byteOrder(byteOrder)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Holder.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Holder {
+
+		@Attribute
+		private int intValue;
+
+		@Attribute
+		private long longValue;
+
+		@Attribute
+		private short shortValue;
+
+		@Attribute
+		private char charValue;
+
+		@Attribute
+		private double doubleValue;
+
+		@Attribute
+		private String text;
+
+		public int getIntValue() {
+			return intValue;
+		}
+
+		public void setIntValue(int intValue) {
+			this.intValue = intValue;
+		}
+
+		public long getLongValue() {
+			return longValue;
+		}
+
+		public void setLongValue(long longValue) {
+			this.longValue = longValue;
+		}
+
+		public short getShortValue() {
+			return shortValue;
+		}
+
+		public void setShortValue(short shortValue) {
+			this.shortValue = shortValue;
+		}
+
+		public char getCharValue() {
+			return charValue;
+		}
+
+		public void setCharValue(char charValue) {
+			this.charValue = charValue;
+		}
+
+		public double getDoubleValue() {
+			return doubleValue;
+		}
+
+		public void setDoubleValue(double doubleValue) {
+			this.doubleValue = doubleValue;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public void setText(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + intValue;
+			result = prime * result + (int) (longValue ^ (longValue >>> 32));
+			result = prime * result + shortValue;
+			result = prime * result + charValue;
+			long temp = Double.doubleToLongBits(doubleValue);
+			result = prime * result + (int) (temp ^ (temp >>> 32));
+			result = prime * result + ((text == null) ? 0 : text.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Holder other = (Holder) obj;
+			if (intValue != other.intValue)
+				return false;
+			if (longValue != other.longValue)
+				return false;
+			if (shortValue != other.shortValue)
+				return false;
+			if (charValue != other.charValue)
+				return false;
+			if (Double.doubleToLongBits(doubleValue) != Double.doubleToLongBits(other.doubleValue))
+				return false;
+			if (text == null) {
+				if (other.text != null)
+					return false;
+			}
+			else if (!text.equals(other.text))
+				return false;
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "Holder [intValue=" + intValue + ", longValue=" + longValue + ", shortValue=" + shortValue + ", charValue=" + charValue
+					+ ", doubleValue=" + doubleValue + ", text=" + text + "]";
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.metadata.Attribute;
+
+public class ClassUnloadingTestCase {
+
+	@Test
+	public void testPluginClassLoaderIsCollectable() throws Exception {
+		WeakReference<ClassLoader> reference = serializeWithPlugin();
+
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+
+		assertNull(reference.get());
+	}
+
+	private WeakReference<ClassLoader> serializeWithPlugin() throws Exception {
+		ClassLoader pluginClassLoader = new PluginClassLoader(getClass().getClassLoader());
+		final Class<?> pluginType = pluginClassLoader.loadClass(UnloadablePluginBean.class.getName());
+		assertNotSame(UnloadablePluginBean.class, pluginType);
+
+		Serializer serializer = Lightning.newBuilder().serializerDefinitions(new AbstractSerializerDefinition() {
+
+			@Override
+			protected void configure() {
+				bind(pluginType).attributes();
+			}
+		}).build();
+
+		Constructor<?> constructor = pluginType.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		Object value = constructor.newInstance();
+		Field field = pluginType.getDeclaredField("value");
+		field.setAccessible(true);
+		field.set(value, "foo");
+
+		byte[] data = serializer.serialize(value);
+		Object result = serializer.deserialize(data, 0, data.length);
+		assertEquals(pluginType, result.getClass());
+		assertEquals("foo", field.get(result));
+
+		return new WeakReference<ClassLoader>(pluginClassLoader);
+	}
+
+	// Loads UnloadablePluginBean itself, everything else is delegated to the parent
+	private static class PluginClassLoader extends ClassLoader {
+
+		private PluginClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!UnloadablePluginBean.class.getName().equals(name)) {
+				return super.loadClass(name, resolve);
+			}
+
+			Class<?> type = findLoadedClass(name);
+			if (type == null) {
+				byte[] bytecode = readBytecode(name);
+				type = defineClass(name, bytecode, 0, bytecode.length);
+			}
+			return type;
+		}
+
+		private byte[] readBytecode(String name) throws ClassNotFoundException {
+			InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[1024];
+				int length;
+				while ((length = in.read(buffer)) != -1) {
+					out.write(buffer, 0, length);
+				}
+				in.close();
+				return out.toByteArray();
+			}
+			catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+		}
+	}
+}
+
+class UnloadablePluginBean {
+
+	@Attribute
+	private String value;
+}
@@ -0,0 +1,284 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class CompactIntegerEncodingTestCase {
+
+	private static final int[] INT_VALUES = { 0, 1, -1, 63, -64, 64, 127, 128, 16383, 16384, Integer.MAX_VALUE, Integer.MIN_VALUE };
+	private static final long[] LONG_VALUES = { 0, 1, -1, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE };
+
+	@Test
+	public void testVarIntRoundTrip() throws Exception {
+		LightningOutput output = new LightningOutput();
+		for (int value : INT_VALUES) {
+			output.writeVarInt(value);
+			output.writeSignedVarInt(value);
+		}
+		for (long value : LONG_VALUES) {
+			output.writeVarLong(value);
+			output.writeSignedVarLong(value);
+		}
+
+		LightningInput input = new LightningInput(output.toByteArray());
+		for (int value : INT_VALUES) {
+			assertEquals(value, input.readVarInt());
+			assertEquals(value, input.readSignedVarInt());
+		}
+		for (long value : LONG_VALUES) {
+			assertEquals(value, input.readVarLong());
+			assertEquals(value, input.readSignedVarLong());
+		}
+	}
+
+	@Test
+	public void testVarIntLength() throws Exception {
+		assertEquals(1, varIntLength(0));
+		assertEquals(1, varIntLength(127));
+		assertEquals(2, varIntLength(128));
+		assertEquals(5, varIntLength(-1));
+
+		LightningOutput output = new LightningOutput();
+		output.writeSignedVarInt(-1);
+		assertEquals(1, output.position());
+	}
+
+	@Test
+	public void testCompactRoundTrip() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = buildSerializer(IntegerEncodingStrategy.Compact, serializationStrategy);
+			for (int i = 0; i < INT_VALUES.length; i++) {
+				Numbers value = buildNumbers(INT_VALUES[i], LONG_VALUES[i % LONG_VALUES.length]);
+				byte[] data = serializer.serialize(value);
+				Object result = serializer.deserialize(data, 0, data.length);
+				assertEquals(value, result);
+			}
+		}
+	}
+
+	@Test
+	public void testCompactIsSmaller() throws Exception {
+		Numbers value = buildNumbers(42, 4242);
+
+		byte[] fixed = buildSerializer(IntegerEncodingStrategy.FixedLength, SerializationStrategy.SpeedOptimized).serialize(value);
+		byte[] compact = buildSerializer(IntegerEncodingStrategy.Compact, SerializationStrategy.SpeedOptimized).serialize(value);
+
+		assertTrue("compact=" + compact.length + ", fixed=" + fixed.length, compact.length < fixed.length);
+	}
+
+	private int varIntLength(int value) throws Exception {
+		LightningOutput output = new LightningOutput();
+		output.writeVarInt(value);
+		return output.position();
+	}
+
+	private Numbers buildNumbers(int intValue, long longValue) {
+		Numbers value = new Numbers();
+		value.setIntValue(intValue);
+		value.setLongValue(longValue);
+		value.setShortValue((short) intValue);
+		value.setCharValue((char) intValue);
+		value.setIntegerValue(intValue);
+		value.setLongWrapperValue(longValue);
+		value.setInts(new int[] { intValue, -intValue, 0 });
+		value.setNames(new String[] { "a", String.valueOf(intValue) });
+
+		List<Integer> list = new ArrayList<Integer>();
+		list.add(intValue);
+		list.add(7);
+		value.setList(list);
+		return value;
+	}
+
+	private Serializer buildSerializer(IntegerEncodingStrategy integerEncodingStrategy, SerializationStrategy serializationStrategy) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.integerEncodingStrategy(integerEncodingStrategy).serializationStrategy(serializationStrategy)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Numbers.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Numbers {
+
+		@Attribute
+		private int intValue;
+
+		@Attribute
+		private long longValue;
+
+		@Attribute
+		private short shortValue;
+
+		@Attribute
+		private char charValue;
+
+		@Attribute
+		private Integer integerValue;
+
+		@Attribute
+		private Long longWrapperValue;
+
+		@Attribute
+		private int[] ints;
+
+		@Attribute
+		private String[] names;
+
+		@Attribute
+		private List<Integer> list;
+
+		public int getIntValue() {
+			return intValue;
+		}
+
+		public void setIntValue(int intValue) {
+			this.intValue = intValue;
+		}
+
+		public long getLongValue() {
+			return longValue;
+		}
+
+		public void setLongValue(long longValue) {
+			this.longValue = longValue;
+		}
+
+		public short getShortValue() {
+			return shortValue;
+		}
+
+		public void setShortValue(short shortValue) {
+			this.shortValue = shortValue;
+		}
+
+		public char getCharValue() {
+			return charValue;
+		}
+
+		public void setCharValue(char charValue) {
+			this.charValue = charValue;
+		}
+
+		public Integer getIntegerValue() {
+			return integerValue;
+		}
+
+		public void setIntegerValue(Integer integerValue) {
+			this.integerValue = integerValue;
+		}
+
+		public Long getLongWrapperValue() {
+			return longWrapperValue;
+		}
+
+		public void setLongWrapperValue(Long longWrapperValue) {
+			this.longWrapperValue = longWrapperValue;
+		}
+
+		public int[] getInts() {
+			return ints;
+		}
+
+		public void setInts(int[] ints) {
+			this.ints = ints;
+		}
+
+		public String[] getNames() {
+			return names;
+		}
+
+		public void setNames(String[] names) {
+			this.names = names;
+		}
+
+		public List<Integer> getList() {
+			return list;
+		}
+
+		public void setList(List<Integer> list) {
+			this.list = list;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + intValue;
+			result = prime * result + (int) (longValue ^ (longValue >>> 32));
+			result = prime * result + shortValue;
+			result = prime * result + charValue;
+			result = prime * result + Arrays.hashCode(ints);
+			result = prime * result + Arrays.hashCode(names);
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Numbers other = (Numbers) obj;
+			if (intValue != other.intValue)
+				return false;
+			if (longValue != other.longValue)
+				return false;
+			if (shortValue != other.shortValue)
+				return false;
+			if (charValue != other.charValue)
+				return false;
+			if (integerValue == null ? other.integerValue != null : !integerValue.equals(other.integerValue))
+				return false;
+			if (longWrapperValue == null ? other.longWrapperValue != null : !longWrapperValue.equals(other.longWrapperValue))
+				return false;
+			if (!Arrays.equals(ints, other.ints))
+				return false;
+			if (!Arrays.equals(names, other.names))
+				return false;
+			if (list == null ? other.list != null : !list.equals(other.list))
+				return false;
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "Numbers [intValue=" + intValue + ", longValue=" + longValue + ", shortValue=" + shortValue + ", charValue=" + (int) charValue
+					+ ", integerValue=" + integerValue + ", longWrapperValue=" + longWrapperValue + ", ints=" + Arrays.toString(ints) + ", names="
+					+ Arrays.toString(names) + ", list=" + list + "]";
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import org.junit.Test;
+
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
+
+public class DataViewTestCase {
+
+	private static final String LINES = "first\nsecond\r\nthird\r\rfifthé\r";
+
+	@Test
+	public void testReadLine() throws Exception {
+		byte[] data = LINES.getBytes("ISO-8859-1");
+
+		assertLines(data, new LightningInput(data).asDataInput());
+		assertLines(data, new LightningInput(new ByteArrayInputStream(data)).asDataInput());
+	}
+
+	@Test
+	public void testReadLineKeepsFollowingBytes() throws Exception {
+		LightningOutput output = new LightningOutput();
+		output.asDataOutput().writeBytes("line\r");
+		output.writeInt(42);
+
+		LightningInput input = new LightningInput(new ByteArrayInputStream(output.toByteArray()));
+		assertEquals("line", input.asDataInput().readLine());
+		assertEquals(42, input.readInt());
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadObjectWithoutObjectInput() throws Exception {
+		((ObjectInput) new LightningInput(new byte[0]).asDataInput()).readObject();
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteObjectWithoutObjectOutput() throws Exception {
+		((ObjectOutput) new LightningOutput().asDataOutput()).writeObject("value");
+	}
+
+	@SuppressWarnings("deprecation")
+	private void assertLines(byte[] data, DataInput dataInput) throws IOException {
+		DataInputStream expected = new DataInputStream(new ByteArrayInputStream(data));
+		String line;
+		do {
+			line = expected.readLine();
+			assertEquals(line, dataInput.readLine());
+		}
+		while (line != null);
+	}
+}
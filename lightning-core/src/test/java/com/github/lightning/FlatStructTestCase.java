@@ -0,0 +1,167 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.exceptions.ClassDefinitionInconsistentException;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightning.metadata.ClassDefinitionContainer;
+
+public class FlatStructTestCase {
+
+	@Test
+	public void testFlatStruct() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = buildSerializer(serializationStrategy, true);
+			assertTrue(getLayoutFingerprint(serializer, Quote.class) != 0);
+
+			Quote value = new Quote();
+			value.timestamp = 1234567890123L;
+			value.bid = 1.25;
+			value.ask = 1.5;
+			value.size = -42;
+			value.weight = 0.5f;
+			value.venue = 7;
+			value.side = 'B';
+			value.flags = (byte) 0x81;
+			value.active = true;
+
+			byte[] data = serializer.serialize(value);
+			Quote result = serializer.deserialize(data, 0, data.length);
+
+			assertEquals(value.timestamp, result.timestamp);
+			assertEquals(value.bid, result.bid, 0.0);
+			assertEquals(value.ask, result.ask, 0.0);
+			assertEquals(value.size, result.size);
+			assertEquals(value.weight, result.weight, 0.0f);
+			assertEquals(value.venue, result.venue);
+			assertEquals(value.side, result.side);
+			assertEquals(value.flags, result.flags);
+			assertEquals(value.active, result.active);
+
+			// Nested flat structs are written by their own marshaller
+			Trade trade = new Trade();
+			trade.id = "T1";
+			trade.quote = value;
+
+			data = serializer.serialize(trade);
+			Trade tradeResult = serializer.deserialize(data, 0, data.length);
+			assertEquals("T1", tradeResult.id);
+			assertEquals(value.timestamp, tradeResult.quote.timestamp);
+			assertEquals(value.side, tradeResult.quote.side);
+		}
+	}
+
+	@Test
+	public void testNonFlatTypes() throws Exception {
+		Serializer serializer = buildSerializer(SerializationStrategy.SpeedOptimized, true);
+		assertEquals(0, getLayoutFingerprint(serializer, Trade.class));
+
+		serializer = buildSerializer(SerializationStrategy.SpeedOptimized, false);
+		assertEquals(0, getLayoutFingerprint(serializer, Quote.class));
+	}
+
+	@Test
+	public void testLayoutFingerprintIsTransferred() throws Exception {
+		Serializer serializer1 = buildSerializer(SerializationStrategy.SpeedOptimized, true);
+		Serializer serializer2 = buildSerializer(SerializationStrategy.SpeedOptimized, true);
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(baos);
+		out.writeObject(serializer1.getClassDefinitionContainer());
+		out.close();
+
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		ClassDefinitionContainer classDefinitionContainer = (ClassDefinitionContainer) in.readObject();
+
+		assertEquals(getLayoutFingerprint(serializer1, Quote.class), classDefinitionContainer.getClassDefinitionByType(Quote.class)
+				.getLayoutFingerprint());
+		serializer2.setClassDefinitionContainer(classDefinitionContainer);
+	}
+
+	@Test(expected = ClassDefinitionInconsistentException.class)
+	public void testLayoutMismatch() throws Exception {
+		Serializer serializer1 = buildSerializer(SerializationStrategy.SpeedOptimized, true);
+		Serializer serializer2 = buildSerializer(SerializationStrategy.SpeedOptimized, false);
+
+		serializer2.setClassDefinitionContainer(serializer1.getClassDefinitionContainer());
+	}
+
+	private long getLayoutFingerprint(Serializer serializer, Class<?> type) {
+		return serializer.getClassDefinitionContainer().getClassDefinitionByType(type).getLayoutFingerprint();
+	}
+
+	private Serializer buildSerializer(SerializationStrategy serializationStrategy, boolean flatStructs) {
+		return Lightning.newBuilder().serializationStrategy(serializationStrategy).flatStructs(flatStructs)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Trade.class).attributes();
+						bind(Quote.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Quote {
+
+		@Attribute
+		private long timestamp;
+
+		@Attribute
+		private double bid;
+
+		@Attribute
+		private double ask;
+
+		@Attribute
+		private int size;
+
+		@Attribute
+		private float weight;
+
+		@Attribute
+		private short venue;
+
+		@Attribute
+		private char side;
+
+		@Attribute
+		private byte flags;
+
+		@Attribute
+		private boolean active;
+	}
+
+	public static class Trade {
+
+		@Attribute
+		private String id;
+
+		@Attribute
+		private Quote quote;
+	}
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.internal.ClassDescriptorAwareSerializer;
+import com.github.lightning.metadata.Attribute;
+
+public class GeneratedInstantiatorTestCase {
+
+	@Test
+	public void testPublicConstructorIsInvoked() throws Exception {
+		Serializer serializer = buildSerializer();
+		assertTrue(declaresNewInstance(serializer, ConstructedBean.class));
+
+		ConstructedBean value = new ConstructedBean();
+		value.setValue(42);
+
+		byte[] data = serializer.serialize(value);
+		ConstructedBean result = serializer.deserialize(data, 0, data.length);
+		assertEquals(42, result.getValue());
+		assertTrue(result.isConstructed());
+	}
+
+	@Test
+	public void testSerializableTypeIsAllocated() throws Exception {
+		Serializer serializer = buildSerializer();
+		assertTrue(declaresNewInstance(serializer, SerializableBean.class));
+
+		SerializableBean value = new SerializableBean();
+		value.setValue(42);
+
+		byte[] data = serializer.serialize(value);
+		SerializableBean result = serializer.deserialize(data, 0, data.length);
+		assertEquals(42, result.getValue());
+
+		// Like Java serialization no constructor of a Serializable type is
+		// called
+		assertFalse(result.isInitialized());
+	}
+
+	@Test
+	public void testPrivateConstructorTypeIsAllocated() throws Exception {
+		Serializer serializer = buildSerializer();
+		assertTrue(declaresNewInstance(serializer, PrivateConstructorBean.class));
+
+		PrivateConstructorBean value = PrivateConstructorBean.newBean();
+		value.setValue(42);
+
+		byte[] data = serializer.serialize(value);
+		PrivateConstructorBean result = serializer.deserialize(data, 0, data.length);
+		assertEquals(42, result.getValue());
+	}
+
+	@Test
+	public void testArgumentConstructorTypeIsAllocated() throws Exception {
+		Serializer serializer = buildSerializer();
+		assertTrue(declaresNewInstance(serializer, ArgumentConstructorBean.class));
+
+		ArgumentConstructorBean value = new ArgumentConstructorBean(42);
+
+		byte[] data = serializer.serialize(value);
+		ArgumentConstructorBean result = serializer.deserialize(data, 0, data.length);
+		assertEquals(42, result.getValue());
+		assertFalse(result.isConstructed());
+	}
+
+	@Test
+	public void testSerializableSubclassFallsBackToInstantiator() throws Exception {
+		Serializer serializer = buildSerializer();
+		assertFalse(declaresNewInstance(serializer, SerializableChildBean.class));
+
+		SerializableChildBean value = new SerializableChildBean();
+		value.setValue(42);
+
+		byte[] data = serializer.serialize(value);
+		SerializableChildBean result = serializer.deserialize(data, 0, data.length);
+		assertEquals(42, result.getValue());
+	}
+
+	private boolean declaresNewInstance(Serializer serializer, Class<?> type) {
+		Marshaller marshaller = ((ClassDescriptorAwareSerializer) serializer).findClassDescriptor(type).getMarshaller();
+		for (Method method : marshaller.getClass().getDeclaredMethods()) {
+			if ("newInstance".equals(method.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Serializer buildSerializer() {
+		return Lightning.newBuilder().serializerDefinitions(new AbstractSerializerDefinition() {
+
+			@Override
+			protected void configure() {
+				bind(ConstructedBean.class).attributes();
+				bind(SerializableBean.class).attributes();
+				bind(PrivateConstructorBean.class).attributes();
+				bind(ArgumentConstructorBean.class).attributes();
+				bind(SerializableChildBean.class).attributes();
+			}
+		}).build();
+	}
+
+	public static class ConstructedBean {
+
+		@Attribute
+		private int value;
+
+		private boolean constructed;
+
+		public ConstructedBean() {
+			constructed = true;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+
+		public boolean isConstructed() {
+			return constructed;
+		}
+	}
+
+	public static class SerializableBean implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Attribute
+		private int value;
+
+		private boolean initialized = true;
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+
+		public boolean isInitialized() {
+			return initialized;
+		}
+	}
+
+	public static class PrivateConstructorBean {
+
+		@Attribute
+		private int value;
+
+		private PrivateConstructorBean() {
+		}
+
+		public static PrivateConstructorBean newBean() {
+			return new PrivateConstructorBean();
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+
+	public static class ArgumentConstructorBean {
+
+		@Attribute
+		private int value;
+
+		private boolean constructed;
+
+		public ArgumentConstructorBean(int value) {
+			this.value = value;
+			this.constructed = true;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+
+		public boolean isConstructed() {
+			return constructed;
+		}
+	}
+
+	public static class NonSerializableBase {
+
+		public NonSerializableBase() {
+		}
+	}
+
+	// The no-arg constructor of the base class has to be called
+	public static class SerializableChildBean extends NonSerializableBase implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Attribute
+		private int value;
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class InlineFieldAccessTestCase {
+
+	@Test
+	public void testFieldAccess() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+					.serializationStrategy(serializationStrategy).serializerDefinitions(new AbstractSerializerDefinition() {
+
+						@Override
+						protected void configure() {
+							bind(Fields.class).attributes();
+						}
+					}).build();
+
+			Fields value = new Fields(42L);
+			value.publicInt = -7;
+			value.publicString = "public";
+			value.publicStrings = new String[] { "a", null };
+			value.publicInteger = Integer.valueOf(13);
+			value.setPrivateDouble(1.25);
+			value.setInherited("inherited");
+
+			byte[] data = serializer.serialize(value);
+			Fields result = serializer.deserialize(data, 0, data.length);
+
+			assertEquals(-7, result.publicInt);
+			assertEquals("public", result.publicString);
+			assertArrayEquals(new String[] { "a", null }, result.publicStrings);
+			assertEquals(Integer.valueOf(13), result.publicInteger);
+			assertEquals(1.25, result.getPrivateDouble(), 0.0);
+			assertEquals("inherited", result.getInherited());
+			assertEquals(42L, result.getFinalLong());
+
+			value = new Fields(0L);
+			data = serializer.serialize(value);
+			result = serializer.deserialize(data, 0, data.length);
+
+			assertEquals(0, result.publicInt);
+			assertNull(result.publicString);
+			assertNull(result.publicStrings);
+			assertNull(result.publicInteger);
+			assertNull(result.getInherited());
+		}
+	}
+
+	public static class Base {
+
+		@Attribute
+		private String inherited;
+
+		public String getInherited() {
+			return inherited;
+		}
+
+		public void setInherited(String inherited) {
+			this.inherited = inherited;
+		}
+	}
+
+	public static class Fields extends Base {
+
+		@Attribute
+		public int publicInt;
+
+		@Attribute
+		public String publicString;
+
+		@Attribute
+		public String[] publicStrings;
+
+		@Attribute
+		public Integer publicInteger;
+
+		@Attribute
+		private double privateDouble;
+
+		@Attribute
+		private final long finalLong;
+
+		public Fields() {
+			this(0L);
+		}
+
+		public Fields(long finalLong) {
+			this.finalLong = finalLong;
+		}
+
+		public double getPrivateDouble() {
+			return privateDouble;
+		}
+
+		public void setPrivateDouble(double privateDouble) {
+			this.privateDouble = privateDouble;
+		}
+
+		public long getFinalLong() {
+			return finalLong;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import com.github.lightning.configuration.SerializerDefinition;
+import com.github.lightning.generator.DefinitionBuildingContext;
+import com.github.lightning.generator.DefinitionVisitor;
+import com.github.lightning.instantiator.ObjectInstantiatorFactory;
+import com.github.lightning.internal.InternalMarshallerContext;
+import com.github.lightning.metadata.PropertyDescriptor;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class MethodPropertyAccessTestCase {
+
+	@Test
+	public void testMethodAccess() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+					.serializationStrategy(serializationStrategy)
+					.serializerDefinitions(new MethodSerializerDefinition(PublicMethods.class, "getCount", "getName", "getTotal")).build();
+
+			PublicMethods value = new PublicMethods();
+			value.setCount(-7);
+			value.setName("public");
+			value.setTotal(Long.MAX_VALUE);
+
+			byte[] data = serializer.serialize(value);
+			PublicMethods result = serializer.deserialize(data, 0, data.length);
+
+			assertEquals(-7, result.getCount());
+			assertEquals("public", result.getName());
+			assertEquals(Long.MAX_VALUE, result.getTotal());
+
+			data = serializer.serialize(new PublicMethods());
+			result = serializer.deserialize(data, 0, data.length);
+
+			assertEquals(0, result.getCount());
+			assertNull(result.getName());
+			assertEquals(0L, result.getTotal());
+		}
+	}
+
+	@Test
+	public void testNonPublicMethodAccess() throws Exception {
+		Serializer serializer = Lightning.newBuilder().logger(new DebugLogger())
+				.serializerDefinitions(new MethodSerializerDefinition(HiddenMethods.class, "getValue")).build();
+
+		HiddenMethods value = new HiddenMethods();
+		value.setValue("hidden");
+
+		byte[] data = serializer.serialize(value);
+		HiddenMethods result = serializer.deserialize(data, 0, data.length);
+
+		assertEquals("hidden", result.getValue());
+	}
+
+	private static class MethodSerializerDefinition implements SerializerDefinition {
+
+		private final Class<?> type;
+		private final String[] getterNames;
+
+		private DefinitionBuildingContext definitionBuildingContext;
+
+		private MethodSerializerDefinition(Class<?> type, String... getterNames) {
+			this.type = type;
+			this.getterNames = getterNames;
+		}
+
+		@Override
+		public void configure(DefinitionBuildingContext definitionBuildingContext, ObjectInstantiatorFactory instantiator) {
+			this.definitionBuildingContext = definitionBuildingContext;
+		}
+
+		@Override
+		public void acceptVisitor(DefinitionVisitor visitor) {
+			visitor.visitSerializerDefinition(this);
+
+			for (String getterName : getterNames) {
+				Method getter;
+				try {
+					getter = type.getDeclaredMethod(getterName);
+				}
+				catch (NoSuchMethodException e) {
+					throw new IllegalArgumentException(e);
+				}
+
+				Marshaller marshaller = definitionBuildingContext.getMarshallerStrategy().getMarshaller(getter.getReturnType(),
+						new InternalMarshallerContext());
+				PropertyDescriptor propertyDescriptor = definitionBuildingContext.getPropertyDescriptorFactory().byMethod(getter, marshaller, type);
+				visitor.visitPropertyDescriptor(propertyDescriptor, marshaller);
+			}
+
+			visitor.visitFinalizeSerializerDefinition(this);
+		}
+	}
+
+	public static class PublicMethods {
+
+		private int count;
+		private String name;
+		private long total;
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public PublicMethods setTotal(long total) {
+			this.total = total;
+			return this;
+		}
+	}
+
+	public static class HiddenMethods {
+
+		private String value;
+
+		String getValue() {
+			return value;
+		}
+
+		void setValue(String value) {
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class NestedFinalTypeTestCase {
+
+	@Test
+	public void testNestedFinalTypes() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = buildSerializer(serializationStrategy);
+
+			Quote quote = new Quote();
+			quote.setSymbol("ABC");
+			quote.setPrice(12.5);
+
+			Order order = new Order();
+			order.setQuantity(100);
+			order.setQuote(quote);
+
+			byte[] data = serializer.serialize(order);
+			Order result = serializer.deserialize(data, 0, data.length);
+
+			assertEquals(100, result.getQuantity());
+			assertEquals("ABC", result.getQuote().getSymbol());
+			assertEquals(12.5, result.getQuote().getPrice(), 0.0);
+
+			order.setQuote(null);
+			data = serializer.serialize(order);
+			result = serializer.deserialize(data, 0, data.length);
+			assertNull(result.getQuote());
+		}
+	}
+
+	private Serializer buildSerializer(SerializationStrategy serializationStrategy) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target")).serializationStrategy(serializationStrategy)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Order.class).attributes();
+					}
+				}).build();
+	}
+
+	public static final class Order {
+
+		@Attribute
+		private int quantity;
+
+		@Attribute
+		private Quote quote;
+
+		public int getQuantity() {
+			return quantity;
+		}
+
+		public void setQuantity(int quantity) {
+			this.quantity = quantity;
+		}
+
+		public Quote getQuote() {
+			return quote;
+		}
+
+		public void setQuote(Quote quote) {
+			this.quote = quote;
+		}
+	}
+
+	public static final class Quote {
+
+		@Attribute
+		private String symbol;
+
+		@Attribute
+		private double price;
+
+		public String getSymbol() {
+			return symbol;
+		}
+
+		public void setSymbol(String symbol) {
+			this.symbol = symbol;
+		}
+
+		public double getPrice() {
+			return price;
+		}
+
+		public void setPrice(double price) {
+			this.price = price;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class PolymorphicTypeTestCase {
+
+	@Test
+	public void testAbstractTypedProperty() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = buildSerializer(serializationStrategy);
+
+			// Serialize more types than the cache holds to hit the fallback
+			// lookup as well
+			Shape[] shapes = { new Circle(1), new Square(2), null, new Circle(3), new Square(4) };
+			for (Shape shape : shapes) {
+				Drawing drawing = new Drawing();
+				drawing.setShape(shape);
+
+				byte[] data = serializer.serialize(drawing);
+				Drawing result = serializer.deserialize(data, 0, data.length);
+
+				if (shape == null) {
+					assertNull(result.getShape());
+				}
+				else {
+					assertEquals(shape.getClass(), result.getShape().getClass());
+					assertEquals(shape.getSize(), result.getShape().getSize());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMixedTypedList() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = buildSerializer(serializationStrategy);
+
+			List<Object> values = new ArrayList<Object>();
+			values.add(new Circle(1));
+			values.add("Foo");
+			values.add(Integer.valueOf(5));
+			values.add(new Square(2));
+			values.add(Long.valueOf(6));
+			values.add(null);
+			values.add(new Circle(3));
+
+			Drawing drawing = new Drawing();
+			drawing.setValues(values);
+
+			byte[] data = serializer.serialize(drawing);
+			Drawing result = serializer.deserialize(data, 0, data.length);
+
+			List<Object> resultValues = result.getValues();
+			assertEquals(values.size(), resultValues.size());
+			assertTrue(resultValues.get(0) instanceof Circle);
+			assertEquals(1, ((Circle) resultValues.get(0)).getSize());
+			assertEquals("Foo", resultValues.get(1));
+			assertEquals(Integer.valueOf(5), resultValues.get(2));
+			assertTrue(resultValues.get(3) instanceof Square);
+			assertEquals(2, ((Square) resultValues.get(3)).getSize());
+			assertEquals(Long.valueOf(6), resultValues.get(4));
+			assertNull(resultValues.get(5));
+			assertEquals(3, ((Circle) resultValues.get(6)).getSize());
+		}
+	}
+
+	private Serializer buildSerializer(SerializationStrategy serializationStrategy) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target")).serializationStrategy(serializationStrategy)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Drawing.class).attributes();
+						bind(Circle.class).attributes();
+						bind(Square.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Drawing {
+
+		@Attribute
+		private Shape shape;
+
+		@Attribute
+		@SuppressWarnings("rawtypes")
+		private List values;
+
+		public Shape getShape() {
+			return shape;
+		}
+
+		public void setShape(Shape shape) {
+			this.shape = shape;
+		}
+
+		@SuppressWarnings("unchecked")
+		public List<Object> getValues() {
+			return values;
+		}
+
+		public void setValues(List<Object> values) {
+			this.values = values;
+		}
+	}
+
+	public static abstract class Shape {
+
+		public abstract int getSize();
+	}
+
+	public static class Circle extends Shape {
+
+		@Attribute
+		private int radius;
+
+		public Circle() {
+		}
+
+		public Circle(int radius) {
+			this.radius = radius;
+		}
+
+		@Override
+		public int getSize() {
+			return radius;
+		}
+	}
+
+	public static class Square extends Shape {
+
+		@Attribute
+		private int length;
+
+		public Square() {
+		}
+
+		public Square(int length) {
+			this.length = length;
+		}
+
+		@Override
+		public int getSize() {
+			return length;
+		}
+	}
+}
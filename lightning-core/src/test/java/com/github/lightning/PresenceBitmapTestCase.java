@@ -0,0 +1,269 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class PresenceBitmapTestCase {
+
+	@Test
+	public void testAbsentFieldsCostOneBit() throws Exception {
+		Serializer serializer = buildSerializer(SerializationStrategy.SpeedOptimized);
+
+		byte[] data = serializer.serialize(new Sparse());
+
+		// Type id, two bytes of bitmap for 12 nullable fields and the three
+		// primitives
+		assertEquals(1 + 2 + 4 + 8 + 8, data.length);
+
+		Sparse result = serializer.deserialize(data, 0, data.length);
+		assertNull(result.getName());
+		assertNull(result.getIntegerValue());
+		assertNull(result.getNames());
+	}
+
+	@Test
+	public void testPresentFieldsRoundTrip() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = buildSerializer(serializationStrategy);
+
+			Sparse value = new Sparse();
+			value.setName("name");
+			value.setIntegerValue(-42);
+			value.setLongValue(Long.MIN_VALUE);
+			value.setBooleanValue(Boolean.FALSE);
+			value.setDoubleValue(-0.0);
+			value.setNames(new String[] { "a", null, "c" });
+			value.setIntValue(7);
+			value.setPrimitiveDouble(-0.0);
+
+			byte[] data = serializer.serialize(value);
+			Sparse result = serializer.deserialize(data, 0, data.length);
+
+			assertEquals("name", result.getName());
+			assertEquals(Integer.valueOf(-42), result.getIntegerValue());
+			assertEquals(Long.valueOf(Long.MIN_VALUE), result.getLongValue());
+			assertEquals(Boolean.FALSE, result.getBooleanValue());
+			assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(result.getDoubleValue()));
+			assertArrayEquals(new String[] { "a", null, "c" }, result.getNames());
+			assertNull(result.getDescription());
+			assertEquals(7, result.getIntValue());
+			assertEquals(0L, result.getPrimitiveLong());
+			assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(result.getPrimitiveDouble()));
+		}
+	}
+
+	@Test
+	public void testDefaultPrimitivesSkippedWhenSizeOptimized() throws Exception {
+		Sparse value = new Sparse();
+		value.setIntValue(0);
+
+		byte[] speed = buildSerializer(SerializationStrategy.SpeedOptimized).serialize(value);
+		byte[] size = buildSerializer(SerializationStrategy.SizeOptimized).serialize(value);
+
+		assertTrue("size=" + size.length + ", speed=" + speed.length, size.length < speed.length);
+	}
+
+	private Serializer buildSerializer(SerializationStrategy serializationStrategy) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target")).serializationStrategy(serializationStrategy)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Sparse.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Sparse {
+
+		@Attribute
+		private String name;
+
+		@Attribute
+		private String description;
+
+		@Attribute
+		private String comment;
+
+		@Attribute
+		private Integer integerValue;
+
+		@Attribute
+		private Long longValue;
+
+		@Attribute
+		private Short shortValue;
+
+		@Attribute
+		private Byte byteValue;
+
+		@Attribute
+		private Character charValue;
+
+		@Attribute
+		private Boolean booleanValue;
+
+		@Attribute
+		private Float floatValue;
+
+		@Attribute
+		private Double doubleValue;
+
+		@Attribute
+		private String[] names;
+
+		@Attribute
+		private int intValue;
+
+		@Attribute
+		private long primitiveLong;
+
+		@Attribute
+		private double primitiveDouble;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public void setDescription(String description) {
+			this.description = description;
+		}
+
+		public String getComment() {
+			return comment;
+		}
+
+		public void setComment(String comment) {
+			this.comment = comment;
+		}
+
+		public Integer getIntegerValue() {
+			return integerValue;
+		}
+
+		public void setIntegerValue(Integer integerValue) {
+			this.integerValue = integerValue;
+		}
+
+		public Long getLongValue() {
+			return longValue;
+		}
+
+		public void setLongValue(Long longValue) {
+			this.longValue = longValue;
+		}
+
+		public Short getShortValue() {
+			return shortValue;
+		}
+
+		public void setShortValue(Short shortValue) {
+			this.shortValue = shortValue;
+		}
+
+		public Byte getByteValue() {
+			return byteValue;
+		}
+
+		public void setByteValue(Byte byteValue) {
+			this.byteValue = byteValue;
+		}
+
+		public Character getCharValue() {
+			return charValue;
+		}
+
+		public void setCharValue(Character charValue) {
+			this.charValue = charValue;
+		}
+
+		public Boolean getBooleanValue() {
+			return booleanValue;
+		}
+
+		public void setBooleanValue(Boolean booleanValue) {
+			this.booleanValue = booleanValue;
+		}
+
+		public Float getFloatValue() {
+			return floatValue;
+		}
+
+		public void setFloatValue(Float floatValue) {
+			this.floatValue = floatValue;
+		}
+
+		public Double getDoubleValue() {
+			return doubleValue;
+		}
+
+		public void setDoubleValue(Double doubleValue) {
+			this.doubleValue = doubleValue;
+		}
+
+		public String[] getNames() {
+			return names;
+		}
+
+		public void setNames(String[] names) {
+			this.names = names;
+		}
+
+		public int getIntValue() {
+			return intValue;
+		}
+
+		public void setIntValue(int intValue) {
+			this.intValue = intValue;
+		}
+
+		public long getPrimitiveLong() {
+			return primitiveLong;
+		}
+
+		public void setPrimitiveLong(long primitiveLong) {
+			this.primitiveLong = primitiveLong;
+		}
+
+		public double getPrimitiveDouble() {
+			return primitiveDouble;
+		}
+
+		public void setPrimitiveDouble(double primitiveDouble) {
+			this.primitiveDouble = primitiveDouble;
+		}
+	}
+}
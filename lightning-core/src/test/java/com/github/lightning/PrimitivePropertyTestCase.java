@@ -0,0 +1,116 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class PrimitivePropertyTestCase {
+
+	@Test
+	public void testPrimitivesWrittenWithoutNullFlags() throws Exception {
+		Serializer serializer = buildSerializer(SerializationStrategy.SpeedOptimized, IntegerEncodingStrategy.FixedLength);
+
+		byte[] data = serializer.serialize(Primitives.filled());
+
+		// Type id plus raw values of all eight primitives
+		assertEquals(1 + 1 + 1 + 2 + 2 + 4 + 8 + 4 + 8, data.length);
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			for (IntegerEncodingStrategy integerEncodingStrategy : IntegerEncodingStrategy.values()) {
+				Serializer serializer = buildSerializer(serializationStrategy, integerEncodingStrategy);
+
+				Primitives value = Primitives.filled();
+				byte[] data = serializer.serialize(value);
+				Primitives result = serializer.deserialize(data, 0, data.length);
+				assertEquals(value.toString(), result.toString());
+
+				value = new Primitives();
+				data = serializer.serialize(value);
+				result = serializer.deserialize(data, 0, data.length);
+				assertEquals(value.toString(), result.toString());
+			}
+		}
+	}
+
+	private Serializer buildSerializer(SerializationStrategy serializationStrategy, IntegerEncodingStrategy integerEncodingStrategy) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target")).serializationStrategy(serializationStrategy)
+				.integerEncodingStrategy(integerEncodingStrategy).serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Primitives.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Primitives {
+
+		@Attribute
+		private boolean booleanValue;
+
+		@Attribute
+		private byte byteValue;
+
+		@Attribute
+		private char charValue;
+
+		@Attribute
+		private short shortValue;
+
+		@Attribute
+		private int intValue;
+
+		@Attribute
+		private long longValue;
+
+		@Attribute
+		private float floatValue;
+
+		@Attribute
+		private double doubleValue;
+
+		private static Primitives filled() {
+			Primitives value = new Primitives();
+			value.booleanValue = true;
+			value.byteValue = Byte.MIN_VALUE;
+			value.charValue = Character.MAX_VALUE;
+			value.shortValue = Short.MIN_VALUE;
+			value.intValue = -123456789;
+			value.longValue = Long.MAX_VALUE;
+			value.floatValue = -1.5f;
+			value.doubleValue = Double.MIN_VALUE;
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return "Primitives [booleanValue=" + booleanValue + ", byteValue=" + byteValue + ", charValue=" + (int) charValue + ", shortValue="
+					+ shortValue + ", intValue=" + intValue + ", longValue=" + longValue + ", floatValue=" + floatValue + ", doubleValue="
+					+ doubleValue + "]";
+		}
+	}
+}
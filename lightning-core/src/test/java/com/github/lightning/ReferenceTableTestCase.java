@@ -0,0 +1,121 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.exceptions.SerializerExecutionException;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class ReferenceTableTestCase {
+
+	@Test
+	public void testSharedReferences() throws Exception {
+		for (IntegerEncodingStrategy integerEncodingStrategy : IntegerEncodingStrategy.values()) {
+			Serializer serializer = buildSerializer(integerEncodingStrategy);
+
+			List<Node> nodes = new ArrayList<Node>();
+			for (int i = 0; i < 1000; i++) {
+				nodes.add(new Node(i));
+			}
+
+			Graph graph = new Graph();
+			for (int i = 0; i < 5000; i++) {
+				graph.getNodes().add(nodes.get((i * 31) % nodes.size()));
+			}
+
+			byte[] data = serializer.serialize(graph);
+			Graph result = serializer.deserialize(data, 0, data.length);
+
+			assertEquals(graph.getNodes().size(), result.getNodes().size());
+			for (int i = 0; i < graph.getNodes().size(); i++) {
+				assertEquals(graph.getNodes().get(i).getValue(), result.getNodes().get(i).getValue());
+				assertSame(result.getNodes().get(i), result.getNodes().get(i % nodes.size()));
+			}
+		}
+	}
+
+	@Test(expected = SerializerExecutionException.class)
+	public void testCorruptReferenceIdIsRejected() throws Exception {
+		Serializer serializer = buildSerializer(IntegerEncodingStrategy.FixedLength);
+		Graph graph = new Graph();
+		graph.getNodes().add(new Node(1));
+		byte[] data = serializer.serialize(graph);
+
+		// The type id is followed by the (shifted) reference id of the root,
+		// point it far ahead of the empty reference table
+		assertEquals(1, data[1]);
+		data[1] = 0x7F;
+		serializer.deserialize(data, 0, data.length);
+	}
+
+	private Serializer buildSerializer(IntegerEncodingStrategy integerEncodingStrategy) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.integerEncodingStrategy(integerEncodingStrategy).serializationStrategy(SerializationStrategy.SizeOptimized)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Graph.class).attributes();
+						bind(Node.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Graph {
+
+		@Attribute
+		private List<Node> nodes = new ArrayList<Node>();
+
+		public List<Node> getNodes() {
+			return nodes;
+		}
+
+		public void setNodes(List<Node> nodes) {
+			this.nodes = nodes;
+		}
+	}
+
+	public static class Node {
+
+		@Attribute
+		private int value;
+
+		public Node() {
+		}
+
+		public Node(int value) {
+			this.value = value;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,343 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.internal.ClassDescriptorAwareSerializer;
+import com.github.lightning.internal.generator.AbstractGeneratedMarshaller;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightning.metadata.Unshared;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class ReferenceTrackingPolicyTestCase {
+
+	// More messages than instances are sampled before tracking is turned off
+	private static final int MESSAGES = 2048;
+
+	@Test
+	public void testUnsharedTypeIsNotTracked() throws Exception {
+		Serializer serializer = buildSerializer(false);
+		assertFalse(isReferenceTracked(serializer, UnsharedPoint.class));
+		assertTrue(isReferenceTracked(serializer, Point.class));
+
+		Holder holder = new Holder();
+		holder.setFirst(new UnsharedPoint(1, 2));
+		holder.setSecond(holder.getFirst());
+		holder.setThird(new Point(3, 4));
+		holder.setFourth(holder.getThird());
+
+		byte[] data = serializer.serialize(holder);
+		Holder result = serializer.deserialize(data, 0, data.length);
+
+		// Untracked instances are written twice
+		assertNotSame(result.getFirst(), result.getSecond());
+		assertEquals(1, result.getSecond().getX());
+		assertEquals(2, result.getSecond().getY());
+		assertSame(result.getThird(), result.getFourth());
+		assertEquals(4, result.getFourth().getY());
+	}
+
+	@Test
+	public void testPossiblyCyclicTypeIsAlwaysTracked() throws Exception {
+		Serializer serializer = buildSerializer(true);
+		assertTrue(isReferenceTracked(serializer, UnsharedNode.class));
+
+		UnsharedNode node = new UnsharedNode();
+		node.setValue(7);
+		Holder holder = new Holder();
+		holder.setFirstNode(node);
+		holder.setSecondNode(node);
+
+		for (int i = 0; i < MESSAGES; i++) {
+			byte[] data = serializer.serialize(holder);
+			Holder result = serializer.deserialize(data, 0, data.length);
+			assertSame(result.getFirstNode(), result.getSecondNode());
+			assertEquals(7, result.getSecondNode().getValue());
+		}
+		assertTrue(isReferenceTracked(serializer, UnsharedNode.class));
+	}
+
+	@Test
+	public void testAdaptiveReferenceTracking() throws Exception {
+		Serializer serializer = buildSerializer(true);
+		assertTrue(isReferenceTracked(serializer, Point.class));
+
+		for (int i = 0; i < MESSAGES; i++) {
+			Holder holder = new Holder();
+			holder.setThird(new Point(i, -i));
+			holder.setFifth(new SharedPoint(i));
+			holder.setSixth(holder.getFifth());
+
+			byte[] data = serializer.serialize(holder);
+			Holder result = serializer.deserialize(data, 0, data.length);
+			assertEquals(i, result.getThird().getX());
+			assertEquals(-i, result.getThird().getY());
+			assertSame(result.getFifth(), result.getSixth());
+			assertEquals(i, result.getSixth().getValue());
+		}
+
+		// Points were never repeated while being sampled
+		assertFalse(isReferenceTracked(serializer, Point.class));
+		assertTrue(isReferenceTracked(serializer, SharedPoint.class));
+
+		Holder holder = new Holder();
+		holder.setThird(new Point(5, 6));
+		holder.setFourth(holder.getThird());
+		byte[] data = serializer.serialize(holder);
+		Holder result = serializer.deserialize(data, 0, data.length);
+		assertNotSame(result.getThird(), result.getFourth());
+		assertEquals(6, result.getFourth().getY());
+	}
+
+	private boolean isReferenceTracked(Serializer serializer, Class<?> type) {
+		Marshaller marshaller = ((ClassDescriptorAwareSerializer) serializer).findClassDescriptor(type).getMarshaller();
+		return ((AbstractGeneratedMarshaller) marshaller).isReferenceTracked();
+	}
+
+	private Serializer buildSerializer(boolean adaptiveReferenceTracking) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.serializationStrategy(SerializationStrategy.SizeOptimized).adaptiveReferenceTracking(adaptiveReferenceTracking)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Holder.class).attributes();
+						bind(Point.class).attributes();
+						bind(UnsharedPoint.class).attributes();
+						bind(SharedPoint.class).attributes();
+						bind(UnsharedNode.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Holder {
+
+		@Attribute
+		private UnsharedPoint first;
+
+		@Attribute
+		private UnsharedPoint second;
+
+		@Attribute
+		private Point third;
+
+		@Attribute
+		private Point fourth;
+
+		@Attribute
+		private SharedPoint fifth;
+
+		@Attribute
+		private SharedPoint sixth;
+
+		@Attribute
+		private UnsharedNode firstNode;
+
+		@Attribute
+		private UnsharedNode secondNode;
+
+		public UnsharedPoint getFirst() {
+			return first;
+		}
+
+		public void setFirst(UnsharedPoint first) {
+			this.first = first;
+		}
+
+		public UnsharedPoint getSecond() {
+			return second;
+		}
+
+		public void setSecond(UnsharedPoint second) {
+			this.second = second;
+		}
+
+		public Point getThird() {
+			return third;
+		}
+
+		public void setThird(Point third) {
+			this.third = third;
+		}
+
+		public Point getFourth() {
+			return fourth;
+		}
+
+		public void setFourth(Point fourth) {
+			this.fourth = fourth;
+		}
+
+		public SharedPoint getFifth() {
+			return fifth;
+		}
+
+		public void setFifth(SharedPoint fifth) {
+			this.fifth = fifth;
+		}
+
+		public SharedPoint getSixth() {
+			return sixth;
+		}
+
+		public void setSixth(SharedPoint sixth) {
+			this.sixth = sixth;
+		}
+
+		public UnsharedNode getFirstNode() {
+			return firstNode;
+		}
+
+		public void setFirstNode(UnsharedNode firstNode) {
+			this.firstNode = firstNode;
+		}
+
+		public UnsharedNode getSecondNode() {
+			return secondNode;
+		}
+
+		public void setSecondNode(UnsharedNode secondNode) {
+			this.secondNode = secondNode;
+		}
+	}
+
+	public static class Point {
+
+		@Attribute
+		private int x;
+
+		@Attribute
+		private int y;
+
+		public Point() {
+		}
+
+		public Point(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public int getX() {
+			return x;
+		}
+
+		public void setX(int x) {
+			this.x = x;
+		}
+
+		public int getY() {
+			return y;
+		}
+
+		public void setY(int y) {
+			this.y = y;
+		}
+	}
+
+	@Unshared
+	public static class UnsharedPoint {
+
+		@Attribute
+		private int x;
+
+		@Attribute
+		private int y;
+
+		public UnsharedPoint() {
+		}
+
+		public UnsharedPoint(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public int getX() {
+			return x;
+		}
+
+		public void setX(int x) {
+			this.x = x;
+		}
+
+		public int getY() {
+			return y;
+		}
+
+		public void setY(int y) {
+			this.y = y;
+		}
+	}
+
+	public static class SharedPoint {
+
+		@Attribute
+		private long value;
+
+		public SharedPoint() {
+		}
+
+		public SharedPoint(long value) {
+			this.value = value;
+		}
+
+		public long getValue() {
+			return value;
+		}
+
+		public void setValue(long value) {
+			this.value = value;
+		}
+	}
+
+	// List elements could refer back to the container, so it has to be tracked
+	@Unshared
+	public static class UnsharedNode {
+
+		@Attribute
+		private int value;
+
+		@Attribute
+		private List<Integer> children = new ArrayList<Integer>();
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+
+		public List<Integer> getChildren() {
+			return children;
+		}
+
+		public void setChildren(List<Integer> children) {
+			this.children = children;
+		}
+	}
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class SerializationContextReuseTestCase {
+
+	@Test
+	public void testReferencesDoNotLeakBetweenCalls() throws Exception {
+		Serializer serializer = buildSerializer(SerializationStrategy.SizeOptimized);
+		Child child = new Child("shared");
+		Parent parent = new Parent(child, child);
+
+		byte[] first = serializer.serialize(parent);
+		byte[] second = serializer.serialize(parent);
+
+		// Both calls have to produce self-contained, identical output
+		assertEquals(first.length, second.length);
+
+		Parent result2 = serializer.deserialize(second, 0, second.length);
+		Parent result1 = serializer.deserialize(first, 0, first.length);
+
+		assertEquals(parent, result1);
+		assertEquals(parent, result2);
+		assertSame(result1.getFirst(), result1.getSecond());
+		assertSame(result2.getFirst(), result2.getSecond());
+		assertNotSame(result1.getFirst(), result2.getFirst());
+	}
+
+	@Test
+	public void testSpeedOptimizedReuse() throws Exception {
+		Serializer serializer = buildSerializer(SerializationStrategy.SpeedOptimized);
+		for (int i = 0; i < 100; i++) {
+			Parent parent = new Parent(new Child("first" + i), new Child("second" + i));
+			byte[] data = serializer.serialize(parent);
+			Object result = serializer.deserialize(data, 0, data.length);
+			assertEquals(parent, result);
+		}
+	}
+
+	@Test
+	public void testContextInstanceIsReused() throws Exception {
+		final List<SerializationContext> serializationContexts = new ArrayList<SerializationContext>();
+		Serializer serializer = Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(TokenHolder.class).attributes();
+						define(Token.class).byMarshaller(new TokenMarshaller(serializationContexts));
+					}
+				}).build();
+
+		for (int i = 0; i < 10; i++) {
+			TokenHolder value = new TokenHolder();
+			value.setToken(new Token("token" + i));
+			byte[] data = serializer.serialize(value);
+			TokenHolder result = serializer.deserialize(data, 0, data.length);
+			assertEquals("token" + i, result.getToken().getValue());
+
+			// A collection must not drop the cached context
+			System.gc();
+		}
+
+		assertEquals(20, serializationContexts.size());
+		for (SerializationContext serializationContext : serializationContexts) {
+			assertSame(serializationContexts.get(0), serializationContext);
+		}
+	}
+
+	private Serializer buildSerializer(SerializationStrategy serializationStrategy) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target")).serializationStrategy(serializationStrategy)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(Parent.class).attributes();
+						bind(Child.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class Parent {
+
+		@Attribute
+		private Child first;
+
+		@Attribute
+		private Child second;
+
+		public Parent() {
+		}
+
+		public Parent(Child first, Child second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		public Child getFirst() {
+			return first;
+		}
+
+		public void setFirst(Child first) {
+			this.first = first;
+		}
+
+		public Child getSecond() {
+			return second;
+		}
+
+		public void setSecond(Child second) {
+			this.second = second;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + ((first == null) ? 0 : first.hashCode());
+			result = prime * result + ((second == null) ? 0 : second.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Parent other = (Parent) obj;
+			if (first == null) {
+				if (other.first != null)
+					return false;
+			}
+			else if (!first.equals(other.first))
+				return false;
+			if (second == null) {
+				if (other.second != null)
+					return false;
+			}
+			else if (!second.equals(other.second))
+				return false;
+			return true;
+		}
+	}
+
+	public static class Child {
+
+		@Attribute
+		private String name;
+
+		public Child() {
+		}
+
+		public Child(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public int hashCode() {
+			return name == null ? 0 : name.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Child other = (Child) obj;
+			if (name == null) {
+				if (other.name != null)
+					return false;
+			}
+			else if (!name.equals(other.name))
+				return false;
+			return true;
+		}
+	}
+
+	public static class TokenHolder {
+
+		@Attribute
+		private Token token;
+
+		public Token getToken() {
+			return token;
+		}
+
+		public void setToken(Token token) {
+			this.token = token;
+		}
+	}
+
+	public static final class Token {
+
+		private final String value;
+
+		public Token(String value) {
+			this.value = value;
+		}
+
+		public String getValue() {
+			return value;
+		}
+	}
+
+	private static class TokenMarshaller implements Marshaller {
+
+		private final List<SerializationContext> serializationContexts;
+
+		private TokenMarshaller(List<SerializationContext> serializationContexts) {
+			this.serializationContexts = serializationContexts;
+		}
+
+		@Override
+		public boolean acceptType(Class<?> type) {
+			return type == Token.class;
+		}
+
+		@Override
+		public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
+			serializationContexts.add(serializationContext);
+			dataOutput.writeString(((Token) value).getValue());
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <V> V unmarshall(Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
+			serializationContexts.add(serializationContext);
+			return (V) new Token(dataInput.readString());
+		}
+	}
+}
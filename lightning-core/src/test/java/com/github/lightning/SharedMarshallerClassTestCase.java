@@ -0,0 +1,114 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.internal.ClassDescriptorAwareSerializer;
+import com.github.lightning.metadata.Attribute;
+
+public class SharedMarshallerClassTestCase {
+
+	@Test
+	public void testMarshallerClassesAreShared() throws Exception {
+		Serializer serializer1 = buildSerializer(SerializationStrategy.SpeedOptimized);
+		Serializer serializer2 = buildSerializer(SerializationStrategy.SpeedOptimized);
+
+		Marshaller marshaller1 = findMarshaller(serializer1, Wrapper.class);
+		Marshaller marshaller2 = findMarshaller(serializer2, Wrapper.class);
+
+		// Same generated class but serializer specific instances
+		assertNotSame(marshaller1, marshaller2);
+		assertSame(marshaller1.getClass(), marshaller2.getClass());
+		assertSame(findMarshaller(serializer1, Item.class).getClass(), findMarshaller(serializer2, Item.class).getClass());
+
+		Wrapper wrapper = new Wrapper();
+		wrapper.setName("foo");
+		wrapper.setItem(new Item());
+		wrapper.getItem().setValue(42);
+
+		byte[] data = serializer1.serialize(wrapper);
+		Wrapper result = serializer2.deserialize(data, 0, data.length);
+		assertEquals("foo", result.getName());
+		assertEquals(42, result.getItem().getValue());
+	}
+
+	@Test
+	public void testDifferentStrategiesAreNotShared() throws Exception {
+		Serializer serializer1 = buildSerializer(SerializationStrategy.SpeedOptimized);
+		Serializer serializer2 = buildSerializer(SerializationStrategy.SizeOptimized);
+
+		assertNotSame(findMarshaller(serializer1, Wrapper.class).getClass(), findMarshaller(serializer2, Wrapper.class).getClass());
+	}
+
+	private Marshaller findMarshaller(Serializer serializer, Class<?> type) {
+		return ((ClassDescriptorAwareSerializer) serializer).findClassDescriptor(type).getMarshaller();
+	}
+
+	private Serializer buildSerializer(SerializationStrategy serializationStrategy) {
+		return Lightning.newBuilder().serializationStrategy(serializationStrategy).serializerDefinitions(new AbstractSerializerDefinition() {
+
+			@Override
+			protected void configure() {
+				bind(Wrapper.class).attributes();
+			}
+		}).build();
+	}
+
+	public static class Wrapper {
+
+		@Attribute
+		private String name;
+
+		@Attribute
+		private Item item;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public Item getItem() {
+			return item;
+		}
+
+		public void setItem(Item item) {
+			this.item = item;
+		}
+	}
+
+	public static final class Item {
+
+		@Attribute
+		private int value;
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+}
@@ -15,10 +15,10 @@
  */
 package com.github.lightning;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
 import com.github.lightning.metadata.ArrayPropertyAccessor;
 
 public class Spielerei {
@@ -26,7 +26,7 @@ public class Spielerei {
 	private Marshaller arrayMarshaller;
 	private ArrayPropertyAccessor propertyAccessor;
 
-	public void marshall(Object value, Class<?> type, DataOutput dataOutput, SerializationContext serializationContext) throws IOException {
+	public void marshall(Object value, Class<?> type, LightningOutput dataOutput, SerializationContext serializationContext) throws IOException {
 		Object propertyValue = propertyAccessor.readObject(value);
 
 		String[] array = (String[]) propertyValue;
@@ -37,7 +37,7 @@ public class Spielerei {
 		}
 	}
 
-	public <V> V unmarshall(V instance, Class<?> type, DataInput dataInput, SerializationContext serializationContext) throws IOException {
+	public <V> V unmarshall(V instance, Class<?> type, LightningInput dataInput, SerializationContext serializationContext) throws IOException {
 		int size = dataInput.readInt();
 		String[] array = new String[size];
 		for (int i = 0; i < size; i++) {
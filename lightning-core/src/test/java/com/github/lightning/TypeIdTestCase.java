@@ -0,0 +1,149 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.exceptions.SerializerDefinitionException;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightning.metadata.ClassDefinitionContainer;
+import com.github.lightning.metadata.TypeId;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class TypeIdTestCase {
+
+	@Test
+	public void testPinnedTypeId() throws Exception {
+		Serializer serializer = buildSerializer(Pinned.class, Unpinned.class);
+
+		ClassDefinitionContainer container = serializer.getClassDefinitionContainer();
+		assertEquals(4711, container.getClassDefinitionByType(Pinned.class).getId());
+		assertEquals(Pinned.class, container.getTypeById(4711));
+	}
+
+	@Test
+	public void testDenseTypeIds() throws Exception {
+		Serializer serializer = buildSerializer(Pinned.class, Unpinned.class);
+
+		long id = serializer.getClassDefinitionContainer().getClassDefinitionByType(Unpinned.class).getId();
+		assertEquals(100, id);
+		assertEquals(Unpinned.class, serializer.getClassDefinitionContainer().getTypeById(id));
+	}
+
+	@Test
+	public void testCompactTypeIdOnWire() throws Exception {
+		Serializer serializer = buildSerializer(Pinned.class, Unpinned.class);
+
+		Pinned value = new Pinned();
+		value.setValue(42);
+
+		byte[] data = serializer.serialize(value);
+		LightningInput input = new LightningInput(data);
+		assertEquals(4711, input.readVarLong());
+		assertEquals(2, input.position());
+
+		Pinned result = serializer.deserialize(data, 0, data.length);
+		assertEquals(42, result.getValue());
+	}
+
+	@Test(expected = SerializerDefinitionException.class)
+	public void testDuplicateTypeId() throws Exception {
+		buildSerializer(Pinned.class, Duplicate.class);
+	}
+
+	@Test(expected = SerializerDefinitionException.class)
+	public void testReservedTypeId() throws Exception {
+		buildSerializer(Reserved.class);
+	}
+
+	private Serializer buildSerializer(final Class<?>... types) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						for (Class<?> type : types) {
+							bind(type).attributes();
+						}
+					}
+				}).build();
+	}
+
+	@TypeId(4711)
+	public static class Pinned {
+
+		@Attribute
+		private int value;
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+
+	public static class Unpinned {
+
+		@Attribute
+		private int value;
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+
+	@TypeId(4711)
+	public static class Duplicate {
+
+		@Attribute
+		private int value;
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+
+	@TypeId(17)
+	public static class Reserved {
+
+		@Attribute
+		private int value;
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+}
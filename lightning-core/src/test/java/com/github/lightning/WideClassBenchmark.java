@@ -0,0 +1,77 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.github.lightning.WideClassTestCase.WideBean;
+import com.github.lightning.base.AbstractSerializerDefinition;
+
+/**
+ * Measures the average serialization and deserialization time of a type with
+ * 300 properties. It only reports timings, that the generated methods stay
+ * below HotSpot's HugeMethodLimit is checked by
+ * {@link WideClassTestCase#testWideClassMethodsStayCompilable()}.
+ */
+@Ignore
+public class WideClassBenchmark {
+
+	private static final int WARMUP_ROUNDS = 100000;
+	private static final int BENCHMARK_ROUNDS = 800000;
+
+	@Test
+	public void benchmarkWideClassSerialization() throws Exception {
+		Serializer serializer = Lightning.newBuilder().serializerDefinitions(new AbstractSerializerDefinition() {
+
+			@Override
+			protected void configure() {
+				bind(WideBean.class).attributes();
+			}
+		}).build();
+
+		WideBean wideBean = new WideBean();
+		WideClassTestCase.fill(wideBean, 1);
+
+		long size = 0;
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			byte[] data = serializer.serialize(wideBean);
+			Object value = serializer.deserialize(data, 0, data.length);
+			assertNotNull(value);
+			size = data.length;
+		}
+
+		long serializationTime = 0;
+		long deserializationTime = 0;
+		for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+			long startTime = System.nanoTime();
+			byte[] data = serializer.serialize(wideBean);
+			serializationTime += System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			Object value = serializer.deserialize(data, 0, data.length);
+			deserializationTime += System.nanoTime() - startTime;
+			assertNotNull(value);
+		}
+
+		System.out.println("Wide class Serialization Avg: " + String.format("%5.2f", serializationTime / (double) BENCHMARK_ROUNDS) + " ns, runs: "
+				+ BENCHMARK_ROUNDS + ", size: " + size + " bytes");
+		System.out.println("Wide class Deserialization Avg: " + String.format("%5.2f", deserializationTime / (double) BENCHMARK_ROUNDS) + " ns, runs: "
+				+ BENCHMARK_ROUNDS + ", size: " + size + " bytes");
+	}
+}
@@ -0,0 +1,1240 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.configuration.SerializerDefinition;
+import com.github.lightning.generator.DefinitionBuildingContext;
+import com.github.lightning.generator.DefinitionVisitor;
+import com.github.lightning.instantiator.ObjectInstantiatorFactory;
+import com.github.lightning.internal.InternalMarshallerContext;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightning.metadata.PropertyDescriptor;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class WideClassTestCase {
+
+	private static final int HUGE_METHOD_LIMIT = 8000;
+
+	@Test
+	public void testWideClassRoundtrip() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = buildSerializer(serializationStrategy, new File("target"));
+
+			WideBean value = new WideBean();
+			fill(value, 1);
+			assertRoundtrip(serializer, value);
+
+			// All values absent (null or default)
+			assertRoundtrip(serializer, new WideBean());
+
+			// Only every third value present
+			WideBean sparse = new WideBean();
+			fill(sparse, 3);
+			assertRoundtrip(serializer, sparse);
+		}
+	}
+
+	@Test
+	public void testWideClassIsSplit() throws Exception {
+		File debugCacheDirectory = File.createTempFile("lightning", "");
+		debugCacheDirectory.delete();
+		debugCacheDirectory.mkdirs();
+
+		buildSerializer(SerializationStrategy.SpeedOptimized, debugCacheDirectory);
+
+		File[] files = debugCacheDirectory.listFiles();
+		boolean found = false;
+		for (File file : files) {
+			if (file.getName().startsWith("WideBeanMarshaller")) {
+				String bytecode = readFile(file);
+				assertTrue(bytecode.contains("marshall3"));
+				assertTrue(bytecode.contains("unmarshall3"));
+				found = true;
+			}
+			file.delete();
+		}
+		debugCacheDirectory.delete();
+		assertTrue(found);
+	}
+
+	@Test
+	public void testWideClassValuesAreReadOnce() throws Exception {
+		for (SerializationStrategy serializationStrategy : SerializationStrategy.values()) {
+			Serializer serializer = Lightning.newBuilder().logger(new DebugLogger()).serializationStrategy(serializationStrategy)
+					.serializerDefinitions(new CountingSerializerDefinition()).build();
+
+			CountingWideBean value = new CountingWideBean();
+			fill(value, 2);
+			value.setName("counted");
+
+			byte[] data = serializer.serialize(value);
+			assertEquals(1, value.reads);
+
+			CountingWideBean result = serializer.deserialize(data, 0, data.length);
+			assertEquals("counted", result.getName());
+		}
+	}
+
+	@Test
+	public void testWideClassMethodsStayCompilable() throws Exception {
+		File debugCacheDirectory = File.createTempFile("lightning", "");
+		debugCacheDirectory.delete();
+		debugCacheDirectory.mkdirs();
+
+		buildSerializer(SerializationStrategy.SpeedOptimized, debugCacheDirectory);
+
+		// HotSpot does not compile methods above HugeMethodLimit (8000 bytes),
+		// every method used at runtime has to stay below it. The constructor
+		// is only executed once.
+		boolean found = false;
+		for (File file : debugCacheDirectory.listFiles()) {
+			if (file.getName().startsWith("WideBeanMarshaller")) {
+				int maxCodeLength = findMaxRuntimeCodeLength(file);
+				assertTrue(file.getName() + " largest method: " + maxCodeLength + " bytes", maxCodeLength < HUGE_METHOD_LIMIT);
+				found = true;
+			}
+			file.delete();
+		}
+		debugCacheDirectory.delete();
+		assertTrue(found);
+	}
+
+	private void assertRoundtrip(Serializer serializer, WideBean value) throws Exception {
+		byte[] data = serializer.serialize(value);
+		WideBean result = serializer.deserialize(data, 0, data.length);
+
+		for (Field field : WideBean.class.getDeclaredFields()) {
+			field.setAccessible(true);
+			Object expected = field.get(value);
+			Object actual = field.get(result);
+			if (expected instanceof int[]) {
+				assertTrue(field.getName(), Arrays.equals((int[]) expected, (int[]) actual));
+			}
+			else if (expected instanceof Object[]) {
+				assertTrue(field.getName(), Arrays.equals((Object[]) expected, (Object[]) actual));
+			}
+			else {
+				assertEquals(field.getName(), expected, actual);
+			}
+		}
+	}
+
+	static void fill(WideBean value, int step) throws Exception {
+		Field[] fields = WideBean.class.getDeclaredFields();
+		for (int i = 0; i < fields.length; i += step) {
+			Field field = fields[i];
+			field.setAccessible(true);
+			Class<?> type = field.getType();
+			if (type == int.class || type == Integer.class) {
+				field.set(value, Integer.valueOf(i + 1));
+			}
+			else if (type == long.class || type == Long.class) {
+				field.set(value, Long.valueOf(i * 1000000000L + 1));
+			}
+			else if (type == double.class || type == Double.class) {
+				field.set(value, Double.valueOf(i + 0.5));
+			}
+			else if (type == boolean.class) {
+				field.set(value, Boolean.TRUE);
+			}
+			else if (type == String.class) {
+				field.set(value, "value" + i);
+			}
+			else if (type == int[].class) {
+				field.set(value, new int[] { i, i + 1, i + 2 });
+			}
+			else if (type == String[].class) {
+				field.set(value, new String[] { "a" + i, null, "b" + i });
+			}
+		}
+	}
+
+	private int findMaxRuntimeCodeLength(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			// Magic and version
+			in.skipBytes(8);
+
+			int constantPoolCount = in.readUnsignedShort();
+			String[] utf8Constants = new String[constantPoolCount];
+			for (int i = 1; i < constantPoolCount; i++) {
+				int tag = in.readUnsignedByte();
+				switch (tag) {
+					case 1:
+						utf8Constants[i] = in.readUTF();
+						break;
+					case 5:
+					case 6:
+						in.skipBytes(8);
+						i++;
+						break;
+					case 7:
+					case 8:
+						in.skipBytes(2);
+						break;
+					default:
+						in.skipBytes(4);
+				}
+			}
+
+			// Access flags, class, super class and interfaces
+			in.skipBytes(6);
+			in.skipBytes(in.readUnsignedShort() * 2);
+
+			int fieldCount = in.readUnsignedShort();
+			for (int i = 0; i < fieldCount; i++) {
+				in.skipBytes(6);
+				skipAttributes(in);
+			}
+
+			int maxCodeLength = 0;
+			int methodCount = in.readUnsignedShort();
+			for (int i = 0; i < methodCount; i++) {
+				in.skipBytes(2);
+				String methodName = utf8Constants[in.readUnsignedShort()];
+				in.skipBytes(2);
+
+				int attributeCount = in.readUnsignedShort();
+				for (int a = 0; a < attributeCount; a++) {
+					String attributeName = utf8Constants[in.readUnsignedShort()];
+					int length = in.readInt();
+					if ("Code".equals(attributeName) && !"<init>".equals(methodName)) {
+						// max_stack and max_locals
+						in.skipBytes(4);
+						maxCodeLength = Math.max(maxCodeLength, in.readInt());
+						in.skipBytes(length - 8);
+					}
+					else {
+						in.skipBytes(length);
+					}
+				}
+			}
+			return maxCodeLength;
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private void skipAttributes(DataInputStream in) throws IOException {
+		int attributeCount = in.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			in.skipBytes(2);
+			in.skipBytes(in.readInt());
+		}
+	}
+	private String readFile(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			byte[] data = new byte[(int) file.length()];
+			int offset = 0;
+			while (offset < data.length) {
+				offset += in.read(data, offset, data.length - offset);
+			}
+			return new String(data, "ISO-8859-1");
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private Serializer buildSerializer(SerializationStrategy serializationStrategy, File debugCacheDirectory) {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(debugCacheDirectory).serializationStrategy(serializationStrategy)
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(WideBean.class).attributes();
+					}
+				}).build();
+	}
+
+	private static class CountingSerializerDefinition implements SerializerDefinition {
+
+		private DefinitionBuildingContext definitionBuildingContext;
+
+		@Override
+		public void configure(DefinitionBuildingContext definitionBuildingContext, ObjectInstantiatorFactory instantiator) {
+			this.definitionBuildingContext = definitionBuildingContext;
+		}
+
+		@Override
+		public void acceptVisitor(DefinitionVisitor visitor) {
+			visitor.visitSerializerDefinition(this);
+
+			for (Field field : WideBean.class.getDeclaredFields()) {
+				Class<?> type = field.getType();
+				Marshaller marshaller = getMarshaller(type);
+				if (marshaller == null && type.isArray()) {
+					marshaller = getMarshaller(type.getComponentType());
+				}
+				visitor.visitPropertyDescriptor(definitionBuildingContext.getPropertyDescriptorFactory().byField(field, marshaller, CountingWideBean.class),
+						marshaller);
+			}
+
+			Method getter;
+			try {
+				getter = CountingWideBean.class.getDeclaredMethod("getName");
+			}
+			catch (NoSuchMethodException e) {
+				throw new IllegalArgumentException(e);
+			}
+
+			Marshaller marshaller = getMarshaller(String.class);
+			PropertyDescriptor propertyDescriptor = definitionBuildingContext.getPropertyDescriptorFactory().byMethod(getter, marshaller,
+					CountingWideBean.class);
+			visitor.visitPropertyDescriptor(propertyDescriptor, marshaller);
+
+			visitor.visitFinalizeSerializerDefinition(this);
+		}
+
+		private Marshaller getMarshaller(Class<?> type) {
+			return definitionBuildingContext.getMarshallerStrategy().getMarshaller(type, new InternalMarshallerContext());
+		}
+	}
+
+	public static class CountingWideBean extends WideBean {
+
+		private String name;
+		private int reads;
+
+		public String getName() {
+			reads++;
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	public static class WideBean {
+
+		@Attribute
+		private int value0;
+
+		@Attribute
+		private Integer value1;
+
+		@Attribute
+		private long value2;
+
+		@Attribute
+		private String value3;
+
+		@Attribute
+		private double value4;
+
+		@Attribute
+		private Long value5;
+
+		@Attribute
+		private int[] value6;
+
+		@Attribute
+		private String[] value7;
+
+		@Attribute
+		private boolean value8;
+
+		@Attribute
+		private Double value9;
+
+		@Attribute
+		private int value10;
+
+		@Attribute
+		private Integer value11;
+
+		@Attribute
+		private long value12;
+
+		@Attribute
+		private String value13;
+
+		@Attribute
+		private double value14;
+
+		@Attribute
+		private Long value15;
+
+		@Attribute
+		private int[] value16;
+
+		@Attribute
+		private String[] value17;
+
+		@Attribute
+		private boolean value18;
+
+		@Attribute
+		private Double value19;
+
+		@Attribute
+		private int value20;
+
+		@Attribute
+		private Integer value21;
+
+		@Attribute
+		private long value22;
+
+		@Attribute
+		private String value23;
+
+		@Attribute
+		private double value24;
+
+		@Attribute
+		private Long value25;
+
+		@Attribute
+		private int[] value26;
+
+		@Attribute
+		private String[] value27;
+
+		@Attribute
+		private boolean value28;
+
+		@Attribute
+		private Double value29;
+
+		@Attribute
+		private int value30;
+
+		@Attribute
+		private Integer value31;
+
+		@Attribute
+		private long value32;
+
+		@Attribute
+		private String value33;
+
+		@Attribute
+		private double value34;
+
+		@Attribute
+		private Long value35;
+
+		@Attribute
+		private int[] value36;
+
+		@Attribute
+		private String[] value37;
+
+		@Attribute
+		private boolean value38;
+
+		@Attribute
+		private Double value39;
+
+		@Attribute
+		private int value40;
+
+		@Attribute
+		private Integer value41;
+
+		@Attribute
+		private long value42;
+
+		@Attribute
+		private String value43;
+
+		@Attribute
+		private double value44;
+
+		@Attribute
+		private Long value45;
+
+		@Attribute
+		private int[] value46;
+
+		@Attribute
+		private String[] value47;
+
+		@Attribute
+		private boolean value48;
+
+		@Attribute
+		private Double value49;
+
+		@Attribute
+		private int value50;
+
+		@Attribute
+		private Integer value51;
+
+		@Attribute
+		private long value52;
+
+		@Attribute
+		private String value53;
+
+		@Attribute
+		private double value54;
+
+		@Attribute
+		private Long value55;
+
+		@Attribute
+		private int[] value56;
+
+		@Attribute
+		private String[] value57;
+
+		@Attribute
+		private boolean value58;
+
+		@Attribute
+		private Double value59;
+
+		@Attribute
+		private int value60;
+
+		@Attribute
+		private Integer value61;
+
+		@Attribute
+		private long value62;
+
+		@Attribute
+		private String value63;
+
+		@Attribute
+		private double value64;
+
+		@Attribute
+		private Long value65;
+
+		@Attribute
+		private int[] value66;
+
+		@Attribute
+		private String[] value67;
+
+		@Attribute
+		private boolean value68;
+
+		@Attribute
+		private Double value69;
+
+		@Attribute
+		private int value70;
+
+		@Attribute
+		private Integer value71;
+
+		@Attribute
+		private long value72;
+
+		@Attribute
+		private String value73;
+
+		@Attribute
+		private double value74;
+
+		@Attribute
+		private Long value75;
+
+		@Attribute
+		private int[] value76;
+
+		@Attribute
+		private String[] value77;
+
+		@Attribute
+		private boolean value78;
+
+		@Attribute
+		private Double value79;
+
+		@Attribute
+		private int value80;
+
+		@Attribute
+		private Integer value81;
+
+		@Attribute
+		private long value82;
+
+		@Attribute
+		private String value83;
+
+		@Attribute
+		private double value84;
+
+		@Attribute
+		private Long value85;
+
+		@Attribute
+		private int[] value86;
+
+		@Attribute
+		private String[] value87;
+
+		@Attribute
+		private boolean value88;
+
+		@Attribute
+		private Double value89;
+
+		@Attribute
+		private int value90;
+
+		@Attribute
+		private Integer value91;
+
+		@Attribute
+		private long value92;
+
+		@Attribute
+		private String value93;
+
+		@Attribute
+		private double value94;
+
+		@Attribute
+		private Long value95;
+
+		@Attribute
+		private int[] value96;
+
+		@Attribute
+		private String[] value97;
+
+		@Attribute
+		private boolean value98;
+
+		@Attribute
+		private Double value99;
+
+		@Attribute
+		private int value100;
+
+		@Attribute
+		private Integer value101;
+
+		@Attribute
+		private long value102;
+
+		@Attribute
+		private String value103;
+
+		@Attribute
+		private double value104;
+
+		@Attribute
+		private Long value105;
+
+		@Attribute
+		private int[] value106;
+
+		@Attribute
+		private String[] value107;
+
+		@Attribute
+		private boolean value108;
+
+		@Attribute
+		private Double value109;
+
+		@Attribute
+		private int value110;
+
+		@Attribute
+		private Integer value111;
+
+		@Attribute
+		private long value112;
+
+		@Attribute
+		private String value113;
+
+		@Attribute
+		private double value114;
+
+		@Attribute
+		private Long value115;
+
+		@Attribute
+		private int[] value116;
+
+		@Attribute
+		private String[] value117;
+
+		@Attribute
+		private boolean value118;
+
+		@Attribute
+		private Double value119;
+
+		@Attribute
+		private int value120;
+
+		@Attribute
+		private Integer value121;
+
+		@Attribute
+		private long value122;
+
+		@Attribute
+		private String value123;
+
+		@Attribute
+		private double value124;
+
+		@Attribute
+		private Long value125;
+
+		@Attribute
+		private int[] value126;
+
+		@Attribute
+		private String[] value127;
+
+		@Attribute
+		private boolean value128;
+
+		@Attribute
+		private Double value129;
+
+		@Attribute
+		private int value130;
+
+		@Attribute
+		private Integer value131;
+
+		@Attribute
+		private long value132;
+
+		@Attribute
+		private String value133;
+
+		@Attribute
+		private double value134;
+
+		@Attribute
+		private Long value135;
+
+		@Attribute
+		private int[] value136;
+
+		@Attribute
+		private String[] value137;
+
+		@Attribute
+		private boolean value138;
+
+		@Attribute
+		private Double value139;
+
+		@Attribute
+		private int value140;
+
+		@Attribute
+		private Integer value141;
+
+		@Attribute
+		private long value142;
+
+		@Attribute
+		private String value143;
+
+		@Attribute
+		private double value144;
+
+		@Attribute
+		private Long value145;
+
+		@Attribute
+		private int[] value146;
+
+		@Attribute
+		private String[] value147;
+
+		@Attribute
+		private boolean value148;
+
+		@Attribute
+		private Double value149;
+
+		@Attribute
+		private int value150;
+
+		@Attribute
+		private Integer value151;
+
+		@Attribute
+		private long value152;
+
+		@Attribute
+		private String value153;
+
+		@Attribute
+		private double value154;
+
+		@Attribute
+		private Long value155;
+
+		@Attribute
+		private int[] value156;
+
+		@Attribute
+		private String[] value157;
+
+		@Attribute
+		private boolean value158;
+
+		@Attribute
+		private Double value159;
+
+		@Attribute
+		private int value160;
+
+		@Attribute
+		private Integer value161;
+
+		@Attribute
+		private long value162;
+
+		@Attribute
+		private String value163;
+
+		@Attribute
+		private double value164;
+
+		@Attribute
+		private Long value165;
+
+		@Attribute
+		private int[] value166;
+
+		@Attribute
+		private String[] value167;
+
+		@Attribute
+		private boolean value168;
+
+		@Attribute
+		private Double value169;
+
+		@Attribute
+		private int value170;
+
+		@Attribute
+		private Integer value171;
+
+		@Attribute
+		private long value172;
+
+		@Attribute
+		private String value173;
+
+		@Attribute
+		private double value174;
+
+		@Attribute
+		private Long value175;
+
+		@Attribute
+		private int[] value176;
+
+		@Attribute
+		private String[] value177;
+
+		@Attribute
+		private boolean value178;
+
+		@Attribute
+		private Double value179;
+
+		@Attribute
+		private int value180;
+
+		@Attribute
+		private Integer value181;
+
+		@Attribute
+		private long value182;
+
+		@Attribute
+		private String value183;
+
+		@Attribute
+		private double value184;
+
+		@Attribute
+		private Long value185;
+
+		@Attribute
+		private int[] value186;
+
+		@Attribute
+		private String[] value187;
+
+		@Attribute
+		private boolean value188;
+
+		@Attribute
+		private Double value189;
+
+		@Attribute
+		private int value190;
+
+		@Attribute
+		private Integer value191;
+
+		@Attribute
+		private long value192;
+
+		@Attribute
+		private String value193;
+
+		@Attribute
+		private double value194;
+
+		@Attribute
+		private Long value195;
+
+		@Attribute
+		private int[] value196;
+
+		@Attribute
+		private String[] value197;
+
+		@Attribute
+		private boolean value198;
+
+		@Attribute
+		private Double value199;
+
+		@Attribute
+		private int value200;
+
+		@Attribute
+		private Integer value201;
+
+		@Attribute
+		private long value202;
+
+		@Attribute
+		private String value203;
+
+		@Attribute
+		private double value204;
+
+		@Attribute
+		private Long value205;
+
+		@Attribute
+		private int[] value206;
+
+		@Attribute
+		private String[] value207;
+
+		@Attribute
+		private boolean value208;
+
+		@Attribute
+		private Double value209;
+
+		@Attribute
+		private int value210;
+
+		@Attribute
+		private Integer value211;
+
+		@Attribute
+		private long value212;
+
+		@Attribute
+		private String value213;
+
+		@Attribute
+		private double value214;
+
+		@Attribute
+		private Long value215;
+
+		@Attribute
+		private int[] value216;
+
+		@Attribute
+		private String[] value217;
+
+		@Attribute
+		private boolean value218;
+
+		@Attribute
+		private Double value219;
+
+		@Attribute
+		private int value220;
+
+		@Attribute
+		private Integer value221;
+
+		@Attribute
+		private long value222;
+
+		@Attribute
+		private String value223;
+
+		@Attribute
+		private double value224;
+
+		@Attribute
+		private Long value225;
+
+		@Attribute
+		private int[] value226;
+
+		@Attribute
+		private String[] value227;
+
+		@Attribute
+		private boolean value228;
+
+		@Attribute
+		private Double value229;
+
+		@Attribute
+		private int value230;
+
+		@Attribute
+		private Integer value231;
+
+		@Attribute
+		private long value232;
+
+		@Attribute
+		private String value233;
+
+		@Attribute
+		private double value234;
+
+		@Attribute
+		private Long value235;
+
+		@Attribute
+		private int[] value236;
+
+		@Attribute
+		private String[] value237;
+
+		@Attribute
+		private boolean value238;
+
+		@Attribute
+		private Double value239;
+
+		@Attribute
+		private int value240;
+
+		@Attribute
+		private Integer value241;
+
+		@Attribute
+		private long value242;
+
+		@Attribute
+		private String value243;
+
+		@Attribute
+		private double value244;
+
+		@Attribute
+		private Long value245;
+
+		@Attribute
+		private int[] value246;
+
+		@Attribute
+		private String[] value247;
+
+		@Attribute
+		private boolean value248;
+
+		@Attribute
+		private Double value249;
+
+		@Attribute
+		private int value250;
+
+		@Attribute
+		private Integer value251;
+
+		@Attribute
+		private long value252;
+
+		@Attribute
+		private String value253;
+
+		@Attribute
+		private double value254;
+
+		@Attribute
+		private Long value255;
+
+		@Attribute
+		private int[] value256;
+
+		@Attribute
+		private String[] value257;
+
+		@Attribute
+		private boolean value258;
+
+		@Attribute
+		private Double value259;
+
+		@Attribute
+		private int value260;
+
+		@Attribute
+		private Integer value261;
+
+		@Attribute
+		private long value262;
+
+		@Attribute
+		private String value263;
+
+		@Attribute
+		private double value264;
+
+		@Attribute
+		private Long value265;
+
+		@Attribute
+		private int[] value266;
+
+		@Attribute
+		private String[] value267;
+
+		@Attribute
+		private boolean value268;
+
+		@Attribute
+		private Double value269;
+
+		@Attribute
+		private int value270;
+
+		@Attribute
+		private Integer value271;
+
+		@Attribute
+		private long value272;
+
+		@Attribute
+		private String value273;
+
+		@Attribute
+		private double value274;
+
+		@Attribute
+		private Long value275;
+
+		@Attribute
+		private int[] value276;
+
+		@Attribute
+		private String[] value277;
+
+		@Attribute
+		private boolean value278;
+
+		@Attribute
+		private Double value279;
+
+		@Attribute
+		private int value280;
+
+		@Attribute
+		private Integer value281;
+
+		@Attribute
+		private long value282;
+
+		@Attribute
+		private String value283;
+
+		@Attribute
+		private double value284;
+
+		@Attribute
+		private Long value285;
+
+		@Attribute
+		private int[] value286;
+
+		@Attribute
+		private String[] value287;
+
+		@Attribute
+		private boolean value288;
+
+		@Attribute
+		private Double value289;
+
+		@Attribute
+		private int value290;
+
+		@Attribute
+		private Integer value291;
+
+		@Attribute
+		private long value292;
+
+		@Attribute
+		private String value293;
+
+		@Attribute
+		private double value294;
+
+		@Attribute
+		private Long value295;
+
+		@Attribute
+		private int[] value296;
+
+		@Attribute
+		private String[] value297;
+
+		@Attribute
+		private boolean value298;
+
+		@Attribute
+		private Double value299;
+	}
+}
@@ -15,13 +15,23 @@
  */
 package com.github.lightning.internal;
 
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.Test;
 import org.objectweb.asm.ClassVisitor;
 
+import com.github.lightning.internal.util.ClassUtil;
 import com.github.lightning.logging.LoggerAdapter;
 import com.github.lightning.metadata.ClassDefinition;
 import com.github.lightning.metadata.ClassDefinitionContainer;
@@ -37,7 +47,7 @@ public class ClassDefinitionContainerTestCase {
 
 		for (Class<?> clazz : CLASSES) {
 			PropertyDescriptor label = null;
-			classDefinitions.add(new InternalClassDefinition(clazz, Collections.<PropertyDescriptor> emptyList(), new LoggerAdapter()));
+			classDefinitions.add(new InternalClassDefinition(clazz, Collections.<PropertyDescriptor> emptyList(), false, new LoggerAdapter()));
 		}
 
 		ClassDefinitionContainer classDefinitionContainer = new InternalClassDefinitionContainer(classDefinitions);
@@ -46,4 +56,31 @@ public class ClassDefinitionContainerTestCase {
 			Class<?> clazz = null;
 		}
 	}
+
+	@Test
+	public void testClassDefinitionLookups() throws Exception {
+		final Set<ClassDefinition> classDefinitions = new HashSet<ClassDefinition>(Arrays.asList(ClassUtil.CLASS_DESCRIPTORS));
+
+		InternalClassDefinition userClassDefinition = new InternalClassDefinition(ClassVisitor.class, Collections.<PropertyDescriptor> emptyList(),
+				false, new LoggerAdapter());
+		userClassDefinition.setId(ClassUtil.FIRST_USER_TYPE_ID);
+		classDefinitions.add(userClassDefinition);
+
+		ClassDefinitionContainer classDefinitionContainer = new InternalClassDefinitionContainer(classDefinitions);
+
+		assertSame(userClassDefinition, classDefinitionContainer.getClassDefinitionByType(ClassVisitor.class));
+		assertSame(userClassDefinition, classDefinitionContainer.getClassDefinitionById(ClassUtil.FIRST_USER_TYPE_ID));
+		assertSame(userClassDefinition, classDefinitionContainer.getClassDefinitionByCanonicalName(userClassDefinition.getCanonicalName()));
+
+		// Collection implementations are folded to their interface
+		ClassDefinition listClassDefinition = classDefinitionContainer.getClassDefinitionByType(List.class);
+		assertNotNull(listClassDefinition);
+		assertSame(listClassDefinition, classDefinitionContainer.getClassDefinitionByType(ArrayList.class));
+		assertSame(listClassDefinition, classDefinitionContainer.getClassDefinitionByType(ArrayList.class));
+		assertSame(classDefinitionContainer.getClassDefinitionByType(Map.class), classDefinitionContainer.getClassDefinitionByType(HashMap.class));
+
+		assertNull(classDefinitionContainer.getClassDefinitionByType(ClassDefinitionContainerTestCase.class));
+		assertNull(classDefinitionContainer.getClassDefinitionByCanonicalName("foo.Bar"));
+		assertNull(classDefinitionContainer.getClassDefinitionById(ClassUtil.FIRST_USER_TYPE_ID + 1));
+	}
 }
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Test;
+
+import com.github.lightning.IntegerEncodingStrategy;
+import com.github.lightning.Marshaller;
+import com.github.lightning.SerializationStrategy;
+import com.github.lightning.internal.instantiator.ObjenesisSerializer;
+
+public class MarshallerCacheTestCase {
+
+	@Test
+	public void testResolvedMarshallersAreShared() throws Exception {
+		ConcurrentMap<Type, Marshaller> marshallerCache = new ConcurrentHashMap<Type, Marshaller>();
+		InternalSerializationContext serializationContext1 = buildSerializationContext(marshallerCache);
+		InternalSerializationContext serializationContext2 = buildSerializationContext(marshallerCache);
+
+		Type strings = Types.class.getDeclaredField("strings").getGenericType();
+		Type integers = Types.class.getDeclaredField("integers").getGenericType();
+
+		Marshaller marshaller = serializationContext1.findMarshaller(strings);
+		assertNotNull(marshaller);
+		assertSame(marshaller, serializationContext1.findMarshaller(strings));
+		assertSame(marshaller, serializationContext2.findMarshaller(strings));
+
+		// Different bindings are cached separately
+		assertNotSame(marshaller, serializationContext1.findMarshaller(integers));
+		assertNotSame(marshaller, serializationContext1.findMarshaller(List.class));
+
+		assertSame(serializationContext1.findMarshaller(String.class), serializationContext2.findMarshaller(String.class));
+	}
+
+	private InternalSerializationContext buildSerializationContext(ConcurrentMap<Type, Marshaller> marshallerCache) {
+		return new InternalSerializationContext(new InternalClassDefinitionContainer(), SerializationStrategy.SpeedOptimized,
+				IntegerEncodingStrategy.FixedLength, new InternalMarshallerStrategy(), new ObjenesisSerializer(true),
+				InternalSerializationContext.buildMarshallerContext(Collections.<Class<?>, Marshaller> emptyMap()), marshallerCache);
+	}
+
+	@SuppressWarnings("unused")
+	private static class Types {
+
+		private List<String> strings;
+		private List<Integer> integers;
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import com.github.lightning.IntegerEncodingStrategy;
+import com.github.lightning.Marshaller;
+import com.github.lightning.SerializationStrategy;
+import com.github.lightning.internal.instantiator.ObjenesisSerializer;
+
+public class SerializationContextReferencesTestCase {
+
+	private static final int NODES = 1000000;
+
+	@Test
+	public void testSequentialReferenceIds() throws Exception {
+		InternalSerializationContext serializationContext = buildSerializationContext();
+		Object[] nodes = new Object[NODES];
+		for (int i = 0; i < NODES; i++) {
+			nodes[i] = new Object();
+			assertEquals(-1, serializationContext.findReferenceIdByObject(nodes[i]));
+			assertEquals(i, serializationContext.putMarshalledInstance(nodes[i]));
+		}
+
+		for (int i = 0; i < NODES; i++) {
+			assertEquals(i, serializationContext.findReferenceIdByObject(nodes[i]));
+		}
+
+		serializationContext.reset();
+		assertEquals(-1, serializationContext.findReferenceIdByObject(nodes[0]));
+		assertEquals(0, serializationContext.putMarshalledInstance(nodes[1]));
+	}
+
+	@Test
+	public void testUnmarshallReferenceTable() throws Exception {
+		InternalSerializationContext serializationContext = buildSerializationContext();
+		Object[] nodes = new Object[NODES];
+
+		for (int i = 0; i < NODES; i++) {
+			nodes[i] = new Object();
+			serializationContext.putUnmarshalledInstance(i, nodes[i]);
+		}
+
+		for (int i = 0; i < NODES; i++) {
+			assertTrue(serializationContext.containsReferenceId(i));
+			assertSame(nodes[i], serializationContext.findObjectByReferenceId(i));
+		}
+		assertNull(serializationContext.findObjectByReferenceId(NODES));
+		assertNull(serializationContext.findObjectByReferenceId(-1));
+
+		serializationContext.reset();
+		assertFalse(serializationContext.containsReferenceId(0));
+		assertNull(serializationContext.findObjectByReferenceId(NODES - 1));
+	}
+
+	@Test
+	public void testBogusReferenceIdsAreRejected() throws Exception {
+		InternalSerializationContext serializationContext = buildSerializationContext();
+		assertRejected(serializationContext, 1);
+		assertRejected(serializationContext, -1);
+		assertRejected(serializationContext, 1L << 31);
+		assertRejected(serializationContext, Long.MAX_VALUE);
+
+		serializationContext.putUnmarshalledInstance(0, new Object());
+		serializationContext.putUnmarshalledInstance(1, new Object());
+		assertRejected(serializationContext, 3);
+		assertNull(serializationContext.findObjectByReferenceId(2));
+	}
+
+	private void assertRejected(InternalSerializationContext serializationContext, long referenceId) throws Exception {
+		try {
+			serializationContext.putUnmarshalledInstance(referenceId, new Object());
+			fail("Reference id " + referenceId + " accepted");
+		}
+		catch (StreamCorruptedException e) {
+			// expected
+		}
+	}
+
+	private InternalSerializationContext buildSerializationContext() {
+		return new InternalSerializationContext(new InternalClassDefinitionContainer(), SerializationStrategy.SizeOptimized,
+				IntegerEncodingStrategy.FixedLength, new InternalMarshallerStrategy(), new ObjenesisSerializer(true),
+				InternalSerializationContext.buildMarshallerContext(Collections.<Class<?>, Marshaller> emptyMap()),
+				new ConcurrentHashMap<Type, Marshaller>());
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.instantiator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.github.lightning.instantiator.ObjectInstantiatorFactory;
+
+/**
+ * Measures instantiator lookups of a shared {@link ObjectInstantiatorFactory}
+ * from a growing number of threads.
+ */
+@Ignore
+public class InstantiatorCacheBenchmark {
+
+	private static final int WARMUP_ROUNDS = 1000000;
+	private static final int BENCHMARK_ROUNDS = 10000000;
+
+	@Test
+	public void benchmarkInstantiatorLookup() throws Exception {
+		ObjectInstantiatorFactory objectInstantiatorFactory = new ObjenesisStd(true);
+		runThreads(objectInstantiatorFactory, 1, WARMUP_ROUNDS);
+
+		for (int threads = 1; threads <= 8; threads *= 2) {
+			long time = runThreads(objectInstantiatorFactory, threads, BENCHMARK_ROUNDS);
+			System.out.println("Threads " + threads + ": " + (time / BENCHMARK_ROUNDS) + " ns per lookup");
+		}
+	}
+
+	private long runThreads(final ObjectInstantiatorFactory objectInstantiatorFactory, int threadCount, final int rounds) throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++) {
+			Thread thread = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+
+					Class<?>[] types = InstantiatorCacheTestCase.TYPES;
+					for (int round = 0; round < rounds; round++) {
+						if (objectInstantiatorFactory.getInstantiatorOf(types[round % types.length]) == null) {
+							throw new IllegalStateException("No instantiator found");
+						}
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+
+		long startTime = System.nanoTime();
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return System.nanoTime() - startTime;
+	}
+}
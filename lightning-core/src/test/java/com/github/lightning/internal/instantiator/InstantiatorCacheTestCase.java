@@ -0,0 +1,104 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.instantiator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.github.lightning.instantiator.ObjectInstantiator;
+import com.github.lightning.instantiator.ObjectInstantiatorFactory;
+
+public class InstantiatorCacheTestCase {
+
+	static final Class<?>[] TYPES = { ArrayList.class, LinkedList.class, Vector.class, HashMap.class, LinkedHashMap.class, TreeMap.class,
+			HashSet.class, LinkedHashSet.class, TreeSet.class, Date.class, Random.class, StringBuilder.class, Object.class };
+
+	private static final int THREADS = 8;
+	private static final int ROUNDS = 2000;
+
+	@Test
+	public void testConcurrentInstantiatorLookup() throws Exception {
+		for (int run = 0; run < 20; run++) {
+			final ObjectInstantiatorFactory objectInstantiatorFactory = new ObjenesisStd(true);
+			final CountDownLatch start = new CountDownLatch(1);
+			final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < THREADS; i++) {
+				final int offset = i;
+				Thread thread = new Thread() {
+
+					@Override
+					public void run() {
+						try {
+							start.await();
+							for (int round = 0; round < ROUNDS; round++) {
+								Class<?> type = TYPES[(round + offset) % TYPES.length];
+								Object instance = objectInstantiatorFactory.newInstance(type);
+								assertSame(type, instance.getClass());
+							}
+						}
+						catch (Throwable e) {
+							failure.compareAndSet(null, e);
+						}
+					}
+				};
+				thread.start();
+				threads.add(thread);
+			}
+
+			start.countDown();
+			for (Thread thread : threads) {
+				thread.join();
+			}
+
+			if (failure.get() != null) {
+				throw new AssertionError(failure.get());
+			}
+
+			// Every thread has to end up with the same cached instantiator
+			for (Class<?> type : TYPES) {
+				ObjectInstantiator objectInstantiator = objectInstantiatorFactory.getInstantiatorOf(type);
+				assertSame(objectInstantiator, objectInstantiatorFactory.getInstantiatorOf(type));
+			}
+			assertEquals(TYPES.length, ((ObjenesisBase) objectInstantiatorFactory).cache.size());
+		}
+	}
+
+	@Test
+	public void testWithoutCache() throws Exception {
+		ObjectInstantiatorFactory objectInstantiatorFactory = new ObjenesisStd(false);
+		assertTrue(objectInstantiatorFactory.newInstance(ArrayList.class) instanceof ArrayList);
+	}
+}
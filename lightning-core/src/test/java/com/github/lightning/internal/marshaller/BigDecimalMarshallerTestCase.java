@@ -90,6 +90,34 @@ public class BigDecimalMarshallerTestCase {
 		assertEquals(value, result);
 	}
 
+	@Test
+	public void testEdgeValues() throws Exception {
+		Serializer serializer = Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(BigDecimalHolder.class).attributes();
+					}
+				}).build();
+
+		BigDecimal[] values = { BigDecimal.ZERO, new BigDecimal("19.99"), new BigDecimal("-0.000001"), new BigDecimal("1E+10"),
+				BigDecimal.valueOf(Long.MAX_VALUE, 2), BigDecimal.valueOf(Long.MIN_VALUE, 2), new BigDecimal("123456789012345678901234567890.123456789") };
+
+		for (BigDecimal edgeValue : values) {
+			BigDecimalHolder value = new BigDecimalHolder();
+			value.setValue1(edgeValue);
+			value.setValue2(null);
+			value.setValue3(edgeValue.negate());
+
+			byte[] data = serializer.serialize(value);
+			Object result = serializer.deserialize(data, 0, data.length);
+
+			assertNotNull(result);
+			assertEquals(value, result);
+		}
+	}
+
 	public static class BigDecimalHolder {
 
 		@Attribute
@@ -90,6 +90,35 @@ public class BigIntegerMarshallerTestCase {
 		assertEquals(value, result);
 	}
 
+	@Test
+	public void testEdgeValues() throws Exception {
+		Serializer serializer = Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(BigIntegerHolder.class).attributes();
+					}
+				}).build();
+
+		BigInteger[] values = { BigInteger.ZERO, BigInteger.ONE.negate(), BigInteger.valueOf(Long.MAX_VALUE), BigInteger.valueOf(Long.MIN_VALUE),
+				BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), BigInteger.valueOf(Long.MIN_VALUE).subtract(BigInteger.ONE),
+				new BigInteger("-123456789012345678901234567890") };
+
+		for (BigInteger edgeValue : values) {
+			BigIntegerHolder value = new BigIntegerHolder();
+			value.setValue1(edgeValue);
+			value.setValue2(null);
+			value.setValue3(edgeValue.negate());
+
+			byte[] data = serializer.serialize(value);
+			Object result = serializer.deserialize(data, 0, data.length);
+
+			assertNotNull(result);
+			assertEquals(value, result);
+		}
+	}
+
 	public static class BigIntegerHolder {
 
 		@Attribute
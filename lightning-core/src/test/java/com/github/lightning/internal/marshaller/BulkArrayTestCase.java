@@ -0,0 +1,223 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.marshaller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.lightning.Lightning;
+import com.github.lightning.Serializer;
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
+import com.github.lightning.metadata.Attribute;
+
+public class BulkArrayTestCase {
+
+	private static final int SIZE = 10000;
+
+	private final Random random = new Random(12345);
+
+	@Test
+	public void testNativeOrder() throws Exception {
+		LightningOutput output = new LightningOutput(16, ByteOrder.nativeOrder());
+		Values values = new Values(random);
+		values.write(output);
+
+		byte[] data = output.toByteArray();
+		values.readAndCompare(new LightningInput(data, 0, data.length, ByteOrder.nativeOrder()));
+	}
+
+	@Test
+	public void testBigEndian() throws Exception {
+		LightningOutput output = new LightningOutput(16, ByteOrder.BIG_ENDIAN);
+		Values values = new Values(random);
+		values.write(output);
+
+		byte[] data = output.toByteArray();
+		values.readAndCompare(new LightningInput(data, 0, data.length, ByteOrder.BIG_ENDIAN));
+
+		// Bulk written data has to be readable element by element
+		LightningInput input = new LightningInput(data, 0, data.length, ByteOrder.BIG_ENDIAN);
+		for (int i = 0; i < SIZE; i++) {
+			assertEquals(values.shorts[i], input.readShort());
+		}
+	}
+
+	@Test
+	public void testDirectBuffer() throws Exception {
+		for (ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(SIZE * 28);
+			Values values = new Values(random);
+			values.write(new LightningOutput(buffer, byteOrder));
+			values.readAndCompare(new LightningInput(buffer, byteOrder));
+		}
+	}
+
+	@Test
+	public void testStream() throws Exception {
+		for (ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			LightningOutput output = new LightningOutput(baos, byteOrder);
+			Values values = new Values(random);
+			values.write(output);
+			output.flush();
+
+			assertEquals(SIZE * 28, baos.size());
+			values.readAndCompare(new LightningInput(new ByteArrayInputStream(baos.toByteArray()), byteOrder));
+		}
+	}
+
+	@Test
+	public void testWrapperArrayWithNulls() throws Exception {
+		Serializer serializer = Lightning.newBuilder().debugCacheDirectory(new File("target"))
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(WrapperArrays.class).attributes();
+					}
+				}).build();
+
+		WrapperArrays value = new WrapperArrays();
+		value.setIntegers(new Integer[] { 1, null, -3 });
+		value.setDoubles(new Double[] { null, 2.5d });
+		value.setBooleans(new Boolean[] { Boolean.TRUE, null });
+		value.setInts(new int[] { 1, 2, 3 });
+
+		byte[] data = serializer.serialize(value);
+		WrapperArrays result = serializer.deserialize(data, 0, data.length);
+
+		assertArrayEquals(value.getIntegers(), result.getIntegers());
+		assertArrayEquals(value.getDoubles(), result.getDoubles());
+		assertArrayEquals(value.getBooleans(), result.getBooleans());
+		assertTrue(Arrays.equals(value.getInts(), result.getInts()));
+	}
+
+	private static class Values {
+
+		private final short[] shorts = new short[SIZE];
+		private final char[] chars = new char[SIZE];
+		private final int[] ints = new int[SIZE];
+		private final long[] longs = new long[SIZE];
+		private final float[] floats = new float[SIZE];
+		private final double[] doubles = new double[SIZE];
+
+		private Values(Random random) {
+			for (int i = 0; i < SIZE; i++) {
+				shorts[i] = (short) random.nextInt();
+				chars[i] = (char) random.nextInt();
+				ints[i] = random.nextInt();
+				longs[i] = random.nextLong();
+				floats[i] = random.nextFloat();
+				doubles[i] = random.nextDouble();
+			}
+		}
+
+		private void write(LightningOutput output) throws Exception {
+			output.writeShorts(shorts, 0, SIZE);
+			output.writeChars(chars, 0, SIZE);
+			output.writeInts(ints, 0, SIZE);
+			output.writeLongs(longs, 0, SIZE);
+			output.writeFloats(floats, 0, SIZE);
+			output.writeDoubles(doubles, 0, SIZE);
+		}
+
+		private void readAndCompare(LightningInput input) throws Exception {
+			short[] shorts = new short[SIZE];
+			input.readShorts(shorts, 0, SIZE);
+			assertTrue(Arrays.equals(this.shorts, shorts));
+
+			char[] chars = new char[SIZE];
+			input.readChars(chars, 0, SIZE);
+			assertTrue(Arrays.equals(this.chars, chars));
+
+			int[] ints = new int[SIZE];
+			input.readInts(ints, 0, SIZE);
+			assertTrue(Arrays.equals(this.ints, ints));
+
+			long[] longs = new long[SIZE];
+			input.readLongs(longs, 0, SIZE);
+			assertTrue(Arrays.equals(this.longs, longs));
+
+			float[] floats = new float[SIZE];
+			input.readFloats(floats, 0, SIZE);
+			assertTrue(Arrays.equals(this.floats, floats));
+
+			double[] doubles = new double[SIZE];
+			input.readDoubles(doubles, 0, SIZE);
+			assertTrue(Arrays.equals(this.doubles, doubles));
+		}
+	}
+
+	public static class WrapperArrays {
+
+		@Attribute
+		private Integer[] integers;
+
+		@Attribute
+		private Double[] doubles;
+
+		@Attribute
+		private Boolean[] booleans;
+
+		@Attribute
+		private int[] ints;
+
+		public Integer[] getIntegers() {
+			return integers;
+		}
+
+		public void setIntegers(Integer[] integers) {
+			this.integers = integers;
+		}
+
+		public Double[] getDoubles() {
+			return doubles;
+		}
+
+		public void setDoubles(Double[] doubles) {
+			this.doubles = doubles;
+		}
+
+		public Boolean[] getBooleans() {
+			return booleans;
+		}
+
+		public void setBooleans(Boolean[] booleans) {
+			this.booleans = booleans;
+		}
+
+		public int[] getInts() {
+			return ints;
+		}
+
+		public void setInts(int[] ints) {
+			this.ints = ints;
+		}
+	}
+}
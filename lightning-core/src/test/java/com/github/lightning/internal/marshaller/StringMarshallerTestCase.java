@@ -0,0 +1,265 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.marshaller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.lightning.Lightning;
+import com.github.lightning.Serializer;
+import com.github.lightning.base.AbstractSerializerDefinition;
+import com.github.lightning.io.LightningInput;
+import com.github.lightning.io.LightningOutput;
+import com.github.lightning.metadata.Attribute;
+import com.github.lightningtesting.utils.DebugLogger;
+
+public class StringMarshallerTestCase {
+
+	private static final String[] VALUES = { "", "ascii", "Grüße ÿ", "日本語", "smile 😀", "nul\u0000char" };
+
+	private static final String[] UNPAIRED_SURROGATES = { "lone \uD800 surrogate", "\uDC00", "\uD83D", "end \uDE00\uD83D" };
+
+	@Test
+	public void testString() throws Exception {
+		Serializer serializer = buildSerializer();
+
+		for (String text : VALUES) {
+			StringHolder value = new StringHolder();
+			value.setValue1(text);
+			value.setValue2(null);
+			value.setValue3(text + text);
+
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			serializer.serialize(value, baos);
+
+			ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+			Object result = serializer.deserialize(bais);
+
+			assertNotNull(result);
+			assertEquals(value, result);
+		}
+	}
+
+	@Test
+	public void testLargeString() throws Exception {
+		Serializer serializer = buildSerializer();
+
+		char[] chars = new char[200000];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ('a' + i % 26);
+		}
+
+		StringHolder value = new StringHolder();
+		value.setValue1(new String(chars));
+		chars[chars.length / 2] = '€';
+		value.setValue2(new String(chars));
+
+		byte[] data = serializer.serialize(value);
+		assertEquals(value, serializer.deserialize(data, 0, data.length));
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serialize(value, baos);
+		assertEquals(value, serializer.deserialize(new ByteArrayInputStream(baos.toByteArray())));
+	}
+
+	@Test
+	public void testLatin1OneBytePerChar() throws Exception {
+		char[] chars = new char[100];
+		Arrays.fill(chars, 'é');
+
+		LightningOutput output = new LightningOutput();
+		output.writeString(new String(chars));
+
+		// Two bytes of length header
+		assertEquals(2 + 100, output.position());
+	}
+
+	@Test
+	public void testLargeStringFromStream() throws Exception {
+		// Multi byte sequences of every length end up split by the chunks
+		StringBuilder utf8 = new StringBuilder();
+		StringBuilder latin1 = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			utf8.append(i % 3 == 0 ? "a\u00e9" : i % 3 == 1 ? "\u4e16" : "\ud83d\ude00");
+			latin1.append((char) (i % 256));
+		}
+
+		LightningOutput output = new LightningOutput();
+		output.writeString(utf8.toString());
+		output.writeString(latin1.toString());
+
+		LightningInput input = new LightningInput(new ByteArrayInputStream(output.toByteArray()));
+		assertEquals(utf8.toString(), input.readString());
+		assertEquals(latin1.toString(), input.readString());
+	}
+
+	@Test(expected = EOFException.class)
+	public void testCorruptStringLengthFromStream() throws Exception {
+		// Claims a string of nearly 1GB followed by only a few bytes
+		LightningOutput output = new LightningOutput();
+		output.writeVarLong(0x7FFFFFF0L);
+		output.asDataOutput().writeBytes("lightning");
+
+		LightningInput input = new LightningInput(new ByteArrayInputStream(output.toByteArray()));
+		input.readString();
+	}
+
+	@Test
+	public void testDirectBuffer() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+		LightningOutput output = new LightningOutput(buffer);
+		for (String text : VALUES) {
+			output.writeString(text);
+		}
+
+		LightningInput input = new LightningInput(buffer);
+		for (String text : VALUES) {
+			assertEquals(text, input.readString());
+		}
+	}
+
+	@Test
+	public void testUnpairedSurrogates() throws Exception {
+		for (String text : UNPAIRED_SURROGATES) {
+			// Unpaired surrogates are replaced the same way String#getBytes does
+			byte[] expected = text.getBytes("UTF-8");
+
+			LightningOutput output = new LightningOutput();
+			output.writeString(text);
+			byte[] data = output.toByteArray();
+			assertArrayEquals(expected, Arrays.copyOfRange(data, data.length - expected.length, data.length));
+
+			LightningInput input = new LightningInput(data);
+			assertEquals(new String(expected, "UTF-8"), input.readString());
+		}
+	}
+
+	@Test
+	public void testExactlySizedByteBuffer() throws Exception {
+		String text = "日本語 😀";
+		int utf8Length = text.getBytes("UTF-8").length;
+
+		// One byte of length header, no room for a worst case estimate
+		ByteBuffer buffer = ByteBuffer.allocate(1 + utf8Length);
+		LightningOutput output = new LightningOutput(buffer);
+		output.writeString(text);
+		assertEquals(buffer.capacity(), output.position());
+
+		assertEquals(text, new LightningInput(buffer).readString());
+	}
+
+	private Serializer buildSerializer() {
+		return Lightning.newBuilder().logger(new DebugLogger()).debugCacheDirectory(new File("target"))
+				.serializerDefinitions(new AbstractSerializerDefinition() {
+
+					@Override
+					protected void configure() {
+						bind(StringHolder.class).attributes();
+					}
+				}).build();
+	}
+
+	public static class StringHolder {
+
+		@Attribute
+		private String value1;
+
+		@Attribute
+		private String value2;
+
+		@Attribute
+		private String value3;
+
+		public String getValue1() {
+			return value1;
+		}
+
+		public void setValue1(String value1) {
+			this.value1 = value1;
+		}
+
+		public String getValue2() {
+			return value2;
+		}
+
+		public void setValue2(String value2) {
+			this.value2 = value2;
+		}
+
+		public String getValue3() {
+			return value3;
+		}
+
+		public void setValue3(String value3) {
+			this.value3 = value3;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + ((value1 == null) ? 0 : value1.hashCode());
+			result = prime * result + ((value2 == null) ? 0 : value2.hashCode());
+			result = prime * result + ((value3 == null) ? 0 : value3.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			StringHolder other = (StringHolder) obj;
+			if (value1 == null) {
+				if (other.value1 != null)
+					return false;
+			}
+			else if (!value1.equals(other.value1))
+				return false;
+			if (value2 == null) {
+				if (other.value2 != null)
+					return false;
+			}
+			else if (!value2.equals(other.value2))
+				return false;
+			if (value3 == null) {
+				if (other.value3 != null)
+					return false;
+			}
+			else if (!value3.equals(other.value3))
+				return false;
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "StringHolder [value1=" + value1 + ", value2=" + value2 + ", value3=" + value3 + "]";
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.lightning.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IdentityIntMapTestCase {
+
+	@Test
+	public void testIdentitySemantics() throws Exception {
+		IdentityIntMap map = new IdentityIntMap();
+		String first = new String("value");
+		String second = new String("value");
+
+		map.put(first, 1);
+		assertEquals(1, map.get(first));
+		assertEquals(-1, map.get(second));
+
+		map.put(second, 2);
+		map.put(first, 3);
+		assertEquals(3, map.get(first));
+		assertEquals(2, map.get(second));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	public void testGrowAndClear() throws Exception {
+		IdentityIntMap map = new IdentityIntMap();
+		Object[] keys = new Object[100000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new Object();
+			map.put(keys[i], i);
+		}
+
+		assertEquals(keys.length, map.size());
+		assertTrue(map.capacity() >= keys.length * 2);
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(i, map.get(keys[i]));
+		}
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertEquals(-1, map.get(keys[0]));
+	}
+}